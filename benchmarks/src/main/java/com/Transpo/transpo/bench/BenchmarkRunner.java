@@ -0,0 +1,41 @@
+package com.Transpo.transpo.bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Runs the benchmarks and writes JMH JSON results.
+ * Usage: java -jar benchmarks.jar [results.json] [JMH options, e.g. SeatConflict -p schedules=5000]
+ * The first argument is taken as the results file when it ends in .json; the default is
+ * jmh-results.json next to the jar (benchmarks/target/jmh-results.json), wherever it is run
+ * from. Compare two result files with any JMH JSON viewer or diff tool.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {}
+
+    public static void main(String[] args)
+            throws RunnerException, CommandLineOptionException, URISyntaxException {
+        Path jar = Path.of(BenchmarkRunner.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        String results = jar.resolveSibling("jmh-results.json").toString();
+        if (args.length > 0 && args[0].endsWith(".json")) {
+            results = args[0];
+            args = Arrays.copyOfRange(args, 1, args.length);
+        }
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .resultFormat(ResultFormatType.JSON)
+                .result(results)
+                .build();
+        new Runner(options).run();
+    }
+}
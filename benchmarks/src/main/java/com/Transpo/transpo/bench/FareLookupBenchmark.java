@@ -0,0 +1,71 @@
+package com.Transpo.transpo.bench;
+
+import com.Transpo.transpo.model.BusStop;
+import com.Transpo.transpo.repository.BusStopRepository;
+import com.Transpo.transpo.repository.TicketPriceRepository;
+import com.Transpo.transpo.service.FareMatrixCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fare quotes from the per-route fare matrix, warm and with the matrix rebuilt.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FareLookupBenchmark {
+
+    private static final int PROBES = 4096;
+
+    @Param({"100", "1000"})
+    public int schedules;
+
+    @Param({"12", "40"})
+    public int stopsPerRoute;
+
+    private FareMatrixCache fares;
+    private final long[] routeIds = new long[PROBES];
+    private final long[] fromStops = new long[PROBES];
+    private final long[] toStops = new long[PROBES];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Fleet fleet = new Fleet(schedules, 50, stopsPerRoute, 0, 42);
+        BusStopRepository stopRepo = Stubs.repository(BusStopRepository.class, Map.of(
+                "findByRouteIdOrderBySequenceAsc", args -> fleet.stops.get(((Long) args[0]).intValue() - 1)));
+        TicketPriceRepository priceRepo = Stubs.repository(TicketPriceRepository.class, Map.of(
+                "findByRouteId", args -> fleet.prices.get(((Long) args[0]).intValue() - 1)));
+        fares = new FareMatrixCache(priceRepo, stopRepo);
+
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < PROBES; i++) {
+            int route = random.nextInt(fleet.routes);
+            List<BusStop> stops = fleet.stops.get(route);
+            routeIds[i] = route + 1;
+            fromStops[i] = stops.get(random.nextInt(stops.size())).getId();
+            toStops[i] = stops.get(random.nextInt(stops.size())).getId();
+        }
+    }
+
+    @Benchmark
+    public BigDecimal price() {
+        int i = next++ & (PROBES - 1);
+        return fares.price(routeIds[i], fromStops[i], toStops[i]);
+    }
+
+    @Benchmark
+    public BigDecimal priceAfterInvalidate() {
+        int i = next++ & (PROBES - 1);
+        fares.invalidate(routeIds[i]);
+        return fares.price(routeIds[i], fromStops[i], toStops[i]);
+    }
+}
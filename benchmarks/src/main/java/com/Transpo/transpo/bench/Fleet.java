@@ -0,0 +1,113 @@
+package com.Transpo.transpo.bench;
+
+import com.Transpo.transpo.model.Bus;
+import com.Transpo.transpo.model.BusStop;
+import com.Transpo.transpo.model.Route;
+import com.Transpo.transpo.model.Schedule;
+import com.Transpo.transpo.model.TicketPrice;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Synthetic fleet: routes with named stops and ticket prices for every stop pair, and one bus
+ * and schedule per route trip with reservations on a share of the seats. Deterministic for a
+ * given seed so runs on different commits see the same data.
+ * Schedule ids run from 1 to schedules, route ids from 1 to routes; schedule i runs route
+ * (i - 1) % routes + 1.
+ */
+final class Fleet {
+
+    final int schedules;
+    final int routes;
+    final int seatsPerBus;
+    final int stopsPerRoute;
+
+    final List<Route> routeEntities = new ArrayList<>();
+    final List<List<BusStop>> stops = new ArrayList<>();
+    final List<List<String>> stopNames = new ArrayList<>();
+    final List<List<TicketPrice>> prices = new ArrayList<>();
+    final List<Schedule> scheduleEntities = new ArrayList<>();
+    // Per schedule: (seatNumber, paid, passengerName, username, pickup sequence, drop sequence)
+    final List<List<Object[]>> seatRows = new ArrayList<>();
+
+    Fleet(int schedules, int seatsPerBus, int stopsPerRoute, double occupancy, long seed) {
+        this.schedules = schedules;
+        this.routes = Math.max(1, schedules / 10);
+        this.seatsPerBus = seatsPerBus;
+        this.stopsPerRoute = stopsPerRoute;
+        SplittableRandom random = new SplittableRandom(seed);
+
+        // Towns are shared between routes, as in a real network
+        int towns = Math.max(stopsPerRoute, routes * stopsPerRoute / 3);
+        long stopId = 1;
+        long priceId = 1;
+        for (int r = 1; r <= routes; r++) {
+            Set<String> names = new LinkedHashSet<>();
+            while (names.size() < stopsPerRoute) {
+                names.add("Town " + random.nextInt(towns) + " Junction");
+            }
+            List<String> ordered = List.copyOf(names);
+            Route route = new Route(ordered.get(0), ordered.get(ordered.size() - 1));
+            route.setId((long) r);
+            List<BusStop> routeStops = new ArrayList<>();
+            for (int i = 0; i < ordered.size(); i++) {
+                BusStop stop = new BusStop(ordered.get(i), 6.9 + random.nextDouble(), 79.8 + random.nextDouble(), i + 1, route);
+                stop.setId(stopId++);
+                routeStops.add(stop);
+            }
+            List<TicketPrice> routePrices = new ArrayList<>();
+            for (int i = 0; i < routeStops.size(); i++) {
+                for (int j = i + 1; j < routeStops.size(); j++) {
+                    TicketPrice tp = new TicketPrice();
+                    tp.setId(priceId++);
+                    tp.setFromStopId(routeStops.get(i).getId());
+                    tp.setToStopId(routeStops.get(j).getId());
+                    tp.setPrice(BigDecimal.valueOf(5000L * (j - i) + random.nextInt(1000), 2));
+                    routePrices.add(tp);
+                }
+            }
+            routeEntities.add(route);
+            stops.add(routeStops);
+            stopNames.add(ordered);
+            prices.add(routePrices);
+        }
+
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        for (int s = 1; s <= schedules; s++) {
+            Bus bus = new Bus("NB-" + s, "Bus " + s, seatsPerBus);
+            bus.setId((long) s);
+            Schedule schedule = new Schedule(bus, routeOf(s), start.plusMinutes(15L * s), 500, seatsPerBus);
+            schedule.setId((long) s);
+            scheduleEntities.add(schedule);
+
+            List<Object[]> rows = new ArrayList<>();
+            for (int seat = 1; seat <= seatsPerBus; seat++) {
+                if (random.nextDouble() >= occupancy) continue;
+                Integer pickup = null;
+                Integer drop = null;
+                // Half the passengers ride part of the route
+                if (random.nextBoolean()) {
+                    pickup = 1 + random.nextInt(stopsPerRoute - 1);
+                    drop = pickup + 1 + random.nextInt(stopsPerRoute - pickup);
+                }
+                rows.add(new Object[]{seat, random.nextBoolean(), "Passenger " + seat, "user" + (seat % 50),
+                        pickup, drop});
+            }
+            seatRows.add(rows);
+        }
+    }
+
+    Route routeOf(int scheduleId) {
+        return routeEntities.get((scheduleId - 1) % routes);
+    }
+
+    List<Object[]> seatRows(Long scheduleId) {
+        return seatRows.get(scheduleId.intValue() - 1);
+    }
+}
@@ -0,0 +1,82 @@
+package com.Transpo.transpo.bench;
+
+import com.Transpo.transpo.dto.ReservationDTO;
+import com.Transpo.transpo.dto.ScheduleResponseDTO;
+import com.Transpo.transpo.mapper.ReservationMapper;
+import com.Transpo.transpo.model.BusStop;
+import com.Transpo.transpo.model.Reservation;
+import com.Transpo.transpo.model.Route;
+import com.Transpo.transpo.model.Schedule;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response mapping of a listing page: ScheduleResponseDTO rows with their stop names, and
+ * reservations through ReservationMapper.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    @Param({"100", "1000"})
+    public int schedules;
+
+    @Param({"50"})
+    public int seatsPerBus;
+
+    @Param({"12"})
+    public int stopsPerRoute;
+
+    private Fleet fleet;
+    private List<Reservation> reservations;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fleet = new Fleet(schedules, seatsPerBus, stopsPerRoute, 0.7, 42);
+        reservations = new ArrayList<>();
+        long id = 1;
+        for (Schedule schedule : fleet.scheduleEntities) {
+            List<BusStop> stops = fleet.stops.get(schedule.getRoute().getId().intValue() - 1);
+            for (Object[] row : fleet.seatRows(schedule.getId())) {
+                Reservation r = new Reservation(schedule, (String) row[2], row[3] + "@mail.com", (Integer) row[0]);
+                r.setId(id++);
+                r.setUsername((String) row[3]);
+                if (row[4] != null) {
+                    r.setPickupStop(stops.get((Integer) row[4] - 1));
+                    r.setDropStop(stops.get((Integer) row[5] - 1));
+                }
+                reservations.add(r);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<ScheduleResponseDTO> scheduleRows() {
+        List<ScheduleResponseDTO> rows = new ArrayList<>(fleet.scheduleEntities.size());
+        for (Schedule s : fleet.scheduleEntities) {
+            Route route = s.getRoute();
+            ScheduleResponseDTO dto = new ScheduleResponseDTO(s.getId(), s.getBus().getId(), s.getBus().getBusNumber(),
+                    route.getId(), route.getOrigin(), route.getDestination(), s.getDepartureTime(), s.getFare(),
+                    s.getAvailableSeats(), s.getBus().getTotalSeats());
+            dto.setStopNames(fleet.stopNames.get(route.getId().intValue() - 1));
+            rows.add(dto);
+        }
+        return rows;
+    }
+
+    @Benchmark
+    public List<ReservationDTO> reservations() {
+        List<ReservationDTO> dtos = new ArrayList<>(reservations.size());
+        for (Reservation r : reservations) {
+            dtos.add(ReservationMapper.toDto(r));
+        }
+        return dtos;
+    }
+}
@@ -0,0 +1,114 @@
+package com.Transpo.transpo.bench;
+
+import com.Transpo.transpo.repository.ReservationRepository;
+import com.Transpo.transpo.service.SeatInventoryService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seat-conflict detection in the in-memory seat inventory: the check and claim at the heart
+ * of bookSeat, for whole and partial trips.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeatConflictBenchmark {
+
+    @Param({"100", "1000"})
+    public int schedules;
+
+    @Param({"50"})
+    public int seatsPerBus;
+
+    @Param({"12"})
+    public int stopsPerRoute;
+
+    @Param({"0.7"})
+    public double occupancy;
+
+    private SeatInventoryService inventory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Fleet fleet = new Fleet(schedules, seatsPerBus, stopsPerRoute, occupancy, 42);
+        ReservationRepository repo = Stubs.repository(ReservationRepository.class, Map.of(
+                "findActiveSeatLegs", args -> {
+                    List<Object[]> rows = new ArrayList<>();
+                    for (Object[] row : fleet.seatRows((Long) args[0])) {
+                        rows.add(new Object[]{row[0], row[4], row[5]});
+                    }
+                    return rows;
+                }));
+        inventory = new SeatInventoryService(repo);
+        for (long id = 1; id <= schedules; id++) {
+            inventory.takenCount(id, seatsPerBus);
+        }
+    }
+
+    /**
+     * Precomputed random (schedule, seat, legs) probes, cycled per thread so that no random
+     * numbers are drawn inside the measured call.
+     */
+    @State(Scope.Thread)
+    public static class Probe {
+        private static final int SIZE = 4096;
+        private final long[] scheduleIds = new long[SIZE];
+        private final int[] seats = new int[SIZE];
+        private final long[] legMasks = new long[SIZE];
+        private int next;
+        long scheduleId;
+        int seat;
+        long legs;
+
+        @Setup(Level.Trial)
+        public void setUp(SeatConflictBenchmark bench) {
+            SplittableRandom random = new SplittableRandom(Thread.currentThread().getId());
+            for (int i = 0; i < SIZE; i++) {
+                scheduleIds[i] = 1 + random.nextInt(bench.schedules);
+                seats[i] = 1 + random.nextInt(bench.seatsPerBus);
+                int pickup = 1 + random.nextInt(bench.stopsPerRoute - 1);
+                legMasks[i] = random.nextBoolean()
+                        ? SeatInventoryService.FULL_TRIP
+                        : SeatInventoryService.legMask(pickup, pickup + 1 + random.nextInt(bench.stopsPerRoute - pickup));
+            }
+        }
+
+        Probe advance() {
+            int i = next++ & (SIZE - 1);
+            scheduleId = scheduleIds[i];
+            seat = seats[i];
+            legs = legMasks[i];
+            return this;
+        }
+    }
+
+    @Benchmark
+    public boolean isFree(Probe probe) {
+        probe.advance();
+        return inventory.isFree(probe.scheduleId, seatsPerBus, probe.seat, probe.legs);
+    }
+
+    @Benchmark
+    public SeatInventoryService.Claim claimThenRelease(Probe probe) {
+        probe.advance();
+        SeatInventoryService.Claim claim = inventory.claimLegs(probe.scheduleId, seatsPerBus, probe.seat, probe.legs);
+        if (claim.succeeded()) {
+            inventory.release(probe.scheduleId, probe.seat, probe.legs);
+        }
+        return claim;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public SeatInventoryService.Claim claimThenReleaseContended(Probe probe) {
+        return claimThenRelease(probe);
+    }
+}
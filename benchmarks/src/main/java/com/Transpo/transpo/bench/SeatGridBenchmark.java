@@ -0,0 +1,78 @@
+package com.Transpo.transpo.bench;
+
+import com.Transpo.transpo.dto.SeatAvailabilityDTO;
+import com.Transpo.transpo.repository.ReservationRepository;
+import com.Transpo.transpo.service.SeatGridCache;
+import com.Transpo.transpo.service.SeatInventoryService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seat grids behind getSeatAvailability: building a grid from reservation rows, serving a
+ * cached one, and the per-user view over it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeatGridBenchmark {
+
+    @Param({"100", "1000"})
+    public int schedules;
+
+    @Param({"50"})
+    public int seatsPerBus;
+
+    @Param({"12"})
+    public int stopsPerRoute;
+
+    @Param({"0.7"})
+    public double occupancy;
+
+    private SeatGridCache cache;
+    private long partialLegs;
+    private long next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Fleet fleet = new Fleet(schedules, seatsPerBus, stopsPerRoute, occupancy, 42);
+        ReservationRepository repo = Stubs.repository(ReservationRepository.class, Map.of(
+                "findSeatGridRows", args -> fleet.seatRows((Long) args[0])));
+        cache = new SeatGridCache(repo, schedules * 2);
+        partialLegs = SeatInventoryService.legMask(2, stopsPerRoute / 2 + 1);
+    }
+
+    private Long nextSchedule() {
+        return 1 + (next++ % schedules);
+    }
+
+    @Benchmark
+    public SeatGridCache.Grid build() {
+        Long scheduleId = nextSchedule();
+        cache.invalidate(scheduleId);
+        return cache.grid(scheduleId, seatsPerBus, SeatInventoryService.FULL_TRIP, Set.of());
+    }
+
+    @Benchmark
+    public SeatGridCache.Grid buildPartialTrip() {
+        Long scheduleId = nextSchedule();
+        cache.invalidate(scheduleId);
+        return cache.grid(scheduleId, seatsPerBus, partialLegs, Set.of());
+    }
+
+    @Benchmark
+    public SeatGridCache.Grid cached() {
+        return cache.grid(nextSchedule(), seatsPerBus, SeatInventoryService.FULL_TRIP, Set.of());
+    }
+
+    @Benchmark
+    public List<SeatAvailabilityDTO.Seat> passengerView() {
+        return cache.grid(nextSchedule(), seatsPerBus, SeatInventoryService.FULL_TRIP, Set.of()).viewFor("user7");
+    }
+}
@@ -0,0 +1,76 @@
+package com.Transpo.transpo.bench;
+
+import com.Transpo.transpo.service.StopSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pickup/drop search over the trigram stop index: full stop names, partial names typed by a
+ * user, and pairs that match no route.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StopSearchBenchmark {
+
+    private static final int PROBES = 1024;
+
+    @Param({"1000", "10000"})
+    public int schedules;
+
+    @Param({"12"})
+    public int stopsPerRoute;
+
+    private StopSearchIndex index;
+    private final String[] pickups = new String[PROBES];
+    private final String[] drops = new String[PROBES];
+    private final String[] partialPickups = new String[PROBES];
+    private final String[] partialDrops = new String[PROBES];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Fleet fleet = new Fleet(schedules, 50, stopsPerRoute, 0, 42);
+        index = new StopSearchIndex(null);
+        for (int r = 0; r < fleet.routes; r++) {
+            index.put((long) r + 1, fleet.stopNames.get(r));
+        }
+
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < PROBES; i++) {
+            List<String> names = fleet.stopNames.get(random.nextInt(fleet.routes));
+            int from = random.nextInt(names.size() - 1);
+            int to = from + 1 + random.nextInt(names.size() - from - 1);
+            pickups[i] = names.get(from);
+            drops[i] = names.get(to);
+            // "town 123" of "Town 123 Junction"
+            partialPickups[i] = pickups[i].substring(0, pickups[i].indexOf(" Junction")).toLowerCase();
+            partialDrops[i] = drops[i].substring(0, drops[i].indexOf(" Junction")).toLowerCase();
+        }
+    }
+
+    @Benchmark
+    public List<Long> fullNames() {
+        int i = next++ & (PROBES - 1);
+        return index.findRoutes(pickups[i], drops[i]);
+    }
+
+    @Benchmark
+    public List<Long> partialNames() {
+        int i = next++ & (PROBES - 1);
+        return index.findRoutes(partialPickups[i], partialDrops[i]);
+    }
+
+    @Benchmark
+    public List<Long> reversedNoMatch() {
+        int i = next++ & (PROBES - 1);
+        // Drop before pickup on the sampled route; other routes may still match
+        return index.findRoutes(drops[i], pickups[i]);
+    }
+}
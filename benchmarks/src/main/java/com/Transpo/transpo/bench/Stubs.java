@@ -0,0 +1,32 @@
+package com.Transpo.transpo.bench;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * In-memory stand-ins for Spring Data repositories, so benchmarks measure the service code
+ * and not a database.
+ */
+final class Stubs {
+
+    private Stubs() {}
+
+    /**
+     * Repository whose methods answer from the given functions (keyed by method name, called
+     * with the method arguments). Any other method throws.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T repository(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer != null) return answer.apply(args);
+            switch (method.getName()) {
+                case "toString": return type.getSimpleName() + " stub";
+                case "hashCode": return System.identityHashCode(proxy);
+                case "equals": return proxy == args[0];
+                default: throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+            }
+        });
+    }
+}
@@ -6,6 +6,7 @@ const COLORS = {
   AVAILABLE: '#22c55e', // green
   RESERVED: '#ef4444',  // red
   PAID: '#3b82f6',      // blue
+  HELD: '#f97316',      // orange
   SELECTED: '#f59e0b',  // yellow
   DISABLED: '#9ca3af',  // gray
 };
@@ -15,6 +16,7 @@ function Legend() {
     { label: 'Available', color: COLORS.AVAILABLE },
     { label: 'Reserved', color: COLORS.RESERVED },
     { label: 'Paid', color: COLORS.PAID },
+    { label: 'Held', color: COLORS.HELD },
     { label: 'Selected', color: COLORS.SELECTED },
     { label: 'Disabled', color: COLORS.DISABLED },
   ];
@@ -101,6 +103,7 @@ export default function SeatAvailability({ busNumber, scheduleId, role, username
     const state = s.state || s.status;
     if (state === 'RESERVED') bg = COLORS.RESERVED;
     if (state === 'PAID') bg = COLORS.PAID;
+    if (state === 'HELD') bg = COLORS.HELD;
     if (state === 'DISABLED') bg = COLORS.DISABLED;
     if (selectedSeat === s.seatNumber) bg = COLORS.SELECTED;
     return { ...base, background: bg, color: '#fff' };
@@ -0,0 +1,68 @@
+package com.Transpo.transpo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Publishes Hikari pool usage and Hibernate statistics through {@link MetricsRegistry}.
+ * The hibernate_* series are only published when transpo.metrics.hibernate-statistics is on.
+ */
+@Component
+public class DataSourceMetrics {
+
+    public DataSourceMetrics(MetricsRegistry metrics, DataSource dataSource, EntityManagerFactory entityManagerFactory) {
+        bindPool(metrics, dataSource);
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (stats.isStatisticsEnabled()) {
+            bindHibernate(metrics, stats);
+        }
+    }
+
+    private static void bindPool(MetricsRegistry metrics, DataSource dataSource) {
+        HikariDataSource hikari;
+        try {
+            if (!dataSource.isWrapperFor(HikariDataSource.class)) return;
+            hikari = dataSource.unwrap(HikariDataSource.class);
+        } catch (SQLException e) {
+            return;
+        }
+        String pool = hikari.getPoolName() != null ? hikari.getPoolName() : "default";
+        // The pool MXBean only exists once the first connection was requested
+        metrics.gauge("hikari_connections_active", () -> poolValue(hikari, HikariPoolMXBean::getActiveConnections), "pool", pool);
+        metrics.gauge("hikari_connections_idle", () -> poolValue(hikari, HikariPoolMXBean::getIdleConnections), "pool", pool);
+        metrics.gauge("hikari_connections", () -> poolValue(hikari, HikariPoolMXBean::getTotalConnections), "pool", pool);
+        metrics.gauge("hikari_connections_pending", () -> poolValue(hikari, HikariPoolMXBean::getThreadsAwaitingConnection), "pool", pool);
+        metrics.gauge("hikari_connections_max", hikari::getMaximumPoolSize, "pool", pool);
+    }
+
+    private static double poolValue(HikariDataSource hikari, ToIntFunction<HikariPoolMXBean> value) {
+        HikariPoolMXBean bean = hikari.getHikariPoolMXBean();
+        return bean != null ? value.applyAsInt(bean) : 0;
+    }
+
+    private static void bindHibernate(MetricsRegistry metrics, Statistics stats) {
+        if (!stats.isStatisticsEnabled()) return;
+        counter(metrics, "hibernate_statements_prepared_total", stats, Statistics::getPrepareStatementCount);
+        counter(metrics, "hibernate_queries_executed_total", stats, Statistics::getQueryExecutionCount);
+        counter(metrics, "hibernate_entities_loaded_total", stats, Statistics::getEntityLoadCount);
+        counter(metrics, "hibernate_entities_fetched_total", stats, Statistics::getEntityFetchCount);
+        counter(metrics, "hibernate_collections_fetched_total", stats, Statistics::getCollectionFetchCount);
+        counter(metrics, "hibernate_flushes_total", stats, Statistics::getFlushCount);
+        counter(metrics, "hibernate_transactions_total", stats, Statistics::getTransactionCount);
+        counter(metrics, "hibernate_optimistic_failures_total", stats, Statistics::getOptimisticFailureCount);
+        metrics.gauge("hibernate_query_max_seconds", () -> stats.getQueryExecutionMaxTime() / 1000.0);
+    }
+
+    private static void counter(MetricsRegistry metrics, String name, Statistics stats, ToLongFunction<Statistics> value) {
+        metrics.counterFunction(name, () -> value.applyAsLong(stats));
+    }
+}
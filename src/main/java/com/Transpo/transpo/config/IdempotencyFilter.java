@@ -0,0 +1,89 @@
+package com.Transpo.transpo.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+
+/**
+ * Replays the first response of a reservation write that carries an Idempotency-Key header,
+ * so client retries never reach ReservationService twice.
+ * Keys are scoped to the caller, HTTP method and path. Server errors (5xx) are not stored,
+ * so they can be retried.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    private static final int MAX_STORED_BODY = 64 * 1024;
+
+    private final IdempotencyStore store;
+
+    public IdempotencyFilter(IdempotencyStore store) {
+        this.store = store;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        return request.getHeader(HEADER) == null
+                || !request.getRequestURI().startsWith("/api/reservations")
+                || !("POST".equals(method) || "DELETE".equals(method));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String idempotencyKey = request.getHeader(HEADER).trim();
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > 128) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid Idempotency-Key");
+            return;
+        }
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String user = auth != null ? auth.getName() : "anonymous";
+        String key = user + '|' + request.getMethod() + '|' + request.getRequestURI() + '|' + idempotencyKey;
+
+        IdempotencyStore.BeginResult begin = store.begin(key);
+        switch (begin.outcome()) {
+            case REPLAY -> {
+                IdempotencyStore.StoredResponse stored = begin.response();
+                response.setStatus(stored.getStatus());
+                if (stored.getContentType() != null) response.setContentType(stored.getContentType());
+                response.setHeader("Idempotent-Replayed", "true");
+                response.getOutputStream().write(stored.getBody());
+                return;
+            }
+            case IN_PROGRESS -> {
+                response.setStatus(HttpServletResponse.SC_CONFLICT);
+                response.setContentType("application/json");
+                response.getWriter().write("{\"error\":\"Conflict\",\"message\":\"A request with this Idempotency-Key is still in progress\"}");
+                return;
+            }
+            default -> { }
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            filterChain.doFilter(request, wrapper);
+            byte[] body = wrapper.getContentAsByteArray();
+            if (wrapper.getStatus() < 500 && body.length <= MAX_STORED_BODY) {
+                store.complete(key, new IdempotencyStore.StoredResponse(wrapper.getStatus(), wrapper.getContentType(), body));
+                stored = true;
+            }
+        } finally {
+            if (!stored) {
+                store.abandon(key);
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.Transpo.transpo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU store of first responses per Idempotency-Key.
+ * Entries expire after a TTL and the least recently used completed entry is evicted when full.
+ * Keys whose first request is still running are kept apart and never evicted: evicting one
+ * would let a retry run the same write a second time.
+ */
+@Component
+public class IdempotencyStore {
+
+    public enum Outcome { STARTED, REPLAY, IN_PROGRESS }
+
+    /**
+     * Outcome of {@link #begin}; the stored response is set for REPLAY.
+     */
+    public record BeginResult(Outcome outcome, StoredResponse response) {}
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LinkedHashMap<String, Entry> entries;
+    // Keys reserved by a running request: bounded by the number of concurrent requests
+    private final Map<String, Entry> inFlight = new HashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong inProgress = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public IdempotencyStore(@Value("${transpo.idempotency.max-entries:10000}") int maxEntries,
+                            @Value("${transpo.idempotency.ttl-minutes:60}") int ttlMinutes) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMinutes * 60_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > IdempotencyStore.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Look up a key. If absent (or expired) the key is reserved as in-flight and STARTED is returned.
+     * A REPLAY carries the stored response, read in the same step: the entry may be evicted
+     * right after.
+     */
+    public synchronized BeginResult begin(String key) {
+        long now = System.currentTimeMillis();
+        Entry e = entries.get(key);
+        if (e != null && e.createdAt + ttlMillis < now) {
+            entries.remove(key);
+            e = null;
+        }
+        if (e != null) {
+            hits.incrementAndGet();
+            return new BeginResult(Outcome.REPLAY, e.response);
+        }
+        Entry running = inFlight.get(key);
+        if (running != null && running.createdAt + ttlMillis >= now) {
+            inProgress.incrementAndGet();
+            return new BeginResult(Outcome.IN_PROGRESS, null);
+        }
+        inFlight.put(key, new Entry(now));
+        misses.incrementAndGet();
+        return new BeginResult(Outcome.STARTED, null);
+    }
+
+    public synchronized StoredResponse get(String key) {
+        Entry e = entries.get(key);
+        return e != null ? e.response : null;
+    }
+
+    /**
+     * Store the response of a started key; from now on it is replayed and may be evicted.
+     */
+    public synchronized void complete(String key, StoredResponse response) {
+        Entry e = inFlight.remove(key);
+        if (e != null) {
+            e.response = response;
+            entries.put(key, e);
+        }
+    }
+
+    /**
+     * Forget an in-flight key so that a retry executes again (e.g. after a server error).
+     */
+    public synchronized void abandon(String key) {
+        inFlight.remove(key);
+    }
+
+    public synchronized Map<String, Object> stats() {
+        long h = hits.get();
+        long m = misses.get();
+        return Map.of(
+                "hits", h,
+                "misses", m,
+                "inProgress", inProgress.get(),
+                "evictions", evictions.get(),
+                "size", entries.size(),
+                "inFlight", inFlight.size(),
+                "maxEntries", maxEntries,
+                "hitRatio", (h + m) == 0 ? 0.0 : (double) h / (h + m)
+        );
+    }
+
+    private static final class Entry {
+        private final long createdAt;
+        private StoredResponse response;
+
+        Entry(long createdAt) { this.createdAt = createdAt; }
+    }
+
+    public static final class StoredResponse {
+        private final int status;
+        private final String contentType;
+        private final byte[] body;
+
+        public StoredResponse(int status, String contentType, byte[] body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        public int getStatus() { return status; }
+        public String getContentType() { return contentType; }
+        public byte[] getBody() { return body; }
+    }
+}
@@ -0,0 +1,238 @@
+package com.Transpo.transpo.config;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Process-wide counters, timers, histograms and gauges, rendered in the Prometheus text format at /metrics.
+ * A series is a metric name plus tags given as key/value pairs. Tags must stay low-cardinality
+ * (operation, outcome, cause; never a username or an id), since every combination is kept
+ * for the life of the process. Look series up once and keep them in fields: recording is
+ * then a few adder increments.
+ */
+@Component
+public class MetricsRegistry {
+
+    // Upper bounds of the timer buckets, in seconds
+    static final double[] BUCKETS = {0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    public Counter counter(String name, String... tags) {
+        return (Counter) family(name, "counter").series.computeIfAbsent(labels(tags), l -> new Counter());
+    }
+
+    public Timer timer(String name, String... tags) {
+        return (Timer) family(name, "histogram").series.computeIfAbsent(labels(tags), l -> new Timer());
+    }
+
+    /**
+     * Distribution of plain values (counts, sizes) over the given increasing bucket bounds.
+     */
+    public Histogram histogram(String name, double[] bounds, String... tags) {
+        return (Histogram) family(name, "histogram").series.computeIfAbsent(labels(tags), l -> new Histogram(bounds));
+    }
+
+    /**
+     * Timer for transactional work: each {@link TransactionTimer#start()} records the time until
+     * the surrounding transaction completes, commit included, tagged outcome=committed or
+     * outcome=rolled_back.
+     */
+    public TransactionTimer transactionTimer(String name, String... tags) {
+        return new TransactionTimer(timer(name, append(tags, "outcome", "committed")),
+                timer(name, append(tags, "outcome", "rolled_back")));
+    }
+
+    /**
+     * Value read at scrape time. Registering the same series again replaces its supplier.
+     */
+    public void gauge(String name, DoubleSupplier value, String... tags) {
+        family(name, "gauge").series.put(labels(tags), new Sampled(value));
+    }
+
+    /**
+     * Monotonic total kept elsewhere (e.g. Hibernate statistics), read at scrape time.
+     */
+    public void counterFunction(String name, DoubleSupplier value, String... tags) {
+        family(name, "counter").series.put(labels(tags), new Sampled(value));
+    }
+
+    private Family family(String name, String type) {
+        Family family = families.computeIfAbsent(name, n -> new Family(type));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("Metric " + name + " is already a " + family.type);
+        }
+        return family;
+    }
+
+    /**
+     * All series in the Prometheus text exposition format (version 0.0.4).
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        for (Map.Entry<String, Family> f : families.entrySet()) {
+            String name = f.getKey();
+            Family family = f.getValue();
+            out.append("# TYPE ").append(name).append(' ').append(family.type).append('\n');
+            for (Map.Entry<String, Object> s : family.series.entrySet()) {
+                String labels = s.getKey();
+                Object series = s.getValue();
+                if (series instanceof Counter c) {
+                    sample(out, name, labels, c.count.sum());
+                } else if (series instanceof Sampled g) {
+                    double value;
+                    try {
+                        value = g.value.getAsDouble();
+                    } catch (RuntimeException e) {
+                        value = Double.NaN;
+                    }
+                    sample(out, name, labels, value);
+                } else if (series instanceof Histogram h) {
+                    long cumulative = 0;
+                    for (int i = 0; i <= h.bounds.length; i++) {
+                        cumulative += h.buckets.get(i);
+                        String le = i < h.bounds.length ? Double.toString(h.bounds[i]) : "+Inf";
+                        sample(out, name + "_bucket", join(labels, "le=\"" + le + "\""), cumulative);
+                    }
+                    sample(out, name + "_sum", labels, h.sum.sum());
+                    sample(out, name + "_count", labels, cumulative);
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (!labels.isEmpty()) out.append('{').append(labels).append('}');
+        out.append(' ');
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    private static String join(String labels, String label) {
+        return labels.isEmpty() ? label : labels + "," + label;
+    }
+
+    static String labels(String... tags) {
+        if (tags.length % 2 != 0) {
+            throw new IllegalArgumentException("Tags must be key/value pairs");
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < tags.length; i += 2) {
+            if (i > 0) sb.append(',');
+            sb.append(tags[i]).append("=\"");
+            String value = tags[i + 1] != null ? tags[i + 1] : "";
+            for (int j = 0; j < value.length(); j++) {
+                char ch = value.charAt(j);
+                if (ch == '\\' || ch == '"') sb.append('\\').append(ch);
+                else if (ch == '\n') sb.append("\\n");
+                else sb.append(ch);
+            }
+            sb.append('"');
+        }
+        return sb.toString();
+    }
+
+    private static String[] append(String[] tags, String key, String value) {
+        String[] all = Arrays.copyOf(tags, tags.length + 2);
+        all[tags.length] = key;
+        all[tags.length + 1] = value;
+        return all;
+    }
+
+    private static final class Family {
+        final String type;
+        final Map<String, Object> series = new ConcurrentSkipListMap<>();
+
+        Family(String type) {
+            this.type = type;
+        }
+    }
+
+    private record Sampled(DoubleSupplier value) {}
+
+    public static final class Counter {
+        private final LongAdder count = new LongAdder();
+
+        public void increment() {
+            count.increment();
+        }
+
+        public long count() {
+            return count.sum();
+        }
+    }
+
+    public static class Histogram {
+        private final double[] bounds;
+        // One slot per bucket plus one for everything above the last bound
+        private final AtomicLongArray buckets;
+        private final DoubleAdder sum = new DoubleAdder();
+
+        Histogram(double[] bounds) {
+            this.bounds = bounds;
+            this.buckets = new AtomicLongArray(bounds.length + 1);
+        }
+
+        public void observe(double value) {
+            int i = 0;
+            while (i < bounds.length && value > bounds[i]) i++;
+            buckets.incrementAndGet(i);
+            sum.add(value);
+        }
+
+        public long count() {
+            long count = 0;
+            for (int i = 0; i < buckets.length(); i++) count += buckets.get(i);
+            return count;
+        }
+    }
+
+    public static final class Timer extends Histogram {
+        Timer() {
+            super(BUCKETS);
+        }
+
+        public void record(long nanos) {
+            observe(nanos / 1e9);
+        }
+    }
+
+    public static final class TransactionTimer {
+        private final Timer committed;
+        private final Timer rolledBack;
+
+        TransactionTimer(Timer committed, Timer rolledBack) {
+            this.committed = committed;
+            this.rolledBack = rolledBack;
+        }
+
+        /**
+         * Start timing the current transaction; does nothing outside of one.
+         */
+        public void start() {
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+            long start = System.nanoTime();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    (status == STATUS_COMMITTED ? committed : rolledBack).record(System.nanoTime() - start);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.Transpo.transpo.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts the SQL statements and loaded entities of every request (see {@link SqlStatementCounter})
+ * and records them per endpoint: transpo_http_sql_statements, transpo_http_sql_entities_loaded
+ * and transpo_http_sql_repeated_total for requests that ran one statement at least
+ * repeat-threshold times, the usual sign of an N+1. Endpoints are the mapped path patterns, so
+ * ids in paths do not add series. With response-header on (dev only) the counts so far are also
+ * sent as X-SQL-Statements, X-SQL-Entities and X-SQL-Max-Repeat when the body starts.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SqlBudgetFilter extends OncePerRequestFilter {
+
+    static final double[] STATEMENT_BUCKETS = {1, 2, 5, 10, 20, 50, 100, 200, 500};
+    static final double[] ENTITY_BUCKETS = {1, 10, 100, 1000, 10000};
+
+    private final MetricsRegistry metrics;
+    private final boolean responseHeader;
+    private final int repeatThreshold;
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    public SqlBudgetFilter(MetricsRegistry metrics,
+                           @Value("${transpo.sql-budget.response-header:false}") boolean responseHeader,
+                           @Value("${transpo.sql-budget.repeat-threshold:5}") int repeatThreshold) {
+        this.metrics = metrics;
+        this.responseHeader = responseHeader;
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        SqlStatementCounter.Tally tally = SqlStatementCounter.open();
+        try {
+            filterChain.doFilter(request, responseHeader ? new CountHeaders(response, tally) : response);
+        } finally {
+            SqlStatementCounter.close(tally);
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            Endpoint endpoint = endpoints.computeIfAbsent(request.getMethod() + ' ' + pattern,
+                    key -> new Endpoint(request.getMethod(), pattern != null ? pattern.toString() : "unmapped"));
+            endpoint.statements.observe(tally.statements());
+            endpoint.entities.observe(tally.entities());
+            if (tally.maxRepeats() >= repeatThreshold) endpoint.repeated.increment();
+        }
+    }
+
+    private final class Endpoint {
+        final MetricsRegistry.Histogram statements;
+        final MetricsRegistry.Histogram entities;
+        final MetricsRegistry.Counter repeated;
+
+        Endpoint(String method, String path) {
+            statements = metrics.histogram("transpo_http_sql_statements", STATEMENT_BUCKETS, "method", method, "endpoint", path);
+            entities = metrics.histogram("transpo_http_sql_entities_loaded", ENTITY_BUCKETS, "method", method, "endpoint", path);
+            repeated = metrics.counter("transpo_http_sql_repeated_total", "method", method, "endpoint", path);
+        }
+    }
+
+    /**
+     * Adds the counts as headers just before the response body starts, while headers can still be set.
+     */
+    private static final class CountHeaders extends HttpServletResponseWrapper {
+        private final SqlStatementCounter.Tally tally;
+        private boolean written;
+
+        CountHeaders(HttpServletResponse response, SqlStatementCounter.Tally tally) {
+            super(response);
+            this.tally = tally;
+        }
+
+        private void writeHeaders() {
+            if (written || isCommitted()) return;
+            written = true;
+            setHeader("X-SQL-Statements", Integer.toString(tally.statements()));
+            setHeader("X-SQL-Entities", Integer.toString(tally.entities()));
+            setHeader("X-SQL-Max-Repeat", Integer.toString(tally.maxRepeats()));
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeaders();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeaders();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeaders();
+            super.sendError(sc);
+        }
+    }
+}
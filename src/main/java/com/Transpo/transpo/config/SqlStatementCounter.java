@@ -0,0 +1,114 @@
+package com.Transpo.transpo.config;
+
+import org.hibernate.Interceptor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.type.Type;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts the SQL statements Hibernate prepares and the entities it loads on the current thread.
+ * Counting happens inside a {@link Tally} scope: {@link SqlBudgetFilter} opens one per HTTP
+ * request and tests open one per method with @QueryBudget. Scopes nest; a closed scope adds its
+ * counts to the enclosing one. Hibernate creates this class from the statement_inspector and
+ * interceptor settings, so the scopes are static. Statements sent through JdbcTemplate are not
+ * seen.
+ */
+public class SqlStatementCounter implements StatementInspector, Interceptor {
+
+    private static final ThreadLocal<Tally> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Start counting on this thread until {@link #close(Tally)}.
+     */
+    public static Tally open() {
+        Tally tally = new Tally(CURRENT.get());
+        CURRENT.set(tally);
+        return tally;
+    }
+
+    public static void close(Tally tally) {
+        CURRENT.set(tally.parent);
+        if (tally.parent != null) tally.parent.add(tally);
+    }
+
+    /**
+     * The innermost open scope of this thread, or null.
+     */
+    public static Tally current() {
+        return CURRENT.get();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Tally tally = CURRENT.get();
+        if (tally != null) tally.statement(sql);
+        return sql;
+    }
+
+    @Override
+    public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+        Tally tally = CURRENT.get();
+        if (tally != null) tally.entities++;
+        return false;
+    }
+
+    /**
+     * Counts of one scope. Only touched by the thread that opened it.
+     */
+    public static final class Tally {
+        private final Tally parent;
+        private int statements;
+        private int entities;
+        // Executions per distinct SQL string: the same query many times in one request is an N+1
+        private final Map<String, Integer> executions = new HashMap<>();
+
+        private Tally(Tally parent) {
+            this.parent = parent;
+        }
+
+        private void statement(String sql) {
+            statements++;
+            executions.merge(sql, 1, Integer::sum);
+        }
+
+        private void add(Tally other) {
+            statements += other.statements;
+            entities += other.entities;
+            other.executions.forEach((sql, n) -> executions.merge(sql, n, Integer::sum));
+        }
+
+        public int statements() {
+            return statements;
+        }
+
+        public int entities() {
+            return entities;
+        }
+
+        /**
+         * Most executions of a single SQL string in this scope.
+         */
+        public int maxRepeats() {
+            int max = 0;
+            for (int n : executions.values()) max = Math.max(max, n);
+            return max;
+        }
+
+        /**
+         * The SQL string executed most often, or null when nothing ran.
+         */
+        public String mostRepeated() {
+            String sql = null;
+            int max = 0;
+            for (Map.Entry<String, Integer> e : executions.entrySet()) {
+                if (e.getValue() > max) {
+                    max = e.getValue();
+                    sql = e.getKey();
+                }
+            }
+            return sql;
+        }
+    }
+}
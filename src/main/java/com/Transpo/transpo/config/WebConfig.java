@@ -11,6 +11,7 @@ public class WebConfig implements WebMvcConfigurer {
         registry.addMapping("/**")
             .allowedOrigins("http://localhost:3000", "http://localhost:5173")
             .allowedMethods("*")
+            .exposedHeaders("ETag", "X-Next-Cursor")
             .allowCredentials(true);
     }
 }
@@ -1,5 +1,6 @@
 package com.Transpo.transpo.controller;
 
+import com.Transpo.transpo.config.IdempotencyStore;
 import com.Transpo.transpo.dto.DriverAssignmentDTO;
 import com.Transpo.transpo.exception.BadRequestException;
 import com.Transpo.transpo.exception.NotFoundException;
@@ -11,6 +12,11 @@ import com.Transpo.transpo.repository.BusRepository;
 import com.Transpo.transpo.repository.DriverAssignmentRepository;
 import com.Transpo.transpo.repository.UserRepository;
 import com.Transpo.transpo.repository.ConductorAssignmentRepository;
+import com.Transpo.transpo.service.BookingProfiler;
+import com.Transpo.transpo.service.DynamicPricingService;
+import com.Transpo.transpo.service.RebookingService;
+import com.Transpo.transpo.service.ReservationArchiver;
+import com.Transpo.transpo.service.SeatStreamService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -29,15 +35,99 @@ public class AdminController {
     private final BusRepository busRepository;
     private final DriverAssignmentRepository driverAssignmentRepository;
     private final ConductorAssignmentRepository conductorAssignmentRepository;
+    private final IdempotencyStore idempotencyStore;
+    private final SeatStreamService seatStreamService;
+    private final DynamicPricingService pricing;
+    private final ReservationArchiver archiver;
+    private final RebookingService rebookingService;
+    private final BookingProfiler bookingProfiler;
 
     public AdminController(UserRepository userRepository,
                            BusRepository busRepository,
                            DriverAssignmentRepository driverAssignmentRepository,
-                           ConductorAssignmentRepository conductorAssignmentRepository) {
+                           ConductorAssignmentRepository conductorAssignmentRepository,
+                           IdempotencyStore idempotencyStore,
+                           SeatStreamService seatStreamService,
+                           DynamicPricingService pricing,
+                           ReservationArchiver archiver,
+                           RebookingService rebookingService,
+                           BookingProfiler bookingProfiler) {
         this.userRepository = userRepository;
         this.busRepository = busRepository;
         this.driverAssignmentRepository = driverAssignmentRepository;
         this.conductorAssignmentRepository = conductorAssignmentRepository;
+        this.idempotencyStore = idempotencyStore;
+        this.seatStreamService = seatStreamService;
+        this.pricing = pricing;
+        this.archiver = archiver;
+        this.rebookingService = rebookingService;
+        this.bookingProfiler = bookingProfiler;
+    }
+
+    // Hit/miss counters of the Idempotency-Key store (retries absorbed without re-running the service)
+    @GetMapping("/idempotency-stats")
+    public ResponseEntity<Map<String, Object>> idempotencyStats() {
+        return ResponseEntity.ok(idempotencyStore.stats());
+    }
+
+    // Open seat streams and the number of slow clients dropped
+    @GetMapping("/seat-stream-stats")
+    public ResponseEntity<Map<String, Object>> seatStreamStats() {
+        return ResponseEntity.ok(seatStreamService.stats());
+    }
+
+    // Background archiving of cancelled reservations: pending signals, adaptive batch size, failures
+    @GetMapping("/archival-stats")
+    public ResponseEntity<Map<String, Object>> archivalStats() {
+        return ResponseEntity.ok(archiver.stats());
+    }
+
+    // Schedules spending the most time booking seats since the last reset, with outcomes and per-phase totals
+    @GetMapping("/booking-hotspots")
+    public ResponseEntity<Map<String, Object>> bookingHotspots(@RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(bookingProfiler.hotspots(limit));
+    }
+
+    @DeleteMapping("/booking-hotspots")
+    public ResponseEntity<Void> resetBookingHotspots() {
+        bookingProfiler.reset();
+        return ResponseEntity.noContent().build();
+    }
+
+    // Active pricing curves and quote latency
+    @GetMapping("/pricing")
+    public ResponseEntity<Map<String, Object>> pricingStats() {
+        return ResponseEntity.ok(pricing.stats());
+    }
+
+    // Replace the load and/or departure curve ("x:multiplier,..."); applies to the next quote
+    @PutMapping("/pricing")
+    public ResponseEntity<Map<String, Object>> updatePricing(@RequestBody Map<String, String> payload) {
+        String loadCurve = payload.get("loadCurve");
+        String departureCurve = payload.get("departureCurve");
+        if (loadCurve == null && departureCurve == null) {
+            throw new BadRequestException("loadCurve or departureCurve is required");
+        }
+        return ResponseEntity.ok(pricing.reload(loadCurve, departureCurve));
+    }
+
+    // --- Bulk rebooking ---
+    // Move every reservation of scheduleId, or of the schedules of busId departing in [from, to),
+    // to targetScheduleId. Runs in the background; poll the returned job for progress.
+    @PostMapping("/rebookings")
+    public ResponseEntity<RebookingService.RebookingJob> startRebooking(@RequestBody Map<String, Object> payload) {
+        RebookingService.RebookingJob job = rebookingService.start(
+                toLong(payload.get("scheduleId")),
+                toLong(payload.get("busId")),
+                toDateTime(payload.get("from")),
+                toDateTime(payload.get("to")),
+                toLong(payload.get("targetScheduleId")));
+        return ResponseEntity.accepted().body(job);
+    }
+
+    @GetMapping("/rebookings/{jobId}")
+    public ResponseEntity<RebookingService.RebookingJob> rebookingStatus(@PathVariable String jobId) {
+        return ResponseEntity.ok(rebookingService.get(jobId));
     }
 
     // --- Driver assignment endpoints ---
@@ -250,23 +340,34 @@ public class AdminController {
     @GetMapping("/buses")
     public ResponseEntity<List<Map<String, Object>>> listBusesWithAssignments() {
         List<Bus> buses = busRepository.findAll();
+        // All assignments with their users up front instead of two lookups per bus
+        Map<Long, DriverAssignment> drivers = new java.util.HashMap<>();
+        for (DriverAssignment da : driverAssignmentRepository.findAllWithDriverAndBus()) {
+            drivers.put(da.getBus().getId(), da);
+        }
+        Map<Long, ConductorAssignment> conductors = new java.util.HashMap<>();
+        for (ConductorAssignment ca : conductorAssignmentRepository.findAllWithConductorAndBus()) {
+            conductors.put(ca.getBus().getId(), ca);
+        }
         List<Map<String, Object>> result = buses.stream().map(b -> {
             Map<String, Object> row = new java.util.HashMap<>();
             row.put("id", b.getId());
             row.put("busNumber", b.getBusNumber());
             row.put("busName", b.getBusName());
             // Driver
-            driverAssignmentRepository.findByBusId(b.getId()).ifPresent(da -> {
+            DriverAssignment da = drivers.get(b.getId());
+            if (da != null) {
                 User drv = da.getDriver();
                 row.put("driverId", drv.getId());
                 row.put("driverUsername", drv.getUsername());
-            });
+            }
             // Conductor
-            conductorAssignmentRepository.findByBusId(b.getId()).ifPresent(ca -> {
+            ConductorAssignment ca = conductors.get(b.getId());
+            if (ca != null) {
                 User con = ca.getConductor();
                 row.put("conductorId", con.getId());
                 row.put("conductorUsername", con.getUsername());
-            });
+            }
             return row;
         }).collect(Collectors.toList());
         return ResponseEntity.ok(result);
@@ -279,4 +380,13 @@ public class AdminController {
             return null;
         }
     }
+
+    private LocalDateTime toDateTime(Object o) {
+        if (o == null) return null;
+        try {
+            return LocalDateTime.parse(String.valueOf(o));
+        } catch (Exception e) {
+            throw new BadRequestException("Invalid date-time: " + o);
+        }
+    }
 }
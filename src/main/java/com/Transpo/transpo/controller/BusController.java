@@ -4,6 +4,7 @@ import com.Transpo.transpo.dto.BusDTO;
 import com.Transpo.transpo.mapper.BusMapper;
 import com.Transpo.transpo.model.Bus;
 import com.Transpo.transpo.service.BusService;
+import com.Transpo.transpo.service.LocationStore;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -15,7 +16,26 @@ import java.util.stream.Collectors;
 public class BusController {
 
     private final BusService busService;
-    public BusController(BusService busService) { this.busService = busService; }
+    private final LocationStore locationStore;
+
+    public BusController(BusService busService, LocationStore locationStore) {
+        this.busService = busService;
+        this.locationStore = locationStore;
+    }
+
+    // Latest live position reported by the bus's driver
+    @GetMapping("/{id}/location")
+    public ResponseEntity<LocationStore.Fix> location(@PathVariable Long id) {
+        LocationStore.Fix fix = locationStore.latest(id);
+        return fix != null ? ResponseEntity.ok(fix) : ResponseEntity.notFound().build();
+    }
+
+    // Recent live positions of the bus, oldest first
+    @GetMapping("/{id}/location/trail")
+    public ResponseEntity<List<LocationStore.Fix>> trail(@PathVariable Long id,
+                                                         @RequestParam(defaultValue = "60") int limit) {
+        return ResponseEntity.ok(locationStore.trail(id, limit));
+    }
 
     @PostMapping
     public ResponseEntity<BusDTO> create(@RequestBody BusDTO dto) {
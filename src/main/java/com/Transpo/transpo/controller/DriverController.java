@@ -1,15 +1,17 @@
 package com.Transpo.transpo.controller;
 
+import com.Transpo.transpo.dto.PassengerStatsDTO;
 import com.Transpo.transpo.model.Bus;
 import com.Transpo.transpo.model.BusStop;
 import com.Transpo.transpo.model.Route;
 import com.Transpo.transpo.service.DriverService;
+import com.Transpo.transpo.service.EtaService;
+import com.Transpo.transpo.service.LocationStore;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import org.springframework.security.core.Authentication;
 
 @RestController
@@ -17,10 +19,13 @@ import org.springframework.security.core.Authentication;
 public class DriverController {
     
     private final DriverService driverService;
-    private final Map<String, Map<String, Object>> liveLocations = new ConcurrentHashMap<>();
+    private final LocationStore locationStore;
+    private final EtaService etaService;
     
-    public DriverController(DriverService driverService) {
+    public DriverController(DriverService driverService, LocationStore locationStore, EtaService etaService) {
         this.driverService = driverService;
+        this.locationStore = locationStore;
+        this.etaService = etaService;
     }
     
     // Get driver's assigned bus
@@ -40,12 +45,14 @@ public class DriverController {
     
     // Change driver's assigned bus
     @PutMapping("/my-bus")
-    public ResponseEntity<Bus> changeMyBus(@RequestBody Map<String, Long> request) {
+    public ResponseEntity<Bus> changeMyBus(@RequestBody Map<String, Long> request, Authentication auth) {
         Long busId = request.get("busId");
         if (busId == null || busId <= 0) {
             return ResponseEntity.badRequest().build();
         }
         Bus bus = driverService.changeAssignedBus(busId);
+        // Next ping resolves the new bus instead of the cached one
+        locationStore.forgetDriver(auth.getName());
         return ResponseEntity.ok(bus);
     }
     
@@ -72,12 +79,22 @@ public class DriverController {
         return ResponseEntity.ok(details);
     }
     
-    // Get passenger pickup/drop statistics
+    // Get passenger pickup/drop statistics with the passengers of every stop. With includePassengers=false
+    // only the counts are sent and the names of a stop come from the per-stop endpoint below
     @GetMapping("/routes/{routeId}/passenger-stats")
-    public ResponseEntity<Map<String, Object>> getPassengerStats(@PathVariable Long routeId) {
-        Map<String, Object> stats = driverService.getPassengerStats(routeId);
+    public ResponseEntity<PassengerStatsDTO> getPassengerStats(
+            @PathVariable Long routeId,
+            @RequestParam(defaultValue = "true") boolean includePassengers) {
+        PassengerStatsDTO stats = driverService.getPassengerStats(routeId, includePassengers);
         return ResponseEntity.ok(stats);
     }
+
+    // Passengers picked up and dropped at one stop, loaded when the driver opens it
+    @GetMapping("/routes/{routeId}/stops/{stopId}/passengers")
+    public ResponseEntity<Map<String, List<String>>> getStopPassengers(@PathVariable Long routeId,
+                                                                       @PathVariable Long stopId) {
+        return ResponseEntity.ok(driverService.getStopPassengers(routeId, stopId));
+    }
     
     // Get all routes for driver's bus
     @GetMapping("/my-routes")
@@ -119,7 +136,7 @@ public class DriverController {
         return ResponseEntity.ok(list);
     }
 
-    // Live location: driver posts current lat/lng; stored in-memory keyed by username
+    // Live location: driver posts current lat/lng; appended to the ring buffer of the assigned bus
     @PostMapping("/location")
     public ResponseEntity<Map<String, Object>> updateLocation(@RequestBody Map<String, Object> payload,
                                                               Authentication auth) {
@@ -137,25 +154,46 @@ public class DriverController {
         if (lat == null || lng == null) {
             return ResponseEntity.badRequest().body(Map.of("message", "lat and lng required"));
         }
-        Map<String, Object> info = new ConcurrentHashMap<>();
-        info.put("lat", lat);
-        info.put("lng", lng);
-        info.put("updatedAt", System.currentTimeMillis());
-        liveLocations.put(user, info);
-        return ResponseEntity.ok(info);
+        if (lat < -90 || lat > 90 || lng < -180 || lng > 180) {
+            return ResponseEntity.badRequest().body(Map.of("message", "invalid lat/lng"));
+        }
+        Long busId = locationStore.busForDriver(user);
+        if (busId == null) {
+            return ResponseEntity.badRequest().body(Map.of("message", "No bus assigned to driver"));
+        }
+        long now = System.currentTimeMillis();
+        locationStore.append(busId, lat, lng, now);
+        etaService.onPing(busId, lat, lng, now);
+        return ResponseEntity.ok(Map.of("lat", lat, "lng", lng, "updatedAt", now, "busId", busId));
     }
 
-    // Get last known location for current driver
+    // Get last known location of the current driver's bus
     @GetMapping("/location")
     public ResponseEntity<Map<String, Object>> getMyLocation(Authentication auth) {
         if (auth == null || !auth.isAuthenticated()) {
             return ResponseEntity.status(401).body(Map.of("message", "unauthenticated"));
         }
-        String user = auth.getName();
-        Map<String, Object> info = liveLocations.get(user);
-        if (info == null) {
-            return ResponseEntity.ok(Map.of("message", "no location", "lat", null, "lng", null));
+        Long busId = locationStore.busForDriver(auth.getName());
+        LocationStore.Fix fix = busId != null ? locationStore.latest(busId) : null;
+        if (fix == null) {
+            Map<String, Object> none = new java.util.HashMap<>();
+            none.put("message", "no location");
+            none.put("lat", null);
+            none.put("lng", null);
+            return ResponseEntity.ok(none);
+        }
+        return ResponseEntity.ok(Map.of("lat", fix.getLat(), "lng", fix.getLng(),
+                "updatedAt", fix.getTimestamp(), "busId", busId));
+    }
+
+    // Recent positions of the current driver's bus, oldest first
+    @GetMapping("/location/trail")
+    public ResponseEntity<List<LocationStore.Fix>> getMyTrail(@RequestParam(defaultValue = "60") int limit,
+                                                             Authentication auth) {
+        Long busId = locationStore.busForDriver(auth.getName());
+        if (busId == null) {
+            return ResponseEntity.ok(List.of());
         }
-        return ResponseEntity.ok(info);
+        return ResponseEntity.ok(locationStore.trail(busId, limit));
     }
-}
\ No newline at end of file
+}
@@ -1,81 +1,90 @@
 package com.Transpo.transpo.controller;
 
-import com.Transpo.transpo.dto.BusStopDTO;
-import com.Transpo.transpo.dto.RouteWithStopsDTO;
-import com.Transpo.transpo.model.BusStop;
-import com.Transpo.transpo.model.Route;
-import com.Transpo.transpo.repository.BusStopRepository;
-import com.Transpo.transpo.repository.RouteRepository;
+import com.Transpo.transpo.exception.BadRequestException;
+import com.Transpo.transpo.service.RouteMapSnapshot;
+import com.Transpo.transpo.service.SpatialIndex;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/api/map")
 public class MapController {
 
-    private final RouteRepository routeRepository;
-    private final BusStopRepository busStopRepository;
+    private final RouteMapSnapshot routeMapSnapshot;
+    private final SpatialIndex spatialIndex;
     // Keep it simple for read-only dashboard
 
-    public MapController(RouteRepository routeRepository,
-                         BusStopRepository busStopRepository) {
-        this.routeRepository = routeRepository;
-        this.busStopRepository = busStopRepository;
+    private static final int MAX_NEAREST = 50;
+    private static final double MAX_RADIUS_KM = 50.0;
+
+    public MapController(RouteMapSnapshot routeMapSnapshot,
+                         SpatialIndex spatialIndex) {
+        this.routeMapSnapshot = routeMapSnapshot;
+        this.spatialIndex = spatialIndex;
     }
 
     /**
-     * Return routes with ordered stops including name and coordinates for dashboard view.
+     * The k stops nearest to a point, nearest first.
      */
-    @GetMapping("/routes-with-stops")
-    public ResponseEntity<List<RouteWithStopsDTO>> routesWithStops() {
-        List<Route> routes = routeRepository.findAll();
-        List<BusStop> stops = busStopRepository.findAll();
-
-        // Group stops by routeId; ensure order by sequence/index if present
-        Map<Long, List<BusStop>> byRoute = stops.stream()
-                .filter(s -> s.getRoute() != null && s.getRoute().getId() != null)
-                .collect(Collectors.groupingBy(s -> s.getRoute().getId()));
+    @GetMapping("/stops/nearest")
+    public ResponseEntity<List<SpatialIndex.NearbyStop>> nearestStops(@RequestParam double lat,
+                                                                      @RequestParam double lng,
+                                                                      @RequestParam(defaultValue = "5") int k) {
+        checkPoint(lat, lng);
+        if (k < 1 || k > MAX_NEAREST) {
+            throw new BadRequestException("k must be between 1 and " + MAX_NEAREST);
+        }
+        return ResponseEntity.ok(spatialIndex.nearestStops(lat, lng, k));
+    }
 
-        List<RouteWithStopsDTO> result = new ArrayList<>();
-        for (Route r : routes) {
-            RouteWithStopsDTO dto = new RouteWithStopsDTO();
-            dto.setId(r.getId());
-            dto.setOrigin(r.getOrigin());
-            dto.setDestination(r.getDestination());
-            List<BusStop> rs = byRoute.getOrDefault(r.getId(), List.of());
-            // Sort by sequence/order if field exists; else by name
-            rs = rs.stream()
-                    .sorted(Comparator.comparingInt(s -> {
-                        try {
-                            // attempt to read a sequence/order via reflection if present
-                            var f = s.getClass().getDeclaredField("sequence");
-                            f.setAccessible(true);
-                            Object v = f.get(s);
-                            return v instanceof Integer ? (Integer) v : Integer.MAX_VALUE;
-                        } catch (Exception ignore) { return Integer.MAX_VALUE; }
-                    }))
-                    .collect(Collectors.toList());
+    /**
+     * Buses that reported a position within radiusKm of a point, nearest first.
+     */
+    @GetMapping("/buses/nearby")
+    public ResponseEntity<List<SpatialIndex.NearbyBus>> busesNearby(@RequestParam double lat,
+                                                                    @RequestParam double lng,
+                                                                    @RequestParam(defaultValue = "2") double radiusKm) {
+        checkPoint(lat, lng);
+        if (!(radiusKm > 0) || radiusKm > MAX_RADIUS_KM) {
+            throw new BadRequestException("radiusKm must be greater than 0 and at most " + MAX_RADIUS_KM);
+        }
+        return ResponseEntity.ok(spatialIndex.busesWithin(lat, lng, radiusKm));
+    }
 
-            List<BusStopDTO> stopDtos = rs.stream().map(s -> {
-                BusStopDTO sd = new BusStopDTO();
-                sd.setId(s.getId());
-                sd.setName(s.getName());
-                sd.setLatitude(s.getLatitude());
-                sd.setLongitude(s.getLongitude());
-                return sd;
-            }).collect(Collectors.toList());
-            dto.setStops(stopDtos);
-            result.add(dto);
+    private static void checkPoint(double lat, double lng) {
+        if (lat < -90 || lat > 90 || lng < -180 || lng > 180) {
+            throw new BadRequestException("Invalid coordinates");
         }
+    }
 
-        return ResponseEntity.ok(result);
+    /**
+     * Return routes with ordered stops including name and coordinates for dashboard view.
+     * Served from the prebuilt snapshot; gzipped when the client accepts it.
+     */
+    @GetMapping("/routes-with-stops")
+    public ResponseEntity<byte[]> routesWithStops(WebRequest request) {
+        RouteMapSnapshot.Snapshot snapshot = routeMapSnapshot.get();
+        if (request.checkNotModified(snapshot.getEtag())) {
+            return null;
+        }
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(snapshot.getEtag())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.getGzip());
+        }
+        return response.body(snapshot.getJson());
     }
 }
\ No newline at end of file
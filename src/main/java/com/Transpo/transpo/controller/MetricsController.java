@@ -0,0 +1,59 @@
+package com.Transpo.transpo.controller;
+
+import com.Transpo.transpo.config.MetricsRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+@RestController
+public class MetricsController {
+
+    private static final MediaType PROMETHEUS_TEXT = MediaType.parseMediaType("text/plain; version=0.0.4; charset=utf-8");
+
+    private final MetricsRegistry metrics;
+    private final byte[] scrapeToken;
+
+    public MetricsController(MetricsRegistry metrics,
+                             @Value("${transpo.metrics.scrape-token:}") String scrapeToken) {
+        this.metrics = metrics;
+        this.scrapeToken = scrapeToken.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Prometheus scrape endpoint, open to admins and, when a scrape token is configured, to
+     * requests sending it as "Authorization: Bearer <token>". Without a token only admins
+     * can scrape.
+     */
+    @GetMapping("/metrics")
+    public ResponseEntity<String> scrape(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                         Authentication authentication) {
+        if (!isAdmin(authentication) && !hasScrapeToken(authorization)) {
+            HttpStatus status = authentication != null ? HttpStatus.FORBIDDEN : HttpStatus.UNAUTHORIZED;
+            return ResponseEntity.status(status).build();
+        }
+        return ResponseEntity.ok().contentType(PROMETHEUS_TEXT).body(metrics.scrape());
+    }
+
+    private boolean hasScrapeToken(String authorization) {
+        if (scrapeToken.length == 0 || authorization == null || !authorization.startsWith("Bearer ")) return false;
+        return MessageDigest.isEqual(scrapeToken, authorization.substring(7).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static boolean isAdmin(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) return false;
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            if ("ROLE_ADMIN".equals(authority.getAuthority())) return true;
+        }
+        return false;
+    }
+}
@@ -1,15 +1,19 @@
 package com.Transpo.transpo.controller;
 
+import com.Transpo.transpo.dto.BatchBookingRequestDTO;
 import com.Transpo.transpo.dto.ReservationDTO;
 import com.Transpo.transpo.mapper.ReservationMapper;
 import com.Transpo.transpo.model.Reservation;
 import com.Transpo.transpo.service.ReservationService;
+import com.Transpo.transpo.service.SeatHoldService;
+import com.Transpo.transpo.service.SeatHoldService.SeatHold;
 import com.Transpo.transpo.service.ReservationService.SeatInfoWithAllocation;
 import com.Transpo.transpo.dto.SeatAvailabilityDTO;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -19,9 +23,11 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/reservations")
 public class ReservationController {
     private final ReservationService reservationService;
+    private final SeatHoldService seatHoldService;
 
-    public ReservationController(ReservationService reservationService){
+    public ReservationController(ReservationService reservationService, SeatHoldService seatHoldService){
         this.reservationService = reservationService;
+        this.seatHoldService = seatHoldService;
     }
 
     @PostMapping("/book")
@@ -47,6 +53,86 @@ public class ReservationController {
         return ResponseEntity.ok(ReservationMapper.toDto(r));
     }
 
+    /**
+     * Group booking: book several seats on one schedule in one transaction (all or none).
+     */
+    @PostMapping("/book-batch")
+    public ResponseEntity<List<ReservationDTO>> bookBatch(@RequestBody BatchBookingRequestDTO req) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (req.getSeats() != null && auth != null && auth.isAuthenticated()) {
+            for (BatchBookingRequestDTO.Seat seat : req.getSeats()) {
+                if (seat.passengerName == null || seat.passengerName.isBlank()) {
+                    seat.passengerName = auth.getName();
+                }
+            }
+        }
+        List<ReservationDTO> list = reservationService.bookSeats(req.getScheduleId(), req.getPassengerEmail(), req.getSeats())
+                .stream()
+                .map(ReservationMapper::toDto)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(list);
+    }
+
+    /**
+     * Hold one or more seats for a few minutes before payment. All seats are held or none.
+     */
+    @PostMapping("/holds")
+    public ResponseEntity<List<Map<String, Object>>> hold(@RequestBody Map<String, Object> req) {
+        Long scheduleId = req.get("scheduleId") != null ? Long.valueOf(String.valueOf(req.get("scheduleId"))) : null;
+        List<Integer> seatNumbers = new java.util.ArrayList<>();
+        if (req.get("seatNumbers") instanceof List<?> seats) {
+            for (Object o : seats) seatNumbers.add(Integer.parseInt(String.valueOf(o)));
+        } else if (req.get("seatNumber") != null) {
+            seatNumbers.add(Integer.parseInt(String.valueOf(req.get("seatNumber"))));
+        }
+        Integer minutes = req.get("minutes") != null ? Integer.valueOf(String.valueOf(req.get("minutes"))) : null;
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String username = (auth != null && auth.isAuthenticated()) ? auth.getName() : null;
+        List<Map<String, Object>> holds = seatHoldService.hold(scheduleId, seatNumbers, minutes, username)
+                .stream()
+                .map(this::toHoldResponse)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(holds);
+    }
+
+    /**
+     * Convert a seat hold into a reservation.
+     */
+    @PostMapping("/holds/{holdId}/confirm")
+    public ResponseEntity<ReservationDTO> confirmHold(@PathVariable String holdId, @RequestBody Map<String, Object> req) {
+        String name = req.get("passengerName") != null ? String.valueOf(req.get("passengerName")) : null;
+        String email = String.valueOf(req.get("passengerEmail"));
+        Long pickupStopId = req.get("pickupStopId") != null ?
+            Long.valueOf(String.valueOf(req.get("pickupStopId"))) : null;
+        Long dropStopId = req.get("dropStopId") != null ?
+            Long.valueOf(String.valueOf(req.get("dropStopId"))) : null;
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if ((name == null || name.isBlank()) && auth != null && auth.isAuthenticated()) {
+            name = auth.getName();
+        }
+        Reservation r = reservationService.bookHeldSeat(holdId, name, email, pickupStopId, dropStopId);
+        return ResponseEntity.ok(ReservationMapper.toDto(r));
+    }
+
+    @DeleteMapping("/holds/{holdId}")
+    public ResponseEntity<Map<String,String>> releaseHold(@PathVariable String holdId) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String username = (auth != null && auth.isAuthenticated()) ? auth.getName() : null;
+        boolean isAdmin = auth != null && auth.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority() != null && a.getAuthority().contains("ADMIN"));
+        seatHoldService.release(holdId, username, isAdmin);
+        return ResponseEntity.ok(Map.of("message", "Seat hold released"));
+    }
+
+    private Map<String, Object> toHoldResponse(SeatHold h) {
+        return Map.of(
+                "holdId", h.getId(),
+                "scheduleId", h.getScheduleId(),
+                "seatNumber", h.getSeatNumber(),
+                "expiresAt", java.time.Instant.ofEpochMilli(h.getExpiresAt())
+        );
+    }
+
     @GetMapping("/by-email")
     public ResponseEntity<List<ReservationDTO>> byEmail(@RequestParam String email){
         List<ReservationDTO> list = reservationService.getByEmail(email)
@@ -82,17 +168,26 @@ public class ReservationController {
 
     /**
      * Seat availability by bus with role-based filtering.
+     * With pickupStopId/dropStopId only the legs between those stops are considered.
      */
     @GetMapping("/seat-availability")
     public ResponseEntity<SeatAvailabilityDTO> getSeatAvailability(
             @RequestParam(required = false) Long busId,
             @RequestParam(required = false) String busNumber,
-            @RequestParam(required = false) Long scheduleId
+            @RequestParam(required = false) Long scheduleId,
+            @RequestParam(required = false) Long pickupStopId,
+            @RequestParam(required = false) Long dropStopId,
+            WebRequest request
     ) {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String username = auth != null ? auth.getName() : null;
-        SeatAvailabilityDTO dto = reservationService.getSeatAvailability(busId, busNumber, scheduleId, username);
-        return ResponseEntity.ok(dto);
+        SeatAvailabilityDTO dto = reservationService.getSeatAvailability(busId, busNumber, scheduleId,
+                pickupStopId, dropStopId, username);
+        // Polling clients send If-None-Match and get a 304 while the grid version is unchanged
+        if (request.checkNotModified(dto.getEtag())) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(dto.getEtag()).body(dto);
     }
 
     @PutMapping("/{id}")
@@ -166,7 +261,7 @@ public class ReservationController {
     public ResponseEntity<List<ReservationDTO>> listForConductor() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String username = auth != null ? auth.getName() : null;
-        List<ReservationDTO> list = reservationService.getReservationsForDriver(username)
+        List<ReservationDTO> list = reservationService.getReservationsForConductor(username)
                 .stream()
                 .map(ReservationMapper::toDto)
                 .collect(Collectors.toList());
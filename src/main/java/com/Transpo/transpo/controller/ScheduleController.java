@@ -4,9 +4,17 @@ import com.Transpo.transpo.dto.ScheduleDTO;
 import com.Transpo.transpo.dto.ScheduleResponseDTO;
 import com.Transpo.transpo.mapper.ScheduleMapper;
 import com.Transpo.transpo.model.Schedule;
+import com.Transpo.transpo.exception.NotFoundException;
+import com.Transpo.transpo.repository.ScheduleQueryRepository;
+import com.Transpo.transpo.service.DynamicPricingService;
+import com.Transpo.transpo.service.EtaService;
 import com.Transpo.transpo.service.ScheduleService;
+import com.Transpo.transpo.service.SeatStreamService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.time.LocalDateTime;
@@ -19,15 +27,24 @@ public class ScheduleController {
     private final ScheduleService service;
     private final com.Transpo.transpo.repository.ScheduleRepository scheduleRepository;
     private final ScheduleMapper scheduleMapper;
+    private final SeatStreamService seatStreamService;
+    private final EtaService etaService;
+    private final DynamicPricingService pricing;
 
     public ScheduleController(
             ScheduleService service,
             com.Transpo.transpo.repository.ScheduleRepository scheduleRepository,
-            ScheduleMapper scheduleMapper
+            ScheduleMapper scheduleMapper,
+            SeatStreamService seatStreamService,
+            EtaService etaService,
+            DynamicPricingService pricing
     ) {
         this.service = service;
         this.scheduleRepository = scheduleRepository;
         this.scheduleMapper = scheduleMapper;
+        this.seatStreamService = seatStreamService;
+        this.etaService = etaService;
+        this.pricing = pricing;
     }
 
     @PostMapping
@@ -37,31 +54,53 @@ public class ScheduleController {
         Schedule saved = service.create(toSave);
 
         // Use the custom query to get full details for response
-        ScheduleResponseDTO response = scheduleRepository.findScheduleDetailsById(saved.getId())
+        ScheduleResponseDTO response = service.getDetails(saved.getId())
                 .orElseThrow(() -> new RuntimeException("Schedule not found"));
 
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Schedules ordered by departure time. With limit or cursor one page is returned at a time
+     * (limit defaults to 100) and the next page is requested with the cursor returned in the
+     * X-Next-Cursor header (absent on the last page); with neither, every schedule is returned.
+     */
     @GetMapping
-    public ResponseEntity<List<?>> list(@RequestParam(value = "busNumber", required = false) String busNumber) {
-        // If busNumber specified, return only future schedules for that bus as minimal objects
-        if (busNumber != null && !busNumber.isBlank()) {
-            LocalDateTime now = LocalDateTime.now();
-            // Use the DTO-based repository method and filter by bus number and future departure time
-            List<ScheduleResponseDTO> all = scheduleRepository.findAllScheduleDetails();
-            List<?> minimal = all.stream()
-                    .filter(d -> d.getDepartureTime() != null && d.getDepartureTime().isAfter(now) && busNumber.equals(d.getBusNumber()))
+    public ResponseEntity<List<?>> list(
+            @RequestParam(value = "busNumber", required = false) String busNumber,
+            @RequestParam(value = "busId", required = false) Long busId,
+            @RequestParam(value = "origin", required = false) String origin,
+            @RequestParam(value = "destination", required = false) String destination,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit
+    ) {
+        boolean byBusNumber = busNumber != null && !busNumber.isBlank();
+        ScheduleQueryRepository.Filter filter = new ScheduleQueryRepository.Filter();
+        filter.busNumber = byBusNumber ? busNumber : null;
+        filter.busId = busId;
+        filter.origin = origin != null && !origin.isBlank() ? origin : null;
+        filter.destination = destination != null && !destination.isBlank() ? destination : null;
+        // With busNumber only future schedules are listed, as minimal objects
+        filter.from = from == null && byBusNumber ? LocalDateTime.now() : from;
+        filter.to = to;
+
+        ScheduleService.SchedulePage page = service.listPage(filter, cursor, limit);
+        List<?> body = page.getItems();
+        if (byBusNumber) {
+            body = page.getItems().stream()
                     .map(d -> java.util.Map.of(
                             "id", d.getId(),
                             "departureTime", d.getDepartureTime()
                     ))
                     .collect(Collectors.toList());
-            return ResponseEntity.ok(minimal);
         }
-        // Otherwise, return all schedules with details
-        List<ScheduleResponseDTO> dtos = scheduleRepository.findAllScheduleDetails();
-        return ResponseEntity.ok(dtos);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header("X-Next-Cursor", page.getNextCursor());
+        }
+        return response.body(body);
     }
 
     @GetMapping("/search")
@@ -69,13 +108,13 @@ public class ScheduleController {
             @RequestParam("pickup") String pickup,
             @RequestParam("drop") String drop
     ) {
-        List<ScheduleResponseDTO> dtos = scheduleRepository.searchByPickupAndDrop(pickup, drop);
+        List<ScheduleResponseDTO> dtos = service.searchByPickupAndDrop(pickup, drop);
         return ResponseEntity.ok(dtos);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<ScheduleResponseDTO> get(@PathVariable Long id) {
-        ScheduleResponseDTO dto = scheduleRepository.findScheduleDetailsById(id)
+        ScheduleResponseDTO dto = service.getDetails(id)
                 .orElse(null);
 
         if (dto == null) {
@@ -91,10 +130,42 @@ public class ScheduleController {
         return ResponseEntity.ok(info);
     }
 
+    /**
+     * Server-Sent Events stream of seat deltas for a schedule (event "seats").
+     */
+    @GetMapping(value = "/{id}/seats/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter seatStream(@PathVariable Long id) {
+        if (!scheduleRepository.existsById(id)) {
+            throw new NotFoundException("Schedule not found: " + id);
+        }
+        return seatStreamService.subscribe(id);
+    }
+
+    /**
+     * Predicted arrival at each stop of the schedule (epoch millis; null for stops already passed).
+     */
+    @GetMapping("/{id}/eta")
+    public ResponseEntity<EtaService.ScheduleEta> eta(@PathVariable Long id) {
+        return ResponseEntity.ok(etaService.etaForSchedule(id));
+    }
+
+    /**
+     * Live fare between two stops from the current load factor and time to departure.
+     * Without stops the schedule fare is the base.
+     */
+    @GetMapping("/{id}/quote")
+    public ResponseEntity<DynamicPricingService.Quote> quote(
+            @PathVariable Long id,
+            @RequestParam(value = "pickupStopId", required = false) Long pickupStopId,
+            @RequestParam(value = "dropStopId", required = false) Long dropStopId
+    ) {
+        return ResponseEntity.ok(pricing.quote(id, pickupStopId, dropStopId));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ScheduleResponseDTO> update(@PathVariable Long id, @RequestBody Schedule s) {
         Schedule updated = service.update(id, s);
-        ScheduleResponseDTO dto = scheduleRepository.findScheduleDetailsById(updated.getId())
+        ScheduleResponseDTO dto = service.getDetails(updated.getId())
                 .orElseThrow(() -> new RuntimeException("Schedule not found"));
         return ResponseEntity.ok(dto);
     }
@@ -8,6 +8,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -25,6 +26,37 @@ public class TicketPriceController {
                 .collect(Collectors.toList());
     }
 
+    // Price between two stops of a route (either direction)
+    @GetMapping("/route/{routeId}/price")
+    public ResponseEntity<?> price(@PathVariable Long routeId,
+                                   @RequestParam Long fromStopId,
+                                   @RequestParam Long toStopId) {
+        BigDecimal price = service.findPrice(routeId, fromStopId, toStopId);
+        if (price == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "No price for these stops"));
+        }
+        return ResponseEntity.ok(new TicketPriceDTO(null, routeId, fromStopId, toStopId, price));
+    }
+
+    // Batch quote: body is a list of {fromStopId, toStopId}; price is null for pairs without a price
+    @PostMapping("/route/{routeId}/quotes")
+    public ResponseEntity<?> quotes(@PathVariable Long routeId, @RequestBody List<Map<String, Object>> body) {
+        try {
+            List<Long[]> pairs = new ArrayList<>(body.size());
+            for (Map<String, Object> pair : body) {
+                pairs.add(new Long[] { parseLong(pair.get("fromStopId")), parseLong(pair.get("toStopId")) });
+            }
+            List<BigDecimal> prices = service.findPrices(routeId, pairs);
+            List<TicketPriceDTO> result = new ArrayList<>(pairs.size());
+            for (int i = 0; i < pairs.size(); i++) {
+                result.add(new TicketPriceDTO(null, routeId, pairs.get(i)[0], pairs.get(i)[1], prices.get(i)));
+            }
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+
     @PostMapping
     public ResponseEntity<?> create(@RequestBody Map<String, Object> body) {
         try {
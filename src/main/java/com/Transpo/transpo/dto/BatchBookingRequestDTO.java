@@ -0,0 +1,24 @@
+package com.Transpo.transpo.dto;
+
+import java.util.List;
+
+public class BatchBookingRequestDTO {
+    public static class Seat {
+        public int seatNumber;
+        public String passengerName;
+        public String passengerEmail; // falls back to the request-level email
+        public Long pickupStopId;
+        public Long dropStopId;
+    }
+
+    private Long scheduleId;
+    private String passengerEmail;
+    private List<Seat> seats;
+
+    public Long getScheduleId() { return scheduleId; }
+    public void setScheduleId(Long scheduleId) { this.scheduleId = scheduleId; }
+    public String getPassengerEmail() { return passengerEmail; }
+    public void setPassengerEmail(String passengerEmail) { this.passengerEmail = passengerEmail; }
+    public List<Seat> getSeats() { return seats; }
+    public void setSeats(List<Seat> seats) { this.seats = seats; }
+}
@@ -0,0 +1,73 @@
+package com.Transpo.transpo.dto;
+
+import com.Transpo.transpo.model.Route;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Pickups and drops per stop of a route for the driver's bus.
+ * Passenger lists are only filled when requested.
+ */
+public class PassengerStatsDTO {
+    private Route route;
+    private List<StopStats> stops;
+    private int totalPassengers;
+
+    public PassengerStatsDTO() {}
+
+    public PassengerStatsDTO(Route route, List<StopStats> stops, int totalPassengers) {
+        this.route = route;
+        this.stops = stops;
+        this.totalPassengers = totalPassengers;
+    }
+
+    public Route getRoute() { return route; }
+    public void setRoute(Route route) { this.route = route; }
+    public List<StopStats> getStops() { return stops; }
+    public void setStops(List<StopStats> stops) { this.stops = stops; }
+    public int getTotalPassengers() { return totalPassengers; }
+    public void setTotalPassengers(int totalPassengers) { this.totalPassengers = totalPassengers; }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class StopStats {
+        private Long stopId;
+        private String stopName;
+        private Double latitude;
+        private Double longitude;
+        private Integer sequence;
+        private int pickupCount;
+        private int dropCount;
+        private List<String> pickupPassengers;
+        private List<String> dropPassengers;
+
+        public StopStats() {}
+
+        public StopStats(Long stopId, String stopName, Double latitude, Double longitude, Integer sequence) {
+            this.stopId = stopId;
+            this.stopName = stopName;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.sequence = sequence;
+        }
+
+        public Long getStopId() { return stopId; }
+        public void setStopId(Long stopId) { this.stopId = stopId; }
+        public String getStopName() { return stopName; }
+        public void setStopName(String stopName) { this.stopName = stopName; }
+        public Double getLatitude() { return latitude; }
+        public void setLatitude(Double latitude) { this.latitude = latitude; }
+        public Double getLongitude() { return longitude; }
+        public void setLongitude(Double longitude) { this.longitude = longitude; }
+        public Integer getSequence() { return sequence; }
+        public void setSequence(Integer sequence) { this.sequence = sequence; }
+        public int getPickupCount() { return pickupCount; }
+        public void setPickupCount(int pickupCount) { this.pickupCount = pickupCount; }
+        public int getDropCount() { return dropCount; }
+        public void setDropCount(int dropCount) { this.dropCount = dropCount; }
+        public List<String> getPickupPassengers() { return pickupPassengers; }
+        public void setPickupPassengers(List<String> pickupPassengers) { this.pickupPassengers = pickupPassengers; }
+        public List<String> getDropPassengers() { return dropPassengers; }
+        public void setDropPassengers(List<String> dropPassengers) { this.dropPassengers = dropPassengers; }
+    }
+}
@@ -1,5 +1,7 @@
 package com.Transpo.transpo.dto;
 
+import java.util.List;
+
 public class RouteDTO {
     private Long id;
     private String origin;
@@ -17,6 +19,9 @@ public class RouteDTO {
     private String stop09;
     private String stop10;
 
+    // Full ordered stop list; takes precedence over stop01..stop10 when sent, and is not capped at ten
+    private List<String> stops;
+
     public RouteDTO() {}
 
     public Long getId() { return id; }
@@ -57,4 +62,7 @@ public class RouteDTO {
 
     public String getStop10() { return stop10; }
     public void setStop10(String stop10) { this.stop10 = stop10; }
+
+    public List<String> getStops() { return stops; }
+    public void setStops(List<String> stops) { this.stops = stops; }
 }
@@ -1,6 +1,7 @@
 package com.Transpo.transpo.dto;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 public class ScheduleResponseDTO {
     private Long id;
@@ -12,6 +13,9 @@ public class ScheduleResponseDTO {
     private LocalDateTime departureTime;
     private double fare;
     private int availableSeats;
+    private int totalSeats;
+    // Live fare from DynamicPricingService; null where the schedule was not priced
+    private Double dynamicFare;
 
     // new route stop fields
     private String stop01;
@@ -25,6 +29,9 @@ public class ScheduleResponseDTO {
     private String stop09;
     private String stop10;
 
+    // All stops of the route in order; stop01..stop10 are the first ten of them
+    private List<String> stops;
+
     // Constructor
     public ScheduleResponseDTO(Long id, Long busId, String busNumber, Long routeId, 
                               String origin, String destination, LocalDateTime departureTime, 
@@ -40,23 +47,11 @@ public class ScheduleResponseDTO {
         this.availableSeats = availableSeats;
     }
 
-    // Constructor including stops for richer projections
     public ScheduleResponseDTO(Long id, Long busId, String busNumber, Long routeId,
-                               String origin, String destination, LocalDateTime departureTime,
-                               double fare, int availableSeats,
-                               String stop01, String stop02, String stop03, String stop04, String stop05,
-                               String stop06, String stop07, String stop08, String stop09, String stop10) {
+                              String origin, String destination, LocalDateTime departureTime,
+                              double fare, int availableSeats, int totalSeats) {
         this(id, busId, busNumber, routeId, origin, destination, departureTime, fare, availableSeats);
-        this.stop01 = stop01;
-        this.stop02 = stop02;
-        this.stop03 = stop03;
-        this.stop04 = stop04;
-        this.stop05 = stop05;
-        this.stop06 = stop06;
-        this.stop07 = stop07;
-        this.stop08 = stop08;
-        this.stop09 = stop09;
-        this.stop10 = stop10;
+        this.totalSeats = totalSeats;
     }
 
     // Getters and Setters
@@ -87,6 +82,12 @@ public class ScheduleResponseDTO {
     public int getAvailableSeats() { return availableSeats; }
     public void setAvailableSeats(int availableSeats) { this.availableSeats = availableSeats; }
 
+    public int getTotalSeats() { return totalSeats; }
+    public void setTotalSeats(int totalSeats) { this.totalSeats = totalSeats; }
+
+    public Double getDynamicFare() { return dynamicFare; }
+    public void setDynamicFare(Double dynamicFare) { this.dynamicFare = dynamicFare; }
+
     public String getStop01() { return stop01; }
     public void setStop01(String stop01) { this.stop01 = stop01; }
     public String getStop02() { return stop02; }
@@ -107,4 +108,28 @@ public class ScheduleResponseDTO {
     public void setStop09(String stop09) { this.stop09 = stop09; }
     public String getStop10() { return stop10; }
     public void setStop10(String stop10) { this.stop10 = stop10; }
-}
\ No newline at end of file
+
+    public List<String> getStops() { return stops; }
+    public void setStops(List<String> stops) { this.stops = stops; }
+
+    /**
+     * Set the ordered stop names and the legacy stop01..stop10 fields from them.
+     */
+    public void setStopNames(List<String> names) {
+        this.stops = names;
+        String[] first = new String[10];
+        for (int i = 0; i < first.length && i < names.size(); i++) {
+            first[i] = names.get(i);
+        }
+        stop01 = first[0];
+        stop02 = first[1];
+        stop03 = first[2];
+        stop04 = first[3];
+        stop05 = first[4];
+        stop06 = first[5];
+        stop07 = first[6];
+        stop08 = first[7];
+        stop09 = first[8];
+        stop10 = first[9];
+    }
+}
@@ -1,11 +1,13 @@
 package com.Transpo.transpo.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.util.List;
 
 public class SeatAvailabilityDTO {
     public static class Seat {
         public int seatNumber;
-        public String status; // AVAILABLE | RESERVED | PAID
+        public String status; // AVAILABLE | RESERVED | PAID | HELD
         public String passengerName; // only for admin/conductor
     }
 
@@ -14,6 +16,9 @@ public class SeatAvailabilityDTO {
     private Long scheduleId;
     private int totalSeats;
     private List<Seat> seats;
+    private long version;
+    @JsonIgnore
+    private String etag; // sent as the ETag header
 
     public Long getBusId() { return busId; }
     public void setBusId(Long busId) { this.busId = busId; }
@@ -25,4 +30,8 @@ public class SeatAvailabilityDTO {
     public void setTotalSeats(int totalSeats) { this.totalSeats = totalSeats; }
     public List<Seat> getSeats() { return seats; }
     public void setSeats(List<Seat> seats) { this.seats = seats; }
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+    public String getEtag() { return etag; }
+    public void setEtag(String etag) { this.etag = etag; }
 }
\ No newline at end of file
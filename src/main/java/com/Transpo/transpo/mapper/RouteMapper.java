@@ -1,8 +1,13 @@
 package com.Transpo.transpo.mapper;
 
 import com.Transpo.transpo.dto.RouteDTO;
+import com.Transpo.transpo.model.BusStop;
 import com.Transpo.transpo.model.Route;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 public class RouteMapper {
     public static RouteDTO toDto(Route r) {
         if (r == null) return null;
@@ -10,35 +15,45 @@ public class RouteMapper {
         d.setId(r.getId());
         d.setOrigin(r.getOrigin());
         d.setDestination(r.getDestination());
-    d.setStop01(r.getStop01());
-    d.setStop02(r.getStop02());
-    d.setStop03(r.getStop03());
-    d.setStop04(r.getStop04());
-    d.setStop05(r.getStop05());
-    d.setStop06(r.getStop06());
-    d.setStop07(r.getStop07());
-    d.setStop08(r.getStop08());
-    d.setStop09(r.getStop09());
-    d.setStop10(r.getStop10());
+        List<String> names = r.getStopNames();
+        d.setStops(names);
+        d.setStop01(names.size() > 0 ? names.get(0) : null);
+        d.setStop02(names.size() > 1 ? names.get(1) : null);
+        d.setStop03(names.size() > 2 ? names.get(2) : null);
+        d.setStop04(names.size() > 3 ? names.get(3) : null);
+        d.setStop05(names.size() > 4 ? names.get(4) : null);
+        d.setStop06(names.size() > 5 ? names.get(5) : null);
+        d.setStop07(names.size() > 6 ? names.get(6) : null);
+        d.setStop08(names.size() > 7 ? names.get(7) : null);
+        d.setStop09(names.size() > 8 ? names.get(8) : null);
+        d.setStop10(names.size() > 9 ? names.get(9) : null);
         return d;
     }
 
+    /**
+     * Route with its named stops as unplaced bus stops (no coordinates), in order.
+     */
     public static Route toEntity(RouteDTO d) {
         if (d == null) return null;
         Route r = new Route();
         r.setId(d.getId());
         r.setOrigin(d.getOrigin());
         r.setDestination(d.getDestination());
-    r.setStop01(d.getStop01());
-    r.setStop02(d.getStop02());
-    r.setStop03(d.getStop03());
-    r.setStop04(d.getStop04());
-    r.setStop05(d.getStop05());
-    r.setStop06(d.getStop06());
-    r.setStop07(d.getStop07());
-    r.setStop08(d.getStop08());
-    r.setStop09(d.getStop09());
-    r.setStop10(d.getStop10());
+        int sequence = 1;
+        for (String name : stopNames(d)) {
+            r.addBusStop(new BusStop(name.trim(), null, null, sequence++, r));
+        }
         return r;
     }
+
+    private static List<String> stopNames(RouteDTO d) {
+        List<String> given = d.getStops() != null ? d.getStops() : Arrays.asList(
+                d.getStop01(), d.getStop02(), d.getStop03(), d.getStop04(), d.getStop05(),
+                d.getStop06(), d.getStop07(), d.getStop08(), d.getStop09(), d.getStop10());
+        List<String> names = new ArrayList<>();
+        for (String name : given) {
+            if (name != null && !name.isBlank()) names.add(name);
+        }
+        return names;
+    }
 }
@@ -4,7 +4,7 @@ import jakarta.persistence.*;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 
 @Entity
-@Table(name = "bus_stops")
+@Table(name = "bus_stops", uniqueConstraints = @UniqueConstraint(columnNames = {"route_id", "sequence"}))
 public class BusStop {
     
     @Id
@@ -14,10 +14,9 @@ public class BusStop {
     @Column(nullable = false)
     private String name;
     
-    @Column(nullable = false)
+    // Null for named stops that have not been placed on the map yet
     private Double latitude;
     
-    @Column(nullable = false)
     private Double longitude;
     
     private Integer sequence; // Order in the route
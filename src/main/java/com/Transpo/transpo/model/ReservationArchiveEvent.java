@@ -0,0 +1,17 @@
+package com.Transpo.transpo.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Outbox row written in the cancelling transaction; the archiver moves it to reservation_history.
+ */
+@Entity
+@Table(name = "reservation_archive_outbox")
+public class ReservationArchiveEvent extends ReservationSnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+}
@@ -1,59 +1,14 @@
 package com.Transpo.transpo.model;
 
 import jakarta.persistence.*;
-import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "reservation_history")
-public class ReservationHistory {
+public class ReservationHistory extends ReservationSnapshot {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    private LocalDateTime bookingTime;
-    private String createdBy;
-    private Long dropStopId;
-    private Boolean paid;
-    private String passengerEmail;
-    private String passengerName;
-    private String paymentMethod;
-    private String paymentReference;
-    private Long pickupStopId;
-    private Long scheduleId;
-    private int seatNumber;
-    private String status;
-    private String username;
-    private LocalDateTime cancelledAt;
-
-    // getters/setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
-    public LocalDateTime getBookingTime() { return bookingTime; }
-    public void setBookingTime(LocalDateTime bookingTime) { this.bookingTime = bookingTime; }
-    public String getCreatedBy() { return createdBy; }
-    public void setCreatedBy(String createdBy) { this.createdBy = createdBy; }
-    public Long getDropStopId() { return dropStopId; }
-    public void setDropStopId(Long dropStopId) { this.dropStopId = dropStopId; }
-    public Boolean getPaid() { return paid; }
-    public void setPaid(Boolean paid) { this.paid = paid; }
-    public String getPassengerEmail() { return passengerEmail; }
-    public void setPassengerEmail(String passengerEmail) { this.passengerEmail = passengerEmail; }
-    public String getPassengerName() { return passengerName; }
-    public void setPassengerName(String passengerName) { this.passengerName = passengerName; }
-    public String getPaymentMethod() { return paymentMethod; }
-    public void setPaymentMethod(String paymentMethod) { this.paymentMethod = paymentMethod; }
-    public String getPaymentReference() { return paymentReference; }
-    public void setPaymentReference(String paymentReference) { this.paymentReference = paymentReference; }
-    public Long getPickupStopId() { return pickupStopId; }
-    public void setPickupStopId(Long pickupStopId) { this.pickupStopId = pickupStopId; }
-    public Long getScheduleId() { return scheduleId; }
-    public void setScheduleId(Long scheduleId) { this.scheduleId = scheduleId; }
-    public int getSeatNumber() { return seatNumber; }
-    public void setSeatNumber(int seatNumber) { this.seatNumber = seatNumber; }
-    public String getStatus() { return status; }
-    public void setStatus(String status) { this.status = status; }
-    public String getUsername() { return username; }
-    public void setUsername(String username) { this.username = username; }
-    public LocalDateTime getCancelledAt() { return cancelledAt; }
-    public void setCancelledAt(LocalDateTime cancelledAt) { this.cancelledAt = cancelledAt; }
-}
\ No newline at end of file
+}
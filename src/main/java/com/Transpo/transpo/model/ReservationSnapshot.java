@@ -0,0 +1,75 @@
+package com.Transpo.transpo.model;
+
+import jakarta.persistence.MappedSuperclass;
+import java.time.LocalDateTime;
+
+/**
+ * Columns of a cancelled reservation, shared by the archive outbox and reservation_history.
+ */
+@MappedSuperclass
+public abstract class ReservationSnapshot {
+    private LocalDateTime bookingTime;
+    private String createdBy;
+    private Long dropStopId;
+    private Boolean paid;
+    private String passengerEmail;
+    private String passengerName;
+    private String paymentMethod;
+    private String paymentReference;
+    private Long pickupStopId;
+    private Long scheduleId;
+    private int seatNumber;
+    private String status;
+    private String username;
+    private LocalDateTime cancelledAt;
+
+    /**
+     * Copy a reservation about to be deleted, stamped as cancelled now.
+     */
+    public void copyFrom(Reservation r) {
+        bookingTime = r.getBookingTime();
+        createdBy = r.getCreatedBy();
+        dropStopId = r.getDropStop() != null ? r.getDropStop().getId() : null;
+        paid = r.isPaid();
+        passengerEmail = r.getPassengerEmail();
+        passengerName = r.getPassengerName();
+        paymentMethod = r.getPaymentMethod();
+        paymentReference = r.getPaymentReference();
+        pickupStopId = r.getPickupStop() != null ? r.getPickupStop().getId() : null;
+        scheduleId = r.getSchedule() != null ? r.getSchedule().getId() : null;
+        seatNumber = r.getSeatNumber();
+        status = "CANCELLED";
+        username = r.getUsername();
+        cancelledAt = LocalDateTime.now();
+    }
+
+    // getters/setters
+    public LocalDateTime getBookingTime() { return bookingTime; }
+    public void setBookingTime(LocalDateTime bookingTime) { this.bookingTime = bookingTime; }
+    public String getCreatedBy() { return createdBy; }
+    public void setCreatedBy(String createdBy) { this.createdBy = createdBy; }
+    public Long getDropStopId() { return dropStopId; }
+    public void setDropStopId(Long dropStopId) { this.dropStopId = dropStopId; }
+    public Boolean getPaid() { return paid; }
+    public void setPaid(Boolean paid) { this.paid = paid; }
+    public String getPassengerEmail() { return passengerEmail; }
+    public void setPassengerEmail(String passengerEmail) { this.passengerEmail = passengerEmail; }
+    public String getPassengerName() { return passengerName; }
+    public void setPassengerName(String passengerName) { this.passengerName = passengerName; }
+    public String getPaymentMethod() { return paymentMethod; }
+    public void setPaymentMethod(String paymentMethod) { this.paymentMethod = paymentMethod; }
+    public String getPaymentReference() { return paymentReference; }
+    public void setPaymentReference(String paymentReference) { this.paymentReference = paymentReference; }
+    public Long getPickupStopId() { return pickupStopId; }
+    public void setPickupStopId(Long pickupStopId) { this.pickupStopId = pickupStopId; }
+    public Long getScheduleId() { return scheduleId; }
+    public void setScheduleId(Long scheduleId) { this.scheduleId = scheduleId; }
+    public int getSeatNumber() { return seatNumber; }
+    public void setSeatNumber(int seatNumber) { this.seatNumber = seatNumber; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+    public LocalDateTime getCancelledAt() { return cancelledAt; }
+    public void setCancelledAt(LocalDateTime cancelledAt) { this.cancelledAt = cancelledAt; }
+}
@@ -1,8 +1,10 @@
 package com.Transpo.transpo.model;
 
 import jakarta.persistence.*;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 @Entity
@@ -19,18 +21,7 @@ public class Route {
     @Column(nullable=false)
     private String destination;
 
-    // Optional named stops Stop01 .. Stop10
-    private String stop01;
-    private String stop02;
-    private String stop03;
-    private String stop04;
-    private String stop05;
-    private String stop06;
-    private String stop07;
-    private String stop08;
-    private String stop09;
-    private String stop10;
-
+    // Ordered stops; named stops without coordinates yet have null latitude/longitude
     @OneToMany(mappedBy = "route", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonManagedReference
     @OrderBy("sequence ASC")
@@ -52,36 +43,43 @@ public class Route {
     public String getDestination() { return destination; }
     public void setDestination(String destination) { this.destination = destination; }
 
-    public String getStop01() { return stop01; }
-    public void setStop01(String stop01) { this.stop01 = stop01; }
-
-    public String getStop02() { return stop02; }
-    public void setStop02(String stop02) { this.stop02 = stop02; }
-
-    public String getStop03() { return stop03; }
-    public void setStop03(String stop03) { this.stop03 = stop03; }
-
-    public String getStop04() { return stop04; }
-    public void setStop04(String stop04) { this.stop04 = stop04; }
-
-    public String getStop05() { return stop05; }
-    public void setStop05(String stop05) { this.stop05 = stop05; }
-
-    public String getStop06() { return stop06; }
-    public void setStop06(String stop06) { this.stop06 = stop06; }
-
-    public String getStop07() { return stop07; }
-    public void setStop07(String stop07) { this.stop07 = stop07; }
-
-    public String getStop08() { return stop08; }
-    public void setStop08(String stop08) { this.stop08 = stop08; }
-
-    public String getStop09() { return stop09; }
-    public void setStop09(String stop09) { this.stop09 = stop09; }
+    // Legacy named stops Stop01 .. Stop10: the first ten stops of the route in order
+    public String getStop01() { return stopName(1); }
+    public String getStop02() { return stopName(2); }
+    public String getStop03() { return stopName(3); }
+    public String getStop04() { return stopName(4); }
+    public String getStop05() { return stopName(5); }
+    public String getStop06() { return stopName(6); }
+    public String getStop07() { return stopName(7); }
+    public String getStop08() { return stopName(8); }
+    public String getStop09() { return stopName(9); }
+    public String getStop10() { return stopName(10); }
+
+    /**
+     * Stop names in route order (sequence, unsequenced stops last).
+     */
+    @JsonIgnore
+    public List<String> getStopNames() {
+        List<String> names = new ArrayList<>(busStops.size());
+        for (BusStop stop : orderedStops()) {
+            names.add(stop.getName());
+        }
+        return names;
+    }
 
-    public String getStop10() { return stop10; }
-    public void setStop10(String stop10) { this.stop10 = stop10; }
+    /**
+     * Stops sorted by sequence, unsequenced stops last.
+     */
+    public List<BusStop> orderedStops() {
+        List<BusStop> ordered = new ArrayList<>(busStops);
+        ordered.sort(Comparator.comparing(BusStop::getSequence, Comparator.nullsLast(Comparator.naturalOrder())));
+        return ordered;
+    }
 
+    private String stopName(int position) {
+        List<BusStop> ordered = orderedStops();
+        return position <= ordered.size() ? ordered.get(position - 1).getName() : null;
+    }
 
     public List<BusStop> getBusStops() { return busStops; }
     public void setBusStops(List<BusStop> busStops) { this.busStops = busStops; }
@@ -20,4 +20,17 @@ public interface BusStopRepository extends JpaRepository<BusStop, Long> {
 
     @Query("SELECT COUNT(bs) > 0 FROM BusStop bs WHERE bs.id = :stopId AND bs.route.id = :routeId")
     boolean existsByIdAndRouteId(@Param("stopId") Long stopId, @Param("routeId") Long routeId);
-}
\ No newline at end of file
+
+    /**
+     * id, route id, name, latitude, longitude of every stop, for building the spatial index.
+     */
+    @Query("SELECT bs.id, r.id, bs.name, bs.latitude, bs.longitude FROM BusStop bs LEFT JOIN bs.route r")
+    List<Object[]> findAllPoints();
+
+    /**
+     * id, route id, name, latitude, longitude, sequence of every stop on a route, in route and stop order.
+     */
+    @Query("SELECT bs.id, r.id, bs.name, bs.latitude, bs.longitude, bs.sequence FROM BusStop bs JOIN bs.route r " +
+           "ORDER BY r.id, CASE WHEN bs.sequence IS NULL THEN 1 ELSE 0 END, bs.sequence, bs.id")
+    List<Object[]> findRouteStopPoints();
+}
@@ -2,7 +2,9 @@ package com.Transpo.transpo.repository;
 
 import com.Transpo.transpo.model.ConductorAssignment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface ConductorAssignmentRepository extends JpaRepository<ConductorAssignment, Long> {
@@ -10,4 +12,9 @@ public interface ConductorAssignmentRepository extends JpaRepository<ConductorAs
     Optional<ConductorAssignment> findByConductorId(Long conductorId);
 
     Optional<ConductorAssignment> findByBusId(Long busId);
+
+    Optional<ConductorAssignment> findByConductorUsername(String username);
+
+    @Query("SELECT ca FROM ConductorAssignment ca JOIN FETCH ca.conductor JOIN FETCH ca.bus")
+    List<ConductorAssignment> findAllWithConductorAndBus();
 }
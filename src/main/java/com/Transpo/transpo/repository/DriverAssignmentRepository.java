@@ -4,6 +4,7 @@ import com.Transpo.transpo.model.DriverAssignment;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import java.util.List;
 import java.util.Optional;
 
 public interface DriverAssignmentRepository extends JpaRepository<DriverAssignment, Long> {
@@ -16,4 +17,7 @@ public interface DriverAssignmentRepository extends JpaRepository<DriverAssignme
     
     @Query("SELECT da FROM DriverAssignment da WHERE da.driver.id = :driverId")
     Optional<DriverAssignment> findAssignmentByDriver(@Param("driverId") Long driverId);
+
+    @Query("SELECT da FROM DriverAssignment da JOIN FETCH da.driver JOIN FETCH da.bus")
+    List<DriverAssignment> findAllWithDriverAndBus();
 }
\ No newline at end of file
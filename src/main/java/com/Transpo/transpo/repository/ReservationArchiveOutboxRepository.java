@@ -0,0 +1,33 @@
+package com.Transpo.transpo.repository;
+
+import com.Transpo.transpo.model.ReservationArchiveEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ReservationArchiveOutboxRepository extends JpaRepository<ReservationArchiveEvent, Long> {
+
+    List<ReservationArchiveEvent> findByUsername(String username);
+
+    // Oldest pending events first
+    @Query(value = "SELECT id FROM reservation_archive_outbox ORDER BY id LIMIT :limit", nativeQuery = true)
+    List<Long> findBatchIds(@Param("limit") int limit);
+
+    // Set-based copy of a batch into history: one statement however large the batch
+    @Modifying
+    @Query(value = "INSERT INTO reservation_history (booking_time, created_by, drop_stop_id, paid, passenger_email, " +
+            "passenger_name, payment_method, payment_reference, pickup_stop_id, schedule_id, seat_number, status, " +
+            "username, cancelled_at) " +
+            "SELECT booking_time, created_by, drop_stop_id, paid, passenger_email, passenger_name, payment_method, " +
+            "payment_reference, pickup_stop_id, schedule_id, seat_number, status, username, cancelled_at " +
+            "FROM reservation_archive_outbox WHERE id IN :ids ORDER BY id", nativeQuery = true)
+    int copyToHistory(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM ReservationArchiveEvent e WHERE e.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
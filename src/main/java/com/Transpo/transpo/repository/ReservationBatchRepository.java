@@ -0,0 +1,113 @@
+package com.Transpo.transpo.repository;
+
+import com.Transpo.transpo.model.Reservation;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plain JDBC batch insert for reservations. Hibernate cannot batch inserts of
+ * IDENTITY-keyed entities, so group bookings go through a single JDBC batch
+ * (one round trip) and read the generated ids back.
+ */
+@Repository
+public class ReservationBatchRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO reservations (schedule_id, passenger_name, passenger_email, seat_number, " +
+            "pickup_stop_id, drop_stop_id, booking_time, paid, username, created_by, status) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String MOVE_SQL =
+            "UPDATE reservations SET schedule_id = ?, seat_number = ? WHERE id = ? AND schedule_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ReservationBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert all reservations in one JDBC batch and set their generated ids.
+     */
+    public List<Reservation> insertAll(List<Reservation> reservations) {
+        if (reservations.isEmpty()) return reservations;
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT_SQL, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Reservation r = reservations.get(i);
+                        ps.setLong(1, r.getSchedule().getId());
+                        ps.setString(2, r.getPassengerName());
+                        ps.setString(3, r.getPassengerEmail());
+                        ps.setInt(4, r.getSeatNumber());
+                        setNullableLong(ps, 5, r.getPickupStop() != null ? r.getPickupStop().getId() : null);
+                        setNullableLong(ps, 6, r.getDropStop() != null ? r.getDropStop().getId() : null);
+                        ps.setTimestamp(7, r.getBookingTime() != null ? Timestamp.valueOf(r.getBookingTime()) : null);
+                        ps.setBoolean(8, r.isPaid());
+                        ps.setString(9, r.getUsername());
+                        ps.setString(10, r.getCreatedBy());
+                        ps.setString(11, r.getStatus());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return reservations.size();
+                    }
+                },
+                keys);
+
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < reservations.size() && i < generated.size(); i++) {
+            Object id = generated.get(i).get("id");
+            if (id instanceof Number n) {
+                reservations.get(i).setId(n.longValue());
+            }
+        }
+        return reservations;
+    }
+
+    /**
+     * Move reservations to seats of another schedule in one JDBC batch. A reservation that is no
+     * longer on the schedule it was read from is left alone and gets 0 in the returned counts.
+     */
+    public int[] moveAll(Long targetScheduleId, List<SeatMove> moves) {
+        if (moves.isEmpty()) return new int[0];
+        return jdbcTemplate.batchUpdate(MOVE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                SeatMove move = moves.get(i);
+                ps.setLong(1, targetScheduleId);
+                ps.setInt(2, move.seatNumber());
+                ps.setLong(3, move.reservationId());
+                ps.setLong(4, move.fromScheduleId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return moves.size();
+            }
+        });
+    }
+
+    public record SeatMove(long reservationId, long fromScheduleId, int seatNumber) {}
+
+    private static void setNullableLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.BIGINT);
+        } else {
+            ps.setLong(index, value);
+        }
+    }
+}
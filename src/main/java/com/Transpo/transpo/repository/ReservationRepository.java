@@ -1,7 +1,10 @@
 package com.Transpo.transpo.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import com.Transpo.transpo.model.Reservation;
+import java.util.Collection;
 import java.util.List;
 
 
@@ -12,4 +15,61 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>
     List<Reservation> findByUsername(String username);
     List<Reservation> findByCreatedBy(String createdBy);
     List<Reservation> findByScheduleIdIn(List<Long> scheduleIds);
+    boolean existsByPickupStopIdOrDropStopId(Long pickupStopId, Long dropStopId);
+
+    // Seats that block a booking: (scheduleId, bus totalSeats, seatNumber, pickup sequence, drop sequence)
+    @Query("SELECT s.id, b.totalSeats, r.seatNumber, ps.sequence, ds.sequence FROM Reservation r " +
+           "JOIN r.schedule s JOIN s.bus b LEFT JOIN r.pickupStop ps LEFT JOIN r.dropStop ds " +
+           "WHERE r.status IS NULL OR UPPER(r.status) IN ('RESERVED', 'PAID') OR r.paid = true")
+    List<Object[]> findActiveSeatClaims();
+
+    // Active reservations to rebook: (id, scheduleId, bus totalSeats, seatNumber, pickup sequence, drop sequence)
+    @Query("SELECT r.id, s.id, b.totalSeats, r.seatNumber, ps.sequence, ds.sequence FROM Reservation r " +
+           "JOIN r.schedule s JOIN s.bus b LEFT JOIN r.pickupStop ps LEFT JOIN r.dropStop ds " +
+           "WHERE s.id IN :scheduleIds " +
+           "AND (r.status IS NULL OR UPPER(r.status) IN ('RESERVED', 'PAID') OR r.paid = true) " +
+           "ORDER BY r.bookingTime, r.id")
+    List<Object[]> findRebookingRows(@Param("scheduleIds") Collection<Long> scheduleIds);
+
+    // (seatNumber, pickup sequence, drop sequence) of the active reservations of one schedule
+    @Query("SELECT r.seatNumber, ps.sequence, ds.sequence FROM Reservation r " +
+           "LEFT JOIN r.pickupStop ps LEFT JOIN r.dropStop ds WHERE r.schedule.id = :scheduleId " +
+           "AND (r.status IS NULL OR UPPER(r.status) IN ('RESERVED', 'PAID') OR r.paid = true)")
+    List<Object[]> findActiveSeatLegs(@Param("scheduleId") Long scheduleId);
+
+    // (seatNumber, paid, passengerName, username, pickup sequence, drop sequence) for the seat grid
+    @Query("SELECT r.seatNumber, r.paid, r.passengerName, r.username, ps.sequence, ds.sequence FROM Reservation r " +
+           "LEFT JOIN r.pickupStop ps LEFT JOIN r.dropStop ds WHERE r.schedule.id = :scheduleId ORDER BY r.id")
+    List<Object[]> findSeatGridRows(@Param("scheduleId") Long scheduleId);
+
+    // Every reservation on the schedules of one bus, with everything ReservationMapper reads, in one statement
+    @Query("SELECT r FROM Reservation r JOIN FETCH r.schedule s JOIN FETCH s.bus b JOIN FETCH s.route " +
+           "LEFT JOIN FETCH r.pickupStop LEFT JOIN FETCH r.dropStop " +
+           "WHERE b.id = :busId ORDER BY s.departureTime, s.id, r.seatNumber")
+    List<Reservation> findByBusIdWithDetails(@Param("busId") Long busId);
+
+    // (id, scheduleId, passengerName, passengerEmail, seatNumber, bookingTime) of the reservations of one bus
+    @Query("SELECT r.id, s.id, r.passengerName, r.passengerEmail, r.seatNumber, r.bookingTime " +
+           "FROM Reservation r JOIN r.schedule s WHERE s.bus.id = :busId ORDER BY s.departureTime, s.id, r.seatNumber")
+    List<Object[]> findSummariesByBusId(@Param("busId") Long busId);
+
+    // Reservation counts per (pickup stop, drop stop) for a bus on routes between origin and destination
+    @Query("SELECT ps.id, ds.id, COUNT(r) FROM Reservation r JOIN r.schedule s JOIN s.route sr " +
+           "LEFT JOIN r.pickupStop ps LEFT JOIN r.dropStop ds " +
+           "WHERE s.bus.id = :busId AND sr.origin = :origin AND sr.destination = :destination " +
+           "GROUP BY ps.id, ds.id")
+    List<Object[]> countByStopPairs(@Param("busId") Long busId,
+                                    @Param("origin") String origin,
+                                    @Param("destination") String destination);
+
+    // pickup stop id, drop stop id, name and seat of the passengers picked up or dropped at one stop (any stop when null)
+    @Query("SELECT ps.id, ds.id, r.passengerName, r.seatNumber FROM Reservation r JOIN r.schedule s JOIN s.route sr " +
+           "LEFT JOIN r.pickupStop ps LEFT JOIN r.dropStop ds " +
+           "WHERE s.bus.id = :busId AND sr.origin = :origin AND sr.destination = :destination " +
+           "AND (:stopId IS NULL OR ps.id = :stopId OR ds.id = :stopId) " +
+           "ORDER BY s.id, r.id")
+    List<Object[]> findStopPassengers(@Param("busId") Long busId,
+                                      @Param("origin") String origin,
+                                      @Param("destination") String destination,
+                                      @Param("stopId") Long stopId);
 }
@@ -2,8 +2,14 @@ package com.Transpo.transpo.repository;
 
 import com.Transpo.transpo.model.Route;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import java.util.List;
 import java.util.Optional;
 
 public interface RouteRepository extends JpaRepository<Route, Long> {
     Optional<Route> findByOriginAndDestination(String origin, String destination);
+
+    // Routes with their stops in one statement (stop names are read from the stops)
+    @Query("SELECT DISTINCT r FROM Route r LEFT JOIN FETCH r.busStops ORDER BY r.id")
+    List<Route> findAllWithStops();
 }
@@ -0,0 +1,102 @@
+package com.Transpo.transpo.repository;
+
+import com.Transpo.transpo.dto.ScheduleResponseDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keyset-paginated schedule listing. Only the filters that are set end up in the
+ * JPQL, so the database can use the (departure_time, id) and bus/route indexes
+ * and reads one page instead of the whole timetable.
+ */
+@Repository
+public class ScheduleQueryRepository {
+
+    private static final String SELECT =
+            "SELECT new com.Transpo.transpo.dto.ScheduleResponseDTO(" +
+            "s.id, b.id, b.busNumber, r.id, r.origin, r.destination, " +
+            "s.departureTime, s.fare, s.availableSeats, b.totalSeats) " +
+            "FROM Schedule s JOIN s.bus b JOIN s.route r WHERE 1 = 1";
+
+    private final EntityManager em;
+
+    public ScheduleQueryRepository(EntityManager em) {
+        this.em = em;
+    }
+
+    /**
+     * Filters for a page of schedules; null fields are ignored.
+     */
+    public static class Filter {
+        public LocalDateTime from;      // departureTime >= from
+        public LocalDateTime to;        // departureTime < to
+        public String origin;
+        public String destination;
+        public Long busId;
+        public String busNumber;
+        public LocalDateTime afterTime; // keyset: last (departureTime, id) of the previous page
+        public Long afterId;
+    }
+
+    /**
+     * Schedules ordered by (departureTime, id), starting after the keyset in the filter.
+     */
+    public List<ScheduleResponseDTO> findPage(Filter f, int limit) {
+        return query(f, true).setMaxResults(limit).getResultList();
+    }
+
+    /**
+     * Every schedule matching the filter, including those without a departure time (listed last).
+     */
+    public List<ScheduleResponseDTO> findAll(Filter f) {
+        return query(f, false).getResultList();
+    }
+
+    private TypedQuery<ScheduleResponseDTO> query(Filter f, boolean keyset) {
+        StringBuilder jpql = new StringBuilder(SELECT);
+        Map<String, Object> params = new HashMap<>();
+        if (keyset) {
+            jpql.append(" AND s.departureTime IS NOT NULL");
+        }
+        if (f.from != null) {
+            jpql.append(" AND s.departureTime >= :from");
+            params.put("from", f.from);
+        }
+        if (f.to != null) {
+            jpql.append(" AND s.departureTime < :to");
+            params.put("to", f.to);
+        }
+        if (f.origin != null) {
+            jpql.append(" AND LOWER(r.origin) = LOWER(:origin)");
+            params.put("origin", f.origin);
+        }
+        if (f.destination != null) {
+            jpql.append(" AND LOWER(r.destination) = LOWER(:destination)");
+            params.put("destination", f.destination);
+        }
+        if (f.busId != null) {
+            jpql.append(" AND b.id = :busId");
+            params.put("busId", f.busId);
+        }
+        if (f.busNumber != null) {
+            jpql.append(" AND b.busNumber = :busNumber");
+            params.put("busNumber", f.busNumber);
+        }
+        if (keyset && f.afterTime != null && f.afterId != null) {
+            jpql.append(" AND (s.departureTime > :afterTime OR (s.departureTime = :afterTime AND s.id > :afterId))");
+            params.put("afterTime", f.afterTime);
+            params.put("afterId", f.afterId);
+        }
+        jpql.append(keyset ? " ORDER BY s.departureTime, s.id" : " ORDER BY s.departureTime NULLS LAST, s.id");
+
+        TypedQuery<ScheduleResponseDTO> query = em.createQuery(jpql.toString(), ScheduleResponseDTO.class);
+        params.forEach(query::setParameter);
+        return query;
+    }
+}
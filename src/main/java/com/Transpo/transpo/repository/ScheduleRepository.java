@@ -2,13 +2,18 @@ package com.Transpo.transpo.repository;
 
 import com.Transpo.transpo.dto.ScheduleResponseDTO;
 import com.Transpo.transpo.model.Bus;
+import com.Transpo.transpo.model.Route;
 import com.Transpo.transpo.model.Schedule;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import jakarta.persistence.LockModeType;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,15 +21,32 @@ public interface ScheduleRepository extends JpaRepository<Schedule, Long> {
 
     List<Schedule> findByRouteOriginAndRouteDestination(String origin, String destination);
 
+    Optional<Schedule> findFirstByBus_IdOrderByIdAsc(Long busId);
+
+    Optional<Schedule> findFirstByBus_BusNumberIgnoreCaseOrderByIdAsc(String busNumber);
+
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("select s from Schedule s where s.id = :id")
     Schedule findScheduleById(@Param("id") Long id);
 
+    // availableSeats is derived from the seat inventory, see AvailableSeatsUpdater
+    @Modifying
+    @Query("UPDATE Schedule s SET s.availableSeats = (SELECT b.totalSeats FROM Bus b WHERE b = s.bus) - :taken " +
+           "WHERE s.id = :id AND s.bus IS NOT NULL")
+    int setAvailableFromTaken(@Param("id") Long id, @Param("taken") int taken);
+
+    // Same count from the reservations table: seats with at least one active reservation
+    @Modifying
+    @Query("UPDATE Schedule s SET s.availableSeats = (SELECT b.totalSeats FROM Bus b WHERE b = s.bus) - " +
+           "(SELECT COUNT(DISTINCT r.seatNumber) FROM Reservation r WHERE r.schedule = s " +
+           "AND (r.status IS NULL OR UPPER(r.status) IN ('RESERVED', 'PAID') OR r.paid = true)) " +
+           "WHERE s.bus IS NOT NULL")
+    int recountAvailableSeats();
+
     // Custom query to get schedule with all details
     @Query("SELECT new com.Transpo.transpo.dto.ScheduleResponseDTO(" +
            "s.id, b.id, b.busNumber, r.id, r.origin, r.destination, " +
-           "s.departureTime, s.fare, s.availableSeats, " +
-           "r.stop01, r.stop02, r.stop03, r.stop04, r.stop05, r.stop06, r.stop07, r.stop08, r.stop09, r.stop10) " +
+           "s.departureTime, s.fare, s.availableSeats, b.totalSeats) " +
            "FROM Schedule s " +
            "JOIN s.bus b " +
            "JOIN s.route r " +
@@ -33,8 +55,7 @@ public interface ScheduleRepository extends JpaRepository<Schedule, Long> {
 
     @Query("SELECT new com.Transpo.transpo.dto.ScheduleResponseDTO(" +
            "s.id, b.id, b.busNumber, r.id, r.origin, r.destination, " +
-           "s.departureTime, s.fare, s.availableSeats, " +
-           "r.stop01, r.stop02, r.stop03, r.stop04, r.stop05, r.stop06, r.stop07, r.stop08, r.stop09, r.stop10) " +
+           "s.departureTime, s.fare, s.availableSeats, b.totalSeats) " +
            "FROM Schedule s " +
            "JOIN s.bus b " +
            "JOIN s.route r")
@@ -42,35 +63,38 @@ public interface ScheduleRepository extends JpaRepository<Schedule, Long> {
 
     List<Schedule> findByBus(Bus bus);
 
-       @Query("SELECT new com.Transpo.transpo.dto.ScheduleResponseDTO(\n" +
-                 "           s.id, b.id, b.busNumber, r.id, r.origin, r.destination, \n" +
-                 "           s.departureTime, s.fare, s.availableSeats, \n" +
-                 "           r.stop01, r.stop02, r.stop03, r.stop04, r.stop05, r.stop06, r.stop07, r.stop08, r.stop09, r.stop10) \n" +
-           "FROM Schedule s \n" +
-           "JOIN s.bus b \n" +
-           "JOIN s.route r \n" +
-           "WHERE ( \n" +
-           "  LOWER(r.stop01) LIKE LOWER(CONCAT('%', :pickup, '%')) OR \n" +
-           "  LOWER(r.stop02) LIKE LOWER(CONCAT('%', :pickup, '%')) OR \n" +
-           "  LOWER(r.stop03) LIKE LOWER(CONCAT('%', :pickup, '%')) OR \n" +
-           "  LOWER(r.stop04) LIKE LOWER(CONCAT('%', :pickup, '%')) OR \n" +
-           "  LOWER(r.stop05) LIKE LOWER(CONCAT('%', :pickup, '%')) OR \n" +
-           "  LOWER(r.stop06) LIKE LOWER(CONCAT('%', :pickup, '%')) OR \n" +
-           "  LOWER(r.stop07) LIKE LOWER(CONCAT('%', :pickup, '%')) OR \n" +
-           "  LOWER(r.stop08) LIKE LOWER(CONCAT('%', :pickup, '%')) OR \n" +
-           "  LOWER(r.stop09) LIKE LOWER(CONCAT('%', :pickup, '%')) OR \n" +
-           "  LOWER(r.stop10) LIKE LOWER(CONCAT('%', :pickup, '%')) \n" +
-           ") AND ( \n" +
-           "  LOWER(r.stop01) LIKE LOWER(CONCAT('%', :drop, '%')) OR \n" +
-           "  LOWER(r.stop02) LIKE LOWER(CONCAT('%', :drop, '%')) OR \n" +
-           "  LOWER(r.stop03) LIKE LOWER(CONCAT('%', :drop, '%')) OR \n" +
-           "  LOWER(r.stop04) LIKE LOWER(CONCAT('%', :drop, '%')) OR \n" +
-           "  LOWER(r.stop05) LIKE LOWER(CONCAT('%', :drop, '%')) OR \n" +
-           "  LOWER(r.stop06) LIKE LOWER(CONCAT('%', :drop, '%')) OR \n" +
-           "  LOWER(r.stop07) LIKE LOWER(CONCAT('%', :drop, '%')) OR \n" +
-           "  LOWER(r.stop08) LIKE LOWER(CONCAT('%', :drop, '%')) OR \n" +
-           "  LOWER(r.stop09) LIKE LOWER(CONCAT('%', :drop, '%')) OR \n" +
-           "  LOWER(r.stop10) LIKE LOWER(CONCAT('%', :drop, '%')) \n" +
-           ")")
-    List<ScheduleResponseDTO> searchByPickupAndDrop(@Param("pickup") String pickup, @Param("drop") String drop);
-}
\ No newline at end of file
+    @Query("SELECT s FROM Schedule s JOIN FETCH s.bus b JOIN FETCH s.route WHERE b.busNumber = :busNumber")
+    List<Schedule> findByBusNumberWithRoute(@Param("busNumber") String busNumber);
+
+    @Query("SELECT s FROM Schedule s JOIN FETCH s.bus JOIN FETCH s.route WHERE s.id IN :ids")
+    List<Schedule> findWithBusByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT DISTINCT r FROM Schedule s JOIN s.route r WHERE s.bus.id = :busId")
+    List<Route> findRoutesByBusId(@Param("busId") Long busId);
+
+    // Schedules of the given routes; route ids come from the in-memory StopSearchIndex
+    @Query("SELECT new com.Transpo.transpo.dto.ScheduleResponseDTO(" +
+           "s.id, b.id, b.busNumber, r.id, r.origin, r.destination, " +
+           "s.departureTime, s.fare, s.availableSeats, b.totalSeats) " +
+           "FROM Schedule s " +
+           "JOIN s.bus b " +
+           "JOIN s.route r " +
+           "WHERE r.id IN :routeIds " +
+           "ORDER BY s.departureTime, s.id")
+    List<ScheduleResponseDTO> findScheduleDetailsByRouteIds(@Param("routeIds") Collection<Long> routeIds);
+
+    // Schedules of a bus departing in [from, to)
+    @Query("SELECT s FROM Schedule s WHERE s.bus.id = :busId AND s.departureTime >= :from AND s.departureTime < :to " +
+           "ORDER BY s.departureTime, s.id")
+    List<Schedule> findByBusIdAndDepartureBetween(@Param("busId") Long busId,
+                                                  @Param("from") LocalDateTime from,
+                                                  @Param("to") LocalDateTime to);
+
+    // (schedule id, route id) of the latest departure of a bus in (since, now]; used for live ETAs
+    @Query("SELECT s.id, s.route.id FROM Schedule s WHERE s.bus.id = :busId " +
+           "AND s.departureTime <= :now AND s.departureTime > :since ORDER BY s.departureTime DESC, s.id DESC")
+    List<Object[]> findLatestDeparture(@Param("busId") Long busId,
+                                       @Param("now") LocalDateTime now,
+                                       @Param("since") LocalDateTime since,
+                                       Pageable page);
+}
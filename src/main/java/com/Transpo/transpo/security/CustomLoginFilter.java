@@ -1,5 +1,6 @@
 package com.Transpo.transpo.security;
 
+import com.Transpo.transpo.config.MetricsRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -23,11 +24,20 @@ public class CustomLoginFilter extends OncePerRequestFilter {
     private final AuthenticationManager authenticationManager;
     private final SecurityContextRepository securityContextRepository;
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MetricsRegistry metrics;
+    private final MetricsRegistry.Timer succeeded;
+    private final MetricsRegistry.Timer failed;
+    private final MetricsRegistry.Timer errored;
 
     public CustomLoginFilter(AuthenticationManager authenticationManager,
-                            SecurityContextRepository securityContextRepository) {
+                            SecurityContextRepository securityContextRepository,
+                            MetricsRegistry metrics) {
         this.authenticationManager = authenticationManager;
         this.securityContextRepository = securityContextRepository;
+        this.metrics = metrics;
+        this.succeeded = metrics.timer("transpo_login_seconds", "outcome", "success");
+        this.failed = metrics.timer("transpo_login_seconds", "outcome", "failure");
+        this.errored = metrics.timer("transpo_login_seconds", "outcome", "error");
     }
 
     @Override
@@ -42,6 +52,7 @@ public class CustomLoginFilter extends OncePerRequestFilter {
             return;
         }
 
+        long start = System.nanoTime();
         try {
             // Parse request body
             Map<String, String> credentials = objectMapper.readValue(
@@ -80,13 +91,18 @@ public class CustomLoginFilter extends OncePerRequestFilter {
             );
             
             objectMapper.writeValue(response.getWriter(), responseBody);
+            succeeded.record(System.nanoTime() - start);
 
         } catch (AuthenticationException e) {
+            failed.record(System.nanoTime() - start);
+            // Tagged by exception type (bad credentials, locked, disabled...), never by username
+            metrics.counter("transpo_login_failures_total", "reason", e.getClass().getSimpleName()).increment();
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
             response.setContentType("application/json");
             objectMapper.writeValue(response.getWriter(), 
                 Map.of("error", "Login failed", "message", e.getMessage()));
         } catch (Exception e) {
+            errored.record(System.nanoTime() - start);
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             response.setContentType("application/json");
             objectMapper.writeValue(response.getWriter(), 
@@ -1,5 +1,6 @@
 package com.Transpo.transpo.security;
 
+import com.Transpo.transpo.config.MetricsRegistry;
 import com.Transpo.transpo.service.CustomUserDetailService;  // ADD THIS IMPORT
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -22,10 +23,13 @@ import org.springframework.security.web.context.SecurityContextRepository;
 public class SecurityConfig {
 
     private final AuthenticationConfiguration authenticationConfiguration;
+    private final MetricsRegistry metrics;
 
     public SecurityConfig(CustomUserDetailService userDetailsService,
-                          AuthenticationConfiguration authenticationConfiguration) {
+                          AuthenticationConfiguration authenticationConfiguration,
+                          MetricsRegistry metrics) {
         this.authenticationConfiguration = authenticationConfiguration;
+        this.metrics = metrics;
     }
 
     @Bean
@@ -89,6 +93,8 @@ public class SecurityConfig {
                     "/api/reservations/by-email").permitAll()
                 .requestMatchers(HttpMethod.GET, "/api/ratings/me").authenticated()
                 .requestMatchers(HttpMethod.POST, "/api/ratings").permitAll()
+                // Prometheus scrape; MetricsController admits admins and holders of the scrape token
+                .requestMatchers(HttpMethod.GET, "/metrics").permitAll()
                 
                 // Reservation endpoints
                 .requestMatchers(HttpMethod.POST, "/api/reservations/**")
@@ -133,7 +139,8 @@ public class SecurityConfig {
             // Add custom filter to handle /auth/login
         .addFilterBefore(new CustomLoginFilter(
             authenticationConfiguration.getAuthenticationManager(),
-            securityContextRepository()), 
+            securityContextRepository(),
+            metrics), 
                 UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
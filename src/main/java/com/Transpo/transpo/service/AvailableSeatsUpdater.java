@@ -0,0 +1,64 @@
+package com.Transpo.transpo.service;
+
+import com.Transpo.transpo.repository.ScheduleRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Keeps schedules.available_seats in step with the in-memory seat inventory. Bookings and
+ * cancellations no longer touch the counter in their own transactions: the inventory only
+ * changes a seat's state once the matching transaction has committed or rolled back, so the
+ * counter is rewritten from its taken-seat count for every schedule whose count changed.
+ * Seats claimed by a running booking or a hold count as taken until they are released.
+ * On startup every counter is recomputed from the reservations table first.
+ */
+@Service
+public class AvailableSeatsUpdater {
+
+    private final ScheduleRepository scheduleRepo;
+    private final SeatInventoryService seatInventory;
+    private final TransactionTemplate tx;
+
+    public AvailableSeatsUpdater(ScheduleRepository scheduleRepo,
+                                 SeatInventoryService seatInventory,
+                                 PlatformTransactionManager transactionManager) {
+        this.scheduleRepo = scheduleRepo;
+        this.seatInventory = seatInventory;
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resync() {
+        tx.executeWithoutResult(status -> scheduleRepo.recountAvailableSeats());
+        // Schedules claimed on before the recount may hold seats without a committed reservation
+        seatInventory.markAllLoaded();
+        flush();
+    }
+
+    /**
+     * Write the counters of the schedules changed since the last run. Returns how many were written.
+     */
+    @Scheduled(fixedDelayString = "${transpo.available-seats.flush-interval-ms:200}")
+    public synchronized int flush() {
+        List<Long> changed = seatInventory.drainCountChanges();
+        if (changed.isEmpty()) return 0;
+        try {
+            tx.executeWithoutResult(status -> {
+                for (Long id : changed) {
+                    int taken = seatInventory.loadedTakenCount(id);
+                    if (taken >= 0) scheduleRepo.setAvailableFromTaken(id, taken);
+                }
+            });
+        } catch (RuntimeException e) {
+            seatInventory.markCountChanged(changed);
+            throw e;
+        }
+        return changed.size();
+    }
+}
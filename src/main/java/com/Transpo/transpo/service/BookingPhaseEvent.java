@@ -0,0 +1,40 @@
+package com.Transpo.transpo.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JFR event for one phase of a booking. Off unless a recording enables it, e.g. with
+ * jfr/booking.jfc; see {@link BookingProfiler}.
+ */
+@Name("transpo.BookingPhase")
+@Label("Booking Phase")
+@Category({"Transpo", "Booking"})
+@Description("One phase of booking a seat")
+@Enabled(false)
+@StackTrace(false)
+@Threshold("1 ms")
+public class BookingPhaseEvent extends Event {
+
+    @Label("Schedule Id")
+    long scheduleId;
+
+    @Label("Seat Number")
+    int seatNumber;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Outcome")
+    @Description("OK, or CONFLICT/ERROR for the phase a failed booking stopped in")
+    String outcome;
+
+    // Not an event field: start time for the in-process hot-schedule summary
+    transient long startNanos;
+}
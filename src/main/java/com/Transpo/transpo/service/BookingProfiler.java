@@ -0,0 +1,215 @@
+package com.Transpo.transpo.service;
+
+import com.Transpo.transpo.exception.BadRequestException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Times the phases of booking a seat. Every phase is a {@link BookingPhaseEvent} for JFR,
+ * recorded only while a recording enables it (jfr/booking.jfc), and each booking is added to
+ * per-schedule totals with its outcome. The totals let the hottest schedules be listed without
+ * a recording. At most max-schedules schedules are tracked until the totals are reset.
+ */
+@Service
+public class BookingProfiler {
+
+    public static final int MAX_LIMIT = 100;
+
+    public enum Phase {
+        SCHEDULE_LOAD, STOP_VALIDATION, CONFLICT_CHECK, RULE_VALIDATION, SEAT_CLAIM, INSERT
+    }
+
+    public enum Outcome { OK, CONFLICT, ERROR }
+
+    private static final Phase[] PHASES = Phase.values();
+    private static final Outcome[] OUTCOMES = Outcome.values();
+
+    private final int maxSchedules;
+    private final Map<Long, ScheduleTotals> totals = new ConcurrentHashMap<>();
+    private final LongAdder untracked = new LongAdder();
+    private volatile Instant since = Instant.now();
+
+    public BookingProfiler(@Value("${transpo.booking-profile.max-schedules:10000}") int maxSchedules) {
+        this.maxSchedules = maxSchedules;
+    }
+
+    /**
+     * Start timing one booking. Call {@link Booking#end} in a finally block.
+     */
+    public Booking booking(Long scheduleId, int seatNumber) {
+        return new Booking(scheduleId, seatNumber);
+    }
+
+    private void add(Booking booking) {
+        ScheduleTotals t = totals.get(booking.scheduleId);
+        if (t == null) {
+            if (totals.size() >= maxSchedules) {
+                untracked.increment();
+                return;
+            }
+            t = totals.computeIfAbsent(booking.scheduleId, id -> new ScheduleTotals());
+        }
+        t.add(booking);
+    }
+
+    /**
+     * The phases of one booking, on the thread running it. A phase runs until the next one
+     * starts or the booking ends; the phase running at the end gets the booking's outcome,
+     * which stays ERROR unless {@link #ok} or {@link #conflict} was called.
+     */
+    public final class Booking {
+        private final Long scheduleId;
+        private final int seatNumber;
+        private final long[] nanos = new long[PHASES.length];
+        private final long[] seen = new long[PHASES.length];
+        private Outcome outcome = Outcome.ERROR;
+        private BookingPhaseEvent event;
+        private Phase phase;
+        private boolean ended;
+
+        private Booking(Long scheduleId, int seatNumber) {
+            this.scheduleId = scheduleId;
+            this.seatNumber = seatNumber;
+        }
+
+        public void phase(Phase next) {
+            endPhase(Outcome.OK);
+            event = new BookingPhaseEvent();
+            event.begin();
+            event.startNanos = System.nanoTime();
+            phase = next;
+        }
+
+        public void ok() {
+            outcome = Outcome.OK;
+        }
+
+        public void conflict() {
+            outcome = Outcome.CONFLICT;
+        }
+
+        public void end() {
+            if (ended) return;
+            ended = true;
+            endPhase(outcome);
+            add(this);
+        }
+
+        private void endPhase(Outcome phaseOutcome) {
+            if (phase == null) return;
+            int i = phase.ordinal();
+            nanos[i] += System.nanoTime() - event.startNanos;
+            seen[i]++;
+            event.end();
+            if (event.shouldCommit()) {
+                event.scheduleId = scheduleId;
+                event.seatNumber = seatNumber;
+                event.phase = phase.name();
+                event.outcome = phaseOutcome.name();
+                event.commit();
+            }
+            phase = null;
+            event = null;
+        }
+    }
+
+    /**
+     * Schedules with the most booking time since the last reset, most first.
+     */
+    public Map<String, Object> hotspots(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        // Snapshot the totals first: they keep moving while we sort
+        List<Ranked> ranked = new ArrayList<>(totals.size());
+        totals.forEach((id, t) -> ranked.add(new Ranked(id, t, t.totalNanos())));
+        ranked.sort((a, b) -> Long.compare(b.totalNanos, a.totalNanos));
+
+        List<Map<String, Object>> schedules = new ArrayList<>();
+        for (Ranked r : ranked.subList(0, Math.min(limit, ranked.size()))) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("scheduleId", r.scheduleId);
+            row.put("bookings", r.totals.bookings());
+            row.put("outcomes", r.totals.outcomes());
+            row.put("totalMillis", r.totalNanos / 1_000_000.0);
+            row.put("phases", r.totals.phases());
+            schedules.add(row);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("since", since.toString());
+        result.put("trackedSchedules", totals.size());
+        result.put("untrackedBookings", untracked.sum());
+        result.put("schedules", schedules);
+        return result;
+    }
+
+    public void reset() {
+        totals.clear();
+        untracked.reset();
+        since = Instant.now();
+    }
+
+    private record Ranked(Long scheduleId, ScheduleTotals totals, long totalNanos) {}
+
+    private static final class ScheduleTotals {
+        final AtomicLongArray outcomes = new AtomicLongArray(OUTCOMES.length);
+        final AtomicLongArray count = new AtomicLongArray(PHASES.length);
+        final AtomicLongArray nanos = new AtomicLongArray(PHASES.length);
+        final AtomicLongArray maxNanos = new AtomicLongArray(PHASES.length);
+
+        void add(Booking booking) {
+            outcomes.incrementAndGet(booking.outcome.ordinal());
+            for (int i = 0; i < PHASES.length; i++) {
+                if (booking.seen[i] == 0) continue;
+                count.addAndGet(i, booking.seen[i]);
+                nanos.addAndGet(i, booking.nanos[i]);
+                maxNanos.accumulateAndGet(i, booking.nanos[i], Math::max);
+            }
+        }
+
+        long bookings() {
+            long total = 0;
+            for (int i = 0; i < OUTCOMES.length; i++) total += outcomes.get(i);
+            return total;
+        }
+
+        Map<String, Object> outcomes() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            for (Outcome outcome : OUTCOMES) {
+                result.put(outcome.name().toLowerCase(), outcomes.get(outcome.ordinal()));
+            }
+            return result;
+        }
+
+        long totalNanos() {
+            long total = 0;
+            for (int i = 0; i < PHASES.length; i++) total += nanos.get(i);
+            return total;
+        }
+
+        Map<String, Object> phases() {
+            Map<String, Object> phases = new LinkedHashMap<>();
+            for (Phase phase : PHASES) {
+                int i = phase.ordinal();
+                long n = count.get(i);
+                if (n == 0) continue;
+                Map<String, Object> p = new LinkedHashMap<>();
+                p.put("count", n);
+                p.put("totalMillis", nanos.get(i) / 1_000_000.0);
+                p.put("avgMicros", nanos.get(i) / n / 1000.0);
+                p.put("maxMicros", maxNanos.get(i) / 1000.0);
+                phases.put(phase.name().toLowerCase(), p);
+            }
+            return phases;
+        }
+    }
+}
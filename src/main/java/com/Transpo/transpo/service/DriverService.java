@@ -1,6 +1,9 @@
 package com.Transpo.transpo.service;
 
+import com.Transpo.transpo.config.MetricsRegistry;
+import com.Transpo.transpo.dto.PassengerStatsDTO;
 import com.Transpo.transpo.exception.BadRequestException;
+import com.Transpo.transpo.exception.ConflictException;
 import com.Transpo.transpo.exception.NotFoundException;
 import com.Transpo.transpo.model.*;
 import com.Transpo.transpo.repository.*;
@@ -8,10 +11,15 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,6 +33,16 @@ public class DriverService {
     private final RouteRepository routeRepository;
     private final ReservationRepository reservationRepository;
     private final ScheduleRepository scheduleRepository;
+    private final SpatialIndex spatialIndex;
+    private final RouteMapSnapshot routeMapSnapshot;
+    private final EtaService etaService;
+    private final StopSearchIndex stopSearchIndex;
+    private final FareMatrixCache fareMatrix;
+    private final MetricsRegistry.TransactionTimer routeDetailsTimer;
+    private final MetricsRegistry.TransactionTimer passengerStatsTimer;
+    private final MetricsRegistry.TransactionTimer stopPassengersTimer;
+    private final MetricsRegistry.TransactionTimer mapDataTimer;
+    private final MetricsRegistry.TransactionTimer pickupsTimer;
     
     public DriverService(DriverAssignmentRepository driverAssignmentRepo,
                         UserRepository userRepository,
@@ -32,14 +50,30 @@ public class DriverService {
                         BusStopRepository busStopRepository,
                         RouteRepository routeRepository,
                         ReservationRepository reservationRepository,
-                        ScheduleRepository scheduleRepository) {
+                        ScheduleRepository scheduleRepository,
+                        SpatialIndex spatialIndex,
+                        RouteMapSnapshot routeMapSnapshot,
+                        EtaService etaService,
+                        StopSearchIndex stopSearchIndex,
+                        FareMatrixCache fareMatrix,
+                        MetricsRegistry metrics) {
         this.driverAssignmentRepo = driverAssignmentRepo;
         this.userRepository = userRepository;
         this.busRepository = busRepository;
         this.busStopRepository = busStopRepository;
         this.routeRepository = routeRepository;
+        this.spatialIndex = spatialIndex;
+        this.routeMapSnapshot = routeMapSnapshot;
+        this.etaService = etaService;
+        this.stopSearchIndex = stopSearchIndex;
+        this.fareMatrix = fareMatrix;
         this.reservationRepository = reservationRepository;
         this.scheduleRepository = scheduleRepository;
+        this.routeDetailsTimer = metrics.transactionTimer("transpo_driver_seconds", "op", "route_details");
+        this.passengerStatsTimer = metrics.transactionTimer("transpo_driver_seconds", "op", "passenger_stats");
+        this.stopPassengersTimer = metrics.transactionTimer("transpo_driver_seconds", "op", "stop_passengers");
+        this.mapDataTimer = metrics.transactionTimer("transpo_driver_seconds", "op", "map_data");
+        this.pickupsTimer = metrics.transactionTimer("transpo_driver_seconds", "op", "pickups");
     }
     
     /**
@@ -99,7 +133,9 @@ public class DriverService {
     }
     
     /**
-     * Add bus stops to a route
+     * Add bus stops to a route. A stop named like an unplaced stop of the route places that stop
+     * and keeps its sequence, which reservations derive their seat legs from. Other stops are
+     * added at the sequence they give, which must be free, or after the last stop.
      */
     @Transactional
     public List<BusStop> addBusStopsToRoute(Long routeId, List<BusStop> busStops) {
@@ -122,14 +158,54 @@ public class DriverService {
             throw new BadRequestException("Driver does not have access to this route");
         }
         
-        // Add stops to route
+        // A stop with the name of a named stop not yet on the map places that stop; others are added
+        Map<String, BusStop> unplaced = new HashMap<>();
+        Set<Integer> taken = new HashSet<>();
+        int last = 0;
+        for (BusStop existing : route.getBusStops()) {
+            if (existing.getLatitude() == null || existing.getLongitude() == null) {
+                unplaced.putIfAbsent(StopSearchIndex.normalize(existing.getName()), existing);
+            }
+            if (existing.getSequence() != null) {
+                taken.add(existing.getSequence());
+                last = Math.max(last, existing.getSequence());
+            }
+        }
+        List<BusStop> toSave = new ArrayList<>(busStops.size());
         for (BusStop stop : busStops) {
-            stop.setRoute(route);
-            route.addBusStop(stop);
+            BusStop named = stop.getName() != null ? unplaced.remove(StopSearchIndex.normalize(stop.getName())) : null;
+            if (named != null) {
+                named.setLatitude(stop.getLatitude());
+                named.setLongitude(stop.getLongitude());
+                toSave.add(named);
+            } else {
+                if (stop.getSequence() == null) {
+                    stop.setSequence(last + 1);
+                } else if (!taken.add(stop.getSequence())) {
+                    throw new ConflictException("Sequence " + stop.getSequence() + " is already used on this route");
+                }
+                last = Math.max(last, stop.getSequence());
+                taken.add(stop.getSequence());
+                stop.setRoute(route);
+                route.addBusStop(stop);
+                toSave.add(stop);
+            }
         }
         
-        routeRepository.save(route);
-        return busStops;
+        // Persist the stops themselves so they carry their ids for the spatial index
+        List<BusStop> saved = busStopRepository.saveAll(toSave);
+        List<String> stopNames = route.getStopNames();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                stopSearchIndex.put(routeId, stopNames);
+                spatialIndex.addStops(saved);
+                routeMapSnapshot.invalidate();
+                etaService.forgetRoute(routeId);
+                fareMatrix.invalidate(routeId);
+            }
+        });
+        return saved;
     }
     
     /**
@@ -143,6 +219,7 @@ public class DriverService {
      * Get route details with stops
      */
     public Map<String, Object> getRouteDetails(Long routeId) {
+        routeDetailsTimer.start();
         Route route = routeRepository.findById(routeId)
                 .orElseThrow(() -> new NotFoundException("Route not found: " + routeId));
         
@@ -156,79 +233,88 @@ public class DriverService {
     }
     
     /**
-     * Get passenger pickup and drop statistics by stop
+     * Get passenger pickup/drop statistics for a route.
+     * Counts come from one grouped query; passenger names are only loaded when asked for.
      */
-    public Map<String, Object> getPassengerStats(Long routeId) {
-        User driver = getCurrentDriver();
-        DriverAssignment assignment = driverAssignmentRepo.findByDriverId(driver.getId())
-                .orElseThrow(() -> new NotFoundException("Driver has no bus assignment"));
-        
+    public PassengerStatsDTO getPassengerStats(Long routeId, boolean includePassengers) {
+        passengerStatsTimer.start();
         Route route = routeRepository.findById(routeId)
                 .orElseThrow(() -> new NotFoundException("Route not found: " + routeId));
-        
         List<BusStop> stops = busStopRepository.findByRouteIdOrderBySequenceAsc(routeId);
-        List<Schedule> schedules = scheduleRepository.findByRouteOriginAndRouteDestination(
-                route.getOrigin(), route.getDestination());
-        
-        // Filter schedules for driver's bus
-        List<Schedule> driverSchedules = schedules.stream()
-                .filter(s -> s.getBus().getId().equals(assignment.getBus().getId()))
-                .collect(Collectors.toList());
-        
-        Map<Long, Map<String, Object>> stopStats = new HashMap<>();
-        
-        // Initialize stop stats
+        return passengerStats(route, stops, includePassengers);
+    }
+
+    /**
+     * Passengers picked up and dropped at one stop of a route.
+     */
+    public Map<String, List<String>> getStopPassengers(Long routeId, Long stopId) {
+        stopPassengersTimer.start();
+        Long busId = getCurrentDriverBusId();
+        Route route = routeRepository.findById(routeId)
+                .orElseThrow(() -> new NotFoundException("Route not found: " + routeId));
+        if (!busStopRepository.existsByIdAndRouteId(stopId, routeId)) {
+            throw new NotFoundException("Stop " + stopId + " not found on route " + routeId);
+        }
+        List<String> pickups = new ArrayList<>();
+        List<String> drops = new ArrayList<>();
+        for (Object[] row : reservationRepository.findStopPassengers(busId, route.getOrigin(), route.getDestination(), stopId)) {
+            String label = row[2] + " (Seat: " + row[3] + ")";
+            if (stopId.equals(row[0])) pickups.add(label);
+            if (stopId.equals(row[1])) drops.add(label);
+        }
+        return Map.of("pickupPassengers", pickups, "dropPassengers", drops);
+    }
+
+    private PassengerStatsDTO passengerStats(Route route, List<BusStop> stops, boolean includePassengers) {
+        Long busId = getCurrentDriverBusId();
+
+        Map<Long, PassengerStatsDTO.StopStats> byStop = new HashMap<>();
+        List<PassengerStatsDTO.StopStats> stopStats = new ArrayList<>(stops.size());
         for (BusStop stop : stops) {
-            Map<String, Object> stats = new HashMap<>();
-            stats.put("stopName", stop.getName());
-            stats.put("latitude", stop.getLatitude());
-            stats.put("longitude", stop.getLongitude());
-            stats.put("pickupCount", 0);
-            stats.put("dropCount", 0);
-            stats.put("pickupPassengers", new java.util.ArrayList<String>());
-            stats.put("dropPassengers", new java.util.ArrayList<String>());
-            stopStats.put(stop.getId(), stats);
+            PassengerStatsDTO.StopStats stats = new PassengerStatsDTO.StopStats(
+                    stop.getId(), stop.getName(), stop.getLatitude(), stop.getLongitude(), stop.getSequence());
+            if (includePassengers) {
+                stats.setPickupPassengers(new ArrayList<>());
+                stats.setDropPassengers(new ArrayList<>());
+            }
+            byStop.put(stop.getId(), stats);
+            stopStats.add(stats);
         }
-        
-        // Collect reservation data
-        for (Schedule schedule : driverSchedules) {
-            List<Reservation> reservations = reservationRepository.findByScheduleId(schedule.getId());
-            
-            for (Reservation reservation : reservations) {
-                if (reservation.getPickupStop() != null && stopStats.containsKey(reservation.getPickupStop().getId())) {
-                    Map<String, Object> stats = stopStats.get(reservation.getPickupStop().getId());
-                    stats.put("pickupCount", (Integer) stats.get("pickupCount") + 1);
-                                                                Object ppObj = stats.get("pickupPassengers");
-                                                                java.util.List<String> list = new java.util.ArrayList<>();
-                                                                if (ppObj instanceof java.util.List<?>) {
-                                                                        for (Object o : (java.util.List<?>) ppObj) { list.add(String.valueOf(o)); }
-                                                                }
-                                                                list.add(reservation.getPassengerName() + " (Seat: " + reservation.getSeatNumber() + ")");
-                                                                stats.put("pickupPassengers", list);
-                }
-                
-                if (reservation.getDropStop() != null && stopStats.containsKey(reservation.getDropStop().getId())) {
-                    Map<String, Object> stats = stopStats.get(reservation.getDropStop().getId());
-                    stats.put("dropCount", (Integer) stats.get("dropCount") + 1);
-                                                                Object dpObj = stats.get("dropPassengers");
-                                                                java.util.List<String> list2 = new java.util.ArrayList<>();
-                                                                if (dpObj instanceof java.util.List<?>) {
-                                                                        for (Object o : (java.util.List<?>) dpObj) { list2.add(String.valueOf(o)); }
-                                                                }
-                                                                list2.add(reservation.getPassengerName() + " (Seat: " + reservation.getSeatNumber() + ")");
-                                                                stats.put("dropPassengers", list2);
-                }
+
+        int total = 0;
+        for (Object[] row : reservationRepository.countByStopPairs(busId, route.getOrigin(), route.getDestination())) {
+            int count = ((Number) row[2]).intValue();
+            PassengerStatsDTO.StopStats pickup = row[0] != null ? byStop.get((Long) row[0]) : null;
+            PassengerStatsDTO.StopStats drop = row[1] != null ? byStop.get((Long) row[1]) : null;
+            if (pickup != null) {
+                pickup.setPickupCount(pickup.getPickupCount() + count);
+                total += count;
+            }
+            if (drop != null) {
+                drop.setDropCount(drop.getDropCount() + count);
             }
         }
-        
-        Map<String, Object> result = new HashMap<>();
-        result.put("route", route);
-        result.put("stops", stopStats.values());
-        result.put("totalPassengers", stopStats.values().stream()
-                .mapToInt(stats -> (Integer) stats.get("pickupCount"))
-                .sum());
-        
-        return result;
+
+        if (includePassengers) {
+            for (Object[] row : reservationRepository.findStopPassengers(busId, route.getOrigin(), route.getDestination(), null)) {
+                String label = row[2] + " (Seat: " + row[3] + ")";
+                PassengerStatsDTO.StopStats pickup = row[0] != null ? byStop.get((Long) row[0]) : null;
+                PassengerStatsDTO.StopStats drop = row[1] != null ? byStop.get((Long) row[1]) : null;
+                if (pickup != null) pickup.getPickupPassengers().add(label);
+                if (drop != null) drop.getDropPassengers().add(label);
+            }
+        }
+        return new PassengerStatsDTO(route, stopStats, total);
+    }
+
+    private Long getCurrentDriverBusId() {
+        User driver = getCurrentDriver();
+        DriverAssignment assignment = driverAssignmentRepo.findByDriverId(driver.getId())
+                .orElseThrow(() -> new NotFoundException("Driver has no bus assignment"));
+        if (assignment.getBus() == null) {
+            throw new BadRequestException("Driver not assigned to any bus");
+        }
+        return assignment.getBus().getId();
     }
     
     /**
@@ -239,37 +325,40 @@ public class DriverService {
         DriverAssignment assignment = driverAssignmentRepo.findByDriverId(driver.getId())
                 .orElseThrow(() -> new NotFoundException("Driver has no bus assignment"));
         
-        // Get all schedules for driver's bus
-        return scheduleRepository.findAll().stream()
-                .filter(s -> s.getBus().getId().equals(assignment.getBus().getId()))
-                .map(Schedule::getRoute)
-                .distinct()
-                .collect(Collectors.toList());
+        // Distinct routes of the bus's schedules, resolved in the database
+        return scheduleRepository.findRoutesByBusId(assignment.getBus().getId());
     }
     
     /**
      * Get map data for frontend
      */
     public Map<String, Object> getMapData(Long routeId) {
+        mapDataTimer.start();
         Route route = routeRepository.findById(routeId)
                 .orElseThrow(() -> new NotFoundException("Route not found: " + routeId));
         
         List<BusStop> stops = busStopRepository.findByRouteIdOrderBySequenceAsc(routeId);
-        Map<String, Object> passengerStats = getPassengerStats(routeId);
+        // Same route and stops as the stats, loaded once
+        PassengerStatsDTO passengerStats = passengerStats(route, stops, false);
+        // Named stops without coordinates cannot be drawn
+        stops = stops.stream()
+                .filter(stop -> stop.getLatitude() != null && stop.getLongitude() != null)
+                .collect(Collectors.toList());
         
         Map<String, Object> mapData = new HashMap<>();
-        mapData.put("route", Map.of(
-                "origin", route.getOrigin(),
-                "destination", route.getDestination(),
-                "originCoords", stops.isEmpty() ? null : Map.of(
-                        "lat", stops.get(0).getLatitude(),
-                        "lng", stops.get(0).getLongitude()
-                ),
-                "destinationCoords", stops.isEmpty() ? null : Map.of(
-                        "lat", stops.get(stops.size() - 1).getLatitude(),
-                        "lng", stops.get(stops.size() - 1).getLongitude()
-                )
+        // HashMap: the coordinates are null while no stop is placed
+        Map<String, Object> routeInfo = new HashMap<>();
+        routeInfo.put("origin", route.getOrigin());
+        routeInfo.put("destination", route.getDestination());
+        routeInfo.put("originCoords", stops.isEmpty() ? null : Map.of(
+                "lat", stops.get(0).getLatitude(),
+                "lng", stops.get(0).getLongitude()
+        ));
+        routeInfo.put("destinationCoords", stops.isEmpty() ? null : Map.of(
+                "lat", stops.get(stops.size() - 1).getLatitude(),
+                "lng", stops.get(stops.size() - 1).getLongitude()
         ));
+        mapData.put("route", routeInfo);
         
         mapData.put("stops", stops.stream()
                 .map(stop -> Map.of(
@@ -290,6 +379,7 @@ public class DriverService {
          * Driver-only: get pickup points for reservations of selected bus/schedule.
          */
         public List<Map<String, Object>> getPickupPointsForDriver(Long busId, String busNumber, Long scheduleId, String username) {
+            pickupsTimer.start();
                 // Validate assignment
                 User driver = userRepository.findByUsername(username)
                                 .orElseThrow(() -> new NotFoundException("User not found: " + username));
@@ -343,26 +433,19 @@ public class DriverService {
                 DriverAssignment assignment = driverAssignmentRepo.findByDriverId(driver.getId())
                                 .orElseThrow(() -> new NotFoundException("Driver has no bus assignment"));
                 Bus bus = assignment.getBus();
-                // Find schedules for this bus
-                List<Schedule> schedules = scheduleRepository.findAll().stream()
-                                .filter(s -> s.getBus().getId().equals(bus.getId()))
-                                .collect(Collectors.toList());
-                // Collect reservations across schedules
+                // One projection query across all schedules of the bus
                 List<Map<String, Object>> results = new java.util.ArrayList<>();
-                for (Schedule schedule : schedules) {
-                        List<Reservation> reservations = reservationRepository.findByScheduleId(schedule.getId());
-                        for (Reservation r : reservations) {
-                                Map<String, Object> dto = new HashMap<>();
-                                dto.put("id", r.getId());
-                                dto.put("scheduleId", schedule.getId());
-                                dto.put("passengerName", r.getPassengerName());
-                                dto.put("passengerEmail", r.getPassengerEmail());
-                                dto.put("seatNumber", r.getSeatNumber());
-                                dto.put("bookingTime", r.getBookingTime());
-                                dto.put("busId", bus.getId());
-                                dto.put("busNumber", bus.getBusNumber());
-                                results.add(dto);
-                        }
+                for (Object[] row : reservationRepository.findSummariesByBusId(bus.getId())) {
+                        Map<String, Object> dto = new HashMap<>();
+                        dto.put("id", row[0]);
+                        dto.put("scheduleId", row[1]);
+                        dto.put("passengerName", row[2]);
+                        dto.put("passengerEmail", row[3]);
+                        dto.put("seatNumber", row[4]);
+                        dto.put("bookingTime", row[5]);
+                        dto.put("busId", bus.getId());
+                        dto.put("busNumber", bus.getBusNumber());
+                        results.add(dto);
                 }
                 return results;
         }
@@ -0,0 +1,211 @@
+package com.Transpo.transpo.service;
+
+import com.Transpo.transpo.dto.ScheduleResponseDTO;
+import com.Transpo.transpo.exception.BadRequestException;
+import com.Transpo.transpo.exception.NotFoundException;
+import com.Transpo.transpo.repository.ScheduleRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live fares: base fare x load-factor multiplier x time-to-departure multiplier.
+ * Both multipliers are piecewise-linear curves that can be replaced at runtime. Occupancy
+ * comes from the in-memory seat counters of {@link SeatInventoryService} for schedules already
+ * loaded there and from the schedule's available seats otherwise, so a quote does no database
+ * work and search results can all be priced.
+ */
+@Service
+public class DynamicPricingService {
+
+    private final SeatInventoryService seatInventory;
+    private final ScheduleRepository scheduleRepo;
+    private final FareMatrixCache fareMatrix;
+    private final AtomicReference<Curves> curves;
+
+    // Quote latency: count, total, max and a log2 histogram of nanoseconds
+    private final LongAdder quotes = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLongArray histogram = new AtomicLongArray(64);
+
+    public DynamicPricingService(SeatInventoryService seatInventory,
+                                 ScheduleRepository scheduleRepo,
+                                 FareMatrixCache fareMatrix,
+                                 @Value("${transpo.pricing.load-curve:0:1.0,0.5:1.0,0.75:1.15,0.9:1.3,1:1.5}") String loadCurve,
+                                 @Value("${transpo.pricing.departure-curve:0:1.2,6:1.1,48:1.0}") String departureCurve) {
+        this.seatInventory = seatInventory;
+        this.scheduleRepo = scheduleRepo;
+        this.fareMatrix = fareMatrix;
+        this.curves = new AtomicReference<>(new Curves(Curve.parse(loadCurve), Curve.parse(departureCurve)));
+    }
+
+    /**
+     * Live fare of a schedule for the given base fare. The available seats are only used when
+     * the schedule's seat inventory is not loaded.
+     */
+    public Quote quote(Long scheduleId, int totalSeats, int availableSeats, LocalDateTime departureTime,
+                       double baseFare) {
+        long start = System.nanoTime();
+        Curves c = curves.get();
+        int taken = seatInventory.loadedTakenCount(scheduleId);
+        if (taken < 0) taken = totalSeats - availableSeats;
+        double load = totalSeats > 0 ? Math.max(0, Math.min(1.0, taken / (double) totalSeats)) : 0;
+        double hours = departureTime != null
+                ? Math.max(0, Duration.between(LocalDateTime.now(), departureTime).toMinutes() / 60.0)
+                : 0;
+        double multiplier = c.load.at(load) * c.departure.at(hours);
+        double fare = Math.round(baseFare * 100 * multiplier) / 100.0;
+        record(System.nanoTime() - start);
+        return new Quote(scheduleId, baseFare, load, multiplier, fare);
+    }
+
+    /**
+     * Live fare of a schedule between two stops. The base is the route's ticket price for
+     * the pair, or the schedule fare when the pair has none (or no stops are given).
+     */
+    public Quote quote(Long scheduleId, Long pickupStopId, Long dropStopId) {
+        ScheduleResponseDTO schedule = scheduleRepo.findScheduleDetailsById(scheduleId)
+                .orElseThrow(() -> new NotFoundException("Schedule not found: " + scheduleId));
+        double base = schedule.getFare();
+        if (pickupStopId != null && dropStopId != null) {
+            BigDecimal price = fareMatrix.price(schedule.getRouteId(), pickupStopId, dropStopId);
+            if (price != null) base = price.doubleValue();
+        }
+        return quote(scheduleId, schedule.getTotalSeats(), schedule.getAvailableSeats(),
+                schedule.getDepartureTime(), base);
+    }
+
+    /**
+     * Set the live fare of schedule rows from their own fare, seats and departure time.
+     */
+    public <T extends Collection<ScheduleResponseDTO>> T price(T schedules) {
+        for (ScheduleResponseDTO dto : schedules) {
+            dto.setDynamicFare(quote(dto.getId(), dto.getTotalSeats(), dto.getAvailableSeats(),
+                    dto.getDepartureTime(), dto.getFare()).fare());
+        }
+        return schedules;
+    }
+
+    /**
+     * Replace one or both curves; the new curves apply to the next quote.
+     */
+    public Map<String, Object> reload(String loadCurve, String departureCurve) {
+        curves.updateAndGet(current -> new Curves(
+                loadCurve != null ? Curve.parse(loadCurve) : current.load,
+                departureCurve != null ? Curve.parse(departureCurve) : current.departure));
+        return stats();
+    }
+
+    public Map<String, Object> stats() {
+        Curves c = curves.get();
+        long count = quotes.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("loadCurve", c.load.toString());
+        stats.put("departureCurve", c.departure.toString());
+        stats.put("quotes", count);
+        stats.put("avgMicros", count == 0 ? 0 : totalNanos.sum() / count / 1000.0);
+        stats.put("p50MicrosUpTo", percentileNanos(0.50) / 1000.0);
+        stats.put("p99MicrosUpTo", percentileNanos(0.99) / 1000.0);
+        stats.put("maxMicros", maxNanos.get() / 1000.0);
+        return stats;
+    }
+
+    private void record(long nanos) {
+        quotes.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+        histogram.incrementAndGet(63 - Long.numberOfLeadingZeros(Math.max(1, nanos)));
+    }
+
+    // Upper bound of the histogram bucket holding the given percentile
+    private long percentileNanos(double p) {
+        long count = quotes.sum();
+        if (count == 0) return 0;
+        long target = (long) Math.ceil(count * p);
+        long seen = 0;
+        for (int i = 0; i < histogram.length(); i++) {
+            seen += histogram.get(i);
+            if (seen >= target) return i >= 62 ? Long.MAX_VALUE : 1L << (i + 1);
+        }
+        return maxNanos.get();
+    }
+
+    public record Quote(Long scheduleId, double baseFare, double loadFactor, double multiplier, double fare) {}
+
+    private record Curves(Curve load, Curve departure) {}
+
+    /**
+     * Piecewise-linear function through sorted points, flat beyond the first and last point.
+     */
+    static final class Curve {
+        private final double[] xs;
+        private final double[] ys;
+
+        private Curve(double[] xs, double[] ys) {
+            this.xs = xs;
+            this.ys = ys;
+        }
+
+        /**
+         * Parse "x:y,x:y,..." with strictly increasing x and positive y.
+         */
+        static Curve parse(String spec) {
+            if (spec == null || spec.isBlank()) {
+                throw new BadRequestException("Curve must have at least one point");
+            }
+            String[] points = spec.split(",");
+            double[] xs = new double[points.length];
+            double[] ys = new double[points.length];
+            for (int i = 0; i < points.length; i++) {
+                String[] xy = points[i].trim().split(":");
+                try {
+                    xs[i] = Double.parseDouble(xy[0].trim());
+                    ys[i] = Double.parseDouble(xy[1].trim());
+                } catch (RuntimeException e) {
+                    throw new BadRequestException("Invalid curve point: " + points[i].trim());
+                }
+                if (!(ys[i] > 0)) {
+                    throw new BadRequestException("Curve multipliers must be positive");
+                }
+                if (i > 0 && !(xs[i] > xs[i - 1])) {
+                    throw new BadRequestException("Curve points must be in increasing order");
+                }
+            }
+            return new Curve(xs, ys);
+        }
+
+        double at(double x) {
+            if (x <= xs[0]) return ys[0];
+            int last = xs.length - 1;
+            if (x >= xs[last]) return ys[last];
+            int i = Arrays.binarySearch(xs, x);
+            if (i >= 0) return ys[i];
+            int hi = -i - 1;
+            int lo = hi - 1;
+            double t = (x - xs[lo]) / (xs[hi] - xs[lo]);
+            return ys[lo] + t * (ys[hi] - ys[lo]);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < xs.length; i++) {
+                if (i > 0) sb.append(',');
+                sb.append(xs[i]).append(':').append(ys[i]);
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.Transpo.transpo.service;
+
+import com.Transpo.transpo.exception.NotFoundException;
+import com.Transpo.transpo.model.BusStop;
+import com.Transpo.transpo.model.Schedule;
+import com.Transpo.transpo.repository.BusStopRepository;
+import com.Transpo.transpo.repository.ScheduleRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Arrival predictions from live driver pings.
+ * Each ping is projected onto the stop sequence of the route the bus is currently running,
+ * searching only from the segment it was last seen on. The observed speed feeds an EWMA per
+ * route segment, and the arrival times of the stops ahead are recomputed once per ping, so
+ * polling an ETA is a map lookup. A live prediction is dropped once its bus has not reported
+ * for live-ttl-seconds, or its trip window has passed; the planned one is served again then.
+ */
+@Service
+public class EtaService {
+
+    private static final double KM_PER_DEGREE = 6371.0 * Math.PI / 180;
+    private static final double MIN_SPEED_KMH = 3;
+    private static final double MAX_SPEED_KMH = 120;
+
+    private final ScheduleRepository scheduleRepo;
+    private final BusStopRepository busStopRepo;
+    private final double defaultSpeedKmh;
+    private final double alpha;
+    private final long tripWindowMillis;
+    private final long tripCacheMillis;
+    private final long liveTtlMillis;
+
+    private final Map<Long, RouteLine> lines = new ConcurrentHashMap<>();
+    private final Map<Long, Progress> progress = new ConcurrentHashMap<>();
+    private final Map<Long, ActiveTrip> activeTrips = new ConcurrentHashMap<>();
+    // schedule id -> latest live prediction
+    private final Map<Long, ScheduleEta> live = new ConcurrentHashMap<>();
+
+    public EtaService(ScheduleRepository scheduleRepo,
+                      BusStopRepository busStopRepo,
+                      @Value("${transpo.eta.default-speed-kmh:25}") double defaultSpeedKmh,
+                      @Value("${transpo.eta.smoothing:0.3}") double alpha,
+                      @Value("${transpo.eta.trip-window-hours:8}") int tripWindowHours,
+                      @Value("${transpo.eta.trip-cache-seconds:60}") int tripCacheSeconds,
+                      @Value("${transpo.eta.live-ttl-seconds:300}") int liveTtlSeconds) {
+        this.scheduleRepo = scheduleRepo;
+        this.busStopRepo = busStopRepo;
+        this.defaultSpeedKmh = defaultSpeedKmh;
+        this.alpha = alpha;
+        this.tripWindowMillis = tripWindowHours * 3_600_000L;
+        this.tripCacheMillis = tripCacheSeconds * 1000L;
+        this.liveTtlMillis = liveTtlSeconds * 1000L;
+    }
+
+    /**
+     * Feed a position fix of a bus. Ignored when the bus is not running a schedule.
+     */
+    public void onPing(Long busId, double lat, double lng, long timestamp) {
+        ActiveTrip trip = activeTrip(busId, timestamp);
+        if (trip == null) return;
+        RouteLine line = line(trip.routeId);
+        if (line.stopIds.length < 2) return;
+
+        Progress previous = progress.get(busId);
+        if (previous != null && !previous.scheduleId.equals(trip.scheduleId)) {
+            live.remove(previous.scheduleId);
+            previous = null;
+        }
+        // Positions on a route whose stops changed meanwhile do not apply to the new stops
+        if (previous != null && previous.line != line) {
+            previous = null;
+        }
+        int fromSegment = previous != null ? previous.segment : 0;
+        Position pos = line.project(lat, lng, fromSegment);
+
+        double km = pos.km;
+        int segment = pos.segment;
+        if (previous != null) {
+            if (km <= previous.km) {
+                // GPS jitter or standing still: never move backwards along the route
+                km = previous.km;
+                segment = previous.segment;
+            } else if (timestamp > previous.timestamp) {
+                double hours = (timestamp - previous.timestamp) / 3_600_000.0;
+                double speed = Math.min(MAX_SPEED_KMH, Math.max(MIN_SPEED_KMH, (km - previous.km) / hours));
+                line.observe(previous.segment, segment, speed, alpha);
+            }
+        }
+        progress.put(busId, new Progress(trip.scheduleId, line, segment, km, timestamp));
+        live.put(trip.scheduleId, line.predict(trip.scheduleId, busId, true, segment, km, timestamp));
+    }
+
+    /**
+     * Predicted arrival at every stop of a schedule: live when its bus is reporting,
+     * otherwise planned from the departure time and the learnt segment speeds.
+     */
+    public ScheduleEta etaForSchedule(Long scheduleId) {
+        ScheduleEta eta = live.get(scheduleId);
+        if (eta != null && !expired(eta.updatedAt(), System.currentTimeMillis())) return eta;
+        Schedule schedule = scheduleRepo.findById(scheduleId)
+                .orElseThrow(() -> new NotFoundException("Schedule not found: " + scheduleId));
+        RouteLine line = line(schedule.getRoute().getId());
+        long departure = schedule.getDepartureTime() != null
+                ? schedule.getDepartureTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : System.currentTimeMillis();
+        Long busId = schedule.getBus() != null ? schedule.getBus().getId() : null;
+        return line.predict(scheduleId, busId, false, 0, 0, departure);
+    }
+
+    /**
+     * Drop the cached stop sequence of a route after its stops changed.
+     */
+    public void forgetRoute(Long routeId) {
+        RouteLine line = lines.remove(routeId);
+        if (line == null) return;
+        progress.values().removeIf(p -> {
+            if (p.line != line) return false;
+            live.remove(p.scheduleId);
+            return true;
+        });
+    }
+
+    /**
+     * Drop live predictions and positions of buses that stopped reporting.
+     */
+    @Scheduled(fixedDelayString = "${transpo.eta.expiry-interval-ms:60000}")
+    public void expireLive() {
+        long now = System.currentTimeMillis();
+        live.values().removeIf(eta -> expired(eta.updatedAt(), now));
+        progress.values().removeIf(p -> expired(p.timestamp, now));
+        activeTrips.values().removeIf(t -> now - t.resolvedAt >= tripCacheMillis);
+    }
+
+    private boolean expired(long updatedAt, long now) {
+        return now - updatedAt > Math.min(liveTtlMillis, tripWindowMillis);
+    }
+
+    private ActiveTrip activeTrip(Long busId, long now) {
+        ActiveTrip cached = activeTrips.get(busId);
+        if (cached != null && now - cached.resolvedAt < tripCacheMillis) {
+            return cached.scheduleId != null ? cached : null;
+        }
+        LocalDateTime at = LocalDateTime.ofInstant(Instant.ofEpochMilli(now), ZoneId.systemDefault());
+        List<Object[]> rows = scheduleRepo.findLatestDeparture(busId, at,
+                at.minusSeconds(tripWindowMillis / 1000), PageRequest.of(0, 1));
+        ActiveTrip trip = rows.isEmpty()
+                ? new ActiveTrip(null, null, now)
+                : new ActiveTrip((Long) rows.get(0)[0], (Long) rows.get(0)[1], now);
+        activeTrips.put(busId, trip);
+        return trip.scheduleId != null ? trip : null;
+    }
+
+    private RouteLine line(Long routeId) {
+        RouteLine line = lines.get(routeId);
+        if (line == null) {
+            // Only stops placed on the map take part in the projection
+            List<BusStop> placed = busStopRepo.findByRouteIdOrderBySequenceAsc(routeId).stream()
+                    .filter(s -> s.getLatitude() != null && s.getLongitude() != null)
+                    .toList();
+            line = new RouteLine(placed, defaultSpeedKmh);
+            RouteLine raced = lines.putIfAbsent(routeId, line);
+            if (raced != null) line = raced;
+        }
+        return line;
+    }
+
+    private record ActiveTrip(Long scheduleId, Long routeId, long resolvedAt) {}
+
+    private record Progress(Long scheduleId, RouteLine line, int segment, double km, long timestamp) {}
+
+    record Position(int segment, double km) {}
+
+    /** Predicted arrival (epoch millis) at one stop; null once the bus has passed it. */
+    public record StopEta(Long stopId, String name, Integer sequence, Long arrivalAt) {}
+
+    public record ScheduleEta(Long scheduleId, Long busId, boolean live, long updatedAt, List<StopEta> stops) {}
+
+    /**
+     * Ordered stops of a route with cumulative distances and a running speed per segment
+     * (segment i runs from stop i to stop i + 1).
+     */
+    static final class RouteLine {
+        final Long[] stopIds;
+        final String[] names;
+        final Integer[] sequences;
+        final double[] lat;
+        final double[] lng;
+        final double[] cumKm;
+        final double[] speedKmh;
+
+        RouteLine(List<BusStop> stops, double defaultSpeedKmh) {
+            int n = stops.size();
+            stopIds = new Long[n];
+            names = new String[n];
+            sequences = new Integer[n];
+            lat = new double[n];
+            lng = new double[n];
+            cumKm = new double[n];
+            for (int i = 0; i < n; i++) {
+                BusStop s = stops.get(i);
+                stopIds[i] = s.getId();
+                names[i] = s.getName();
+                sequences[i] = s.getSequence();
+                lat[i] = s.getLatitude();
+                lng[i] = s.getLongitude();
+                if (i > 0) {
+                    cumKm[i] = cumKm[i - 1] + SpatialIndex.distanceKm(lat[i - 1], lng[i - 1], lat[i], lng[i]);
+                }
+            }
+            speedKmh = new double[Math.max(0, n - 1)];
+            Arrays.fill(speedKmh, defaultSpeedKmh);
+        }
+
+        /**
+         * Closest point on the segments from fromSegment onwards.
+         */
+        Position project(double pLat, double pLng, int fromSegment) {
+            fromSegment = Math.max(0, Math.min(fromSegment, speedKmh.length - 1));
+            double cos = Math.cos(Math.toRadians(pLat));
+            int bestSegment = fromSegment;
+            double bestKm = cumKm[fromSegment];
+            double bestDist = Double.MAX_VALUE;
+            for (int i = fromSegment; i < speedKmh.length; i++) {
+                // Local flat projection around the ping, in km
+                double ax = (lng[i] - pLng) * cos * KM_PER_DEGREE, ay = (lat[i] - pLat) * KM_PER_DEGREE;
+                double bx = (lng[i + 1] - pLng) * cos * KM_PER_DEGREE, by = (lat[i + 1] - pLat) * KM_PER_DEGREE;
+                double dx = bx - ax, dy = by - ay;
+                double len2 = dx * dx + dy * dy;
+                double t = len2 == 0 ? 0 : Math.max(0, Math.min(1, -(ax * dx + ay * dy) / len2));
+                double cx = ax + t * dx, cy = ay + t * dy;
+                double dist = cx * cx + cy * cy;
+                if (dist < bestDist) {
+                    bestDist = dist;
+                    bestSegment = i;
+                    bestKm = cumKm[i] + t * (cumKm[i + 1] - cumKm[i]);
+                }
+            }
+            return new Position(bestSegment, bestKm);
+        }
+
+        synchronized void observe(int fromSegment, int toSegment, double speed, double alpha) {
+            for (int i = fromSegment; i <= toSegment && i < speedKmh.length; i++) {
+                speedKmh[i] = alpha * speed + (1 - alpha) * speedKmh[i];
+            }
+        }
+
+        /**
+         * Arrival times of the stops after the given position; stops up to the segment start are passed.
+         */
+        synchronized ScheduleEta predict(Long scheduleId, Long busId, boolean live, int segment, double km, long at) {
+            List<StopEta> stops = new ArrayList<>(stopIds.length);
+            for (int i = 0; i <= segment && i < stopIds.length; i++) {
+                // Before departure the first stop is still ahead
+                stops.add(new StopEta(stopIds[i], names[i], sequences[i], live ? null : at));
+            }
+            double hours = 0;
+            double position = km;
+            for (int i = segment + 1; i < stopIds.length; i++) {
+                hours += (cumKm[i] - position) / speedKmh[i - 1];
+                position = cumKm[i];
+                stops.add(new StopEta(stopIds[i], names[i], sequences[i], at + Math.round(hours * 3_600_000)));
+            }
+            return new ScheduleEta(scheduleId, busId, live, at, stops);
+        }
+    }
+}
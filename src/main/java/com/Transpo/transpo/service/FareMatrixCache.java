@@ -0,0 +1,105 @@
+package com.Transpo.transpo.service;
+
+import com.Transpo.transpo.model.BusStop;
+import com.Transpo.transpo.model.TicketPrice;
+import com.Transpo.transpo.repository.BusStopRepository;
+import com.Transpo.transpo.repository.TicketPriceRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ticket prices of a route as a dense symmetric matrix of cents indexed by stop position,
+ * loaded on the first quote for the route and dropped whenever its prices or stops change.
+ */
+@Component
+public class FareMatrixCache {
+
+    static final long NO_PRICE = -1;
+
+    private final TicketPriceRepository ticketPriceRepo;
+    private final BusStopRepository busStopRepo;
+    private final Map<Long, Matrix> matrices = new ConcurrentHashMap<>();
+
+    public FareMatrixCache(TicketPriceRepository ticketPriceRepo, BusStopRepository busStopRepo) {
+        this.ticketPriceRepo = ticketPriceRepo;
+        this.busStopRepo = busStopRepo;
+    }
+
+    /**
+     * Price between two stops of a route in either direction, or null when none is set.
+     */
+    public BigDecimal price(Long routeId, Long fromStopId, Long toStopId) {
+        long cents = matrix(routeId).cents(fromStopId, toStopId);
+        return cents == NO_PRICE ? null : BigDecimal.valueOf(cents, 2);
+    }
+
+    public void invalidate(Long routeId) {
+        matrices.remove(routeId);
+    }
+
+    public void invalidateAfterCommit(Long routeId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(routeId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(routeId);
+            }
+        });
+    }
+
+    Matrix matrix(Long routeId) {
+        Matrix matrix = matrices.get(routeId);
+        if (matrix != null) return matrix;
+        // Loading inside compute makes an invalidation for the same route wait for the load,
+        // so a matrix read before a price change commits is never kept after it
+        return matrices.computeIfAbsent(routeId,
+                id -> new Matrix(busStopRepo.findByRouteIdOrderBySequenceAsc(id), ticketPriceRepo.findByRouteId(id)));
+    }
+
+    static long toCents(BigDecimal price) {
+        return price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    static final class Matrix {
+        private final Map<Long, Integer> positions;
+        private final int size;
+        private final long[] cents;
+
+        Matrix(List<BusStop> stops, List<TicketPrice> prices) {
+            positions = new HashMap<>(stops.size() * 2);
+            for (BusStop stop : stops) {
+                positions.put(stop.getId(), positions.size());
+            }
+            size = positions.size();
+            cents = new long[size * size];
+            Arrays.fill(cents, NO_PRICE);
+            for (TicketPrice tp : prices) {
+                Integer from = positions.get(tp.getFromStopId());
+                Integer to = positions.get(tp.getToStopId());
+                if (from == null || to == null || tp.getPrice() == null) continue;
+                long value = toCents(tp.getPrice());
+                cents[from * size + to] = value;
+                cents[to * size + from] = value;
+            }
+        }
+
+        long cents(Long fromStopId, Long toStopId) {
+            Integer from = positions.get(fromStopId);
+            Integer to = positions.get(toStopId);
+            if (from == null || to == null) return NO_PRICE;
+            return cents[from * size + to];
+        }
+    }
+}
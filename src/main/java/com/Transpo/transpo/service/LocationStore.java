@@ -0,0 +1,187 @@
+package com.Transpo.transpo.service;
+
+import com.Transpo.transpo.repository.DriverAssignmentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live vehicle positions. Every bus has a fixed-size ring buffer of its last fixes packed
+ * into a primitive long array (lat bits, lng bits, timestamp), so a ping allocates nothing.
+ * Appends are single-writer per bus; readers never block and retry only when the writer
+ * lapped the slots they were copying.
+ */
+@Service
+public class LocationStore {
+
+    private final DriverAssignmentRepository driverAssignmentRepo;
+    private final SpatialIndex spatialIndex;
+    private final int historySize;
+    private final long driverCacheMillis;
+    private final Map<Long, Track> tracks = new ConcurrentHashMap<>();
+    // driver username -> assigned bus, re-resolved after driverCacheMillis
+    private final Map<String, DriverBus> driverBuses = new ConcurrentHashMap<>();
+
+    public LocationStore(DriverAssignmentRepository driverAssignmentRepo,
+                         SpatialIndex spatialIndex,
+                         @Value("${transpo.location.history-size:120}") int historySize,
+                         @Value("${transpo.location.driver-cache-seconds:60}") int driverCacheSeconds) {
+        this.driverAssignmentRepo = driverAssignmentRepo;
+        this.spatialIndex = spatialIndex;
+        this.historySize = historySize;
+        this.driverCacheMillis = driverCacheSeconds * 1000L;
+    }
+
+    /**
+     * Record a fix for a bus.
+     */
+    public void append(Long busId, double lat, double lng, long timestamp) {
+        tracks.computeIfAbsent(busId, id -> new Track(historySize)).append(lat, lng, timestamp);
+        spatialIndex.updateBus(busId, lat, lng, timestamp);
+    }
+
+    /**
+     * Latest fix of a bus, or null if it never reported.
+     */
+    public Fix latest(Long busId) {
+        Track track = tracks.get(busId);
+        if (track == null) return null;
+        List<Fix> last = track.read(1);
+        return last.isEmpty() ? null : last.get(0);
+    }
+
+    /**
+     * Up to limit most recent fixes of a bus, oldest first.
+     */
+    public List<Fix> trail(Long busId, int limit) {
+        Track track = tracks.get(busId);
+        if (track == null) return List.of();
+        return track.read(Math.min(limit, historySize));
+    }
+
+    /**
+     * Latest fix of every bus that reported at or after the given time.
+     */
+    public Map<Long, Fix> latestSince(long sinceMillis) {
+        Map<Long, Fix> result = new HashMap<>();
+        tracks.forEach((busId, track) -> {
+            List<Fix> last = track.read(1);
+            if (!last.isEmpty() && last.get(0).getTimestamp() >= sinceMillis) {
+                result.put(busId, last.get(0));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Bus assigned to a driver, cached so 1 Hz pings do not hit the database.
+     */
+    public Long busForDriver(String username) {
+        long now = System.currentTimeMillis();
+        DriverBus cached = driverBuses.get(username);
+        if (cached != null && now - cached.resolvedAt < driverCacheMillis) {
+            return cached.busId;
+        }
+        Long busId = driverAssignmentRepo.findByDriverUsername(username)
+                .map(a -> a.getBus() != null ? a.getBus().getId() : null)
+                .orElse(null);
+        driverBuses.put(username, new DriverBus(busId, now));
+        return busId;
+    }
+
+    public void forgetDriver(String username) {
+        driverBuses.remove(username);
+    }
+
+    public int trackedBuses() {
+        return tracks.size();
+    }
+
+    private record DriverBus(Long busId, long resolvedAt) {}
+
+    /**
+     * One position fix. Only created when reading.
+     */
+    public static final class Fix {
+        private final double lat;
+        private final double lng;
+        private final long timestamp;
+
+        Fix(double lat, double lng, long timestamp) {
+            this.lat = lat;
+            this.lng = lng;
+            this.timestamp = timestamp;
+        }
+
+        public double getLat() { return lat; }
+        public double getLng() { return lng; }
+        public long getTimestamp() { return timestamp; }
+    }
+
+    /**
+     * Ring buffer of fixes: slot i occupies data[3i .. 3i+2]. One spare slot is kept so the
+     * slot being written is never one a reader may return.
+     */
+    static final class Track {
+        private final int size;
+        private final int capacity;
+        private final long[] data;
+        // Number of fixes ever written; published after the slot is filled
+        private final AtomicLong written = new AtomicLong();
+        private final AtomicBoolean writing = new AtomicBoolean();
+
+        Track(int size) {
+            this.size = Math.max(1, size);
+            this.capacity = this.size + 1;
+            this.data = new long[this.capacity * 3];
+        }
+
+        void append(double lat, double lng, long timestamp) {
+            // Pings of one bus come from one driver; concurrent retries just wait their turn
+            while (!writing.compareAndSet(false, true)) {
+                Thread.onSpinWait();
+            }
+            try {
+                long n = written.get();
+                int base = (int) (n % capacity) * 3;
+                data[base] = Double.doubleToRawLongBits(lat);
+                data[base + 1] = Double.doubleToRawLongBits(lng);
+                data[base + 2] = timestamp;
+                written.set(n + 1);
+            } finally {
+                writing.set(false);
+            }
+        }
+
+        List<Fix> read(int limit) {
+            while (true) {
+                long end = written.get();
+                int count = (int) Math.min(Math.min(limit, end), size);
+                if (count <= 0) return List.of();
+                long[] copy = new long[count * 3];
+                for (int i = 0; i < count; i++) {
+                    int base = (int) ((end - count + i) % capacity) * 3;
+                    System.arraycopy(data, base, copy, i * 3, 3);
+                }
+                VarHandle.acquireFence();
+                // The copy is valid unless the writer came back around to the oldest slot we read
+                if (written.get() - end < capacity - count) {
+                    List<Fix> fixes = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        fixes.add(new Fix(Double.longBitsToDouble(copy[i * 3]),
+                                Double.longBitsToDouble(copy[i * 3 + 1]), copy[i * 3 + 2]));
+                    }
+                    return fixes;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package com.Transpo.transpo.service;
+
+import com.Transpo.transpo.exception.BadRequestException;
+import com.Transpo.transpo.exception.NotFoundException;
+import com.Transpo.transpo.model.Schedule;
+import com.Transpo.transpo.repository.ReservationBatchRepository;
+import com.Transpo.transpo.repository.ReservationBatchRepository.SeatMove;
+import com.Transpo.transpo.repository.ReservationRepository;
+import com.Transpo.transpo.repository.ScheduleRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulk rebooking of every active reservation of one or more schedules onto a replacement
+ * schedule, e.g. after a breakdown.
+ * Seats are assigned up front against the in-memory seat inventory: first the same seat number,
+ * then first fit in boarding order. The moves are then written in chunks, each chunk one JDBC
+ * batch in its own transaction; the source seats are released once it commits. Jobs run one at a
+ * time in the background and their progress is kept in memory.
+ */
+@Service
+public class RebookingService {
+
+    private final ScheduleRepository scheduleRepo;
+    private final ReservationRepository reservationRepo;
+    private final ReservationBatchRepository reservationBatchRepo;
+    private final SeatInventoryService seatInventory;
+    private final SeatGridCache seatGridCache;
+    private final SeatStreamService seatStream;
+    private final TransactionTemplate tx;
+    private final int chunkSize;
+    private final long retentionMillis;
+    private final Executor executor;
+    private final Map<String, RebookingJob> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RebookingService(ScheduleRepository scheduleRepo,
+                            ReservationRepository reservationRepo,
+                            ReservationBatchRepository reservationBatchRepo,
+                            SeatInventoryService seatInventory,
+                            SeatGridCache seatGridCache,
+                            SeatStreamService seatStream,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${transpo.rebooking.chunk-size:100}") int chunkSize,
+                            @Value("${transpo.rebooking.job-retention-hours:24}") int retentionHours) {
+        this(scheduleRepo, reservationRepo, reservationBatchRepo, seatInventory, seatGridCache, seatStream,
+                transactionManager, chunkSize, retentionHours, Executors.newSingleThreadExecutor(r -> {
+                    Thread t = new Thread(r, "rebooking");
+                    t.setDaemon(true);
+                    return t;
+                }));
+    }
+
+    RebookingService(ScheduleRepository scheduleRepo,
+                     ReservationRepository reservationRepo,
+                     ReservationBatchRepository reservationBatchRepo,
+                     SeatInventoryService seatInventory,
+                     SeatGridCache seatGridCache,
+                     SeatStreamService seatStream,
+                     PlatformTransactionManager transactionManager,
+                     int chunkSize,
+                     int retentionHours,
+                     Executor executor) {
+        this.scheduleRepo = scheduleRepo;
+        this.reservationRepo = reservationRepo;
+        this.reservationBatchRepo = reservationBatchRepo;
+        this.seatInventory = seatInventory;
+        this.seatGridCache = seatGridCache;
+        this.seatStream = seatStream;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.retentionMillis = retentionHours * 3_600_000L;
+        this.executor = executor;
+    }
+
+    /**
+     * Validate and queue a job moving the reservations of a schedule, or of every schedule of a
+     * bus departing in [from, to), to the replacement schedule.
+     */
+    public RebookingJob start(Long scheduleId, Long busId, LocalDateTime from, LocalDateTime to, Long targetScheduleId) {
+        if (targetScheduleId == null) {
+            throw new BadRequestException("targetScheduleId is required");
+        }
+        Schedule target = scheduleRepo.findById(targetScheduleId)
+                .orElseThrow(() -> new NotFoundException("Schedule not found: " + targetScheduleId));
+        if (target.getBus() == null) {
+            throw new BadRequestException("Replacement schedule does not have a bus assigned");
+        }
+
+        List<Schedule> sources;
+        if (scheduleId != null) {
+            sources = List.of(scheduleRepo.findById(scheduleId)
+                    .orElseThrow(() -> new NotFoundException("Schedule not found: " + scheduleId)));
+        } else if (busId != null && from != null && to != null) {
+            if (!from.isBefore(to)) {
+                throw new BadRequestException("from must be before to");
+            }
+            sources = scheduleRepo.findByBusIdAndDepartureBetween(busId, from, to);
+        } else {
+            throw new BadRequestException("scheduleId, or busId with from and to, is required");
+        }
+
+        List<Long> sourceIds = new ArrayList<>();
+        for (Schedule s : sources) {
+            if (s.getId().equals(targetScheduleId)) continue;
+            // Pickup and drop stops are kept, so they must belong to the replacement's route
+            if (!Objects.equals(s.getRoute().getId(), target.getRoute().getId())) {
+                throw new BadRequestException("Schedule " + s.getId() + " runs a different route than the replacement");
+            }
+            sourceIds.add(s.getId());
+        }
+        if (sourceIds.isEmpty()) {
+            throw new BadRequestException("No schedules to rebook");
+        }
+
+        prune();
+        RebookingJob job = new RebookingJob(UUID.randomUUID().toString(), sourceIds, targetScheduleId);
+        jobs.put(job.getId(), job);
+        executor.execute(() -> run(job));
+        return job;
+    }
+
+    public RebookingJob get(String jobId) {
+        RebookingJob job = jobs.get(jobId);
+        if (job == null) throw new NotFoundException("Rebooking job not found: " + jobId);
+        return job;
+    }
+
+    void run(RebookingJob job) {
+        job.status = Status.RUNNING;
+        // Filled as seats are claimed, so a failure while assigning still releases them
+        List<Move> moves = new ArrayList<>();
+        int committed = 0;
+        try {
+            Schedule target = scheduleRepo.findById(job.targetScheduleId)
+                    .orElseThrow(() -> new NotFoundException("Schedule not found: " + job.targetScheduleId));
+            int totalSeats = target.getBus().getTotalSeats();
+
+            List<Candidate> candidates = new ArrayList<>();
+            for (Object[] row : reservationRepo.findRebookingRows(job.sourceScheduleIds)) {
+                candidates.add(new Candidate((Long) row[0], (Long) row[1], ((Number) row[2]).intValue(),
+                        ((Number) row[3]).intValue(), SeatInventoryService.legMask((Integer) row[4], (Integer) row[5])));
+            }
+            job.total = candidates.size();
+            assign(candidates, job.targetScheduleId, totalSeats, moves, job.unplacedReservationIds);
+
+            for (int start = 0; start < moves.size(); start += chunkSize) {
+                List<Move> chunk = moves.subList(start, Math.min(moves.size(), start + chunkSize));
+                Integer moved = tx.execute(status -> commitChunk(job.targetScheduleId, totalSeats, chunk));
+                committed = start + chunk.size();
+                job.moved.addAndGet(moved != null ? moved : 0);
+            }
+            job.status = Status.COMPLETED;
+        } catch (RuntimeException e) {
+            // Seats claimed for chunks that never committed go back to the replacement schedule
+            for (Move move : moves.subList(committed, moves.size())) {
+                seatInventory.release(job.targetScheduleId, move.seatNumber, move.from.legs);
+            }
+            job.error = e.getMessage();
+            job.status = Status.FAILED;
+        } finally {
+            job.finishedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Claim a seat on the replacement for each candidate: the same seat number where its legs are
+     * free, then the lowest free seat in boarding order, which packs partial trips onto as few
+     * seats as possible. Each claimed seat is added to moves as soon as it is claimed; candidates
+     * without a seat are added to unplaced.
+     */
+    void assign(List<Candidate> candidates, Long targetScheduleId, int totalSeats, List<Move> moves,
+                List<Long> unplaced) {
+        List<Candidate> rest = new ArrayList<>();
+        for (Candidate c : candidates) {
+            SeatInventoryService.Claim claim = c.seatNumber <= totalSeats
+                    ? seatInventory.claimLegs(targetScheduleId, totalSeats, c.seatNumber, c.legs)
+                    : SeatInventoryService.Claim.CONFLICT;
+            if (claim.succeeded()) {
+                moves.add(new Move(c, c.seatNumber));
+            } else {
+                rest.add(c);
+            }
+        }
+        rest.sort(Comparator.comparingInt(c -> Long.numberOfTrailingZeros(c.legs)));
+        for (Candidate c : rest) {
+            Move placed = null;
+            for (int seat = 1; seat <= totalSeats && placed == null; seat++) {
+                SeatInventoryService.Claim claim = seatInventory.claimLegs(targetScheduleId, totalSeats, seat, c.legs);
+                if (claim.succeeded()) {
+                    placed = new Move(c, seat);
+                }
+            }
+            if (placed != null) {
+                moves.add(placed);
+            } else {
+                unplaced.add(c.reservationId);
+            }
+        }
+    }
+
+    private int commitChunk(Long targetScheduleId, int totalSeats, List<Move> chunk) {
+        List<SeatMove> seatMoves = new ArrayList<>(chunk.size());
+        for (Move move : chunk) {
+            seatMoves.add(new SeatMove(move.from.reservationId, move.from.scheduleId, move.seatNumber));
+        }
+        int[] counts = reservationBatchRepo.moveAll(targetScheduleId, seatMoves);
+
+        List<Move> done = new ArrayList<>();
+        List<Move> skipped = new ArrayList<>();
+        // Legs leaving each source seat; a seat shared by several moved reservations is freed once
+        Map<Long, Map<Integer, Long>> leaving = new HashMap<>();
+        Map<Long, Integer> sourceSeats = new HashMap<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            Move move = chunk.get(i);
+            // A reservation cancelled or moved meanwhile is not updated
+            if (counts[i] == 0) {
+                skipped.add(move);
+                continue;
+            }
+            done.add(move);
+            leaving.computeIfAbsent(move.from.scheduleId, id -> new HashMap<>())
+                    .merge(move.from.seatNumber, move.from.legs, (a, b) -> a | b);
+            sourceSeats.put(move.from.scheduleId, move.from.totalSeats);
+        }
+
+        List<SeatStreamService.SeatDelta> targetDeltas = new ArrayList<>();
+        for (Move move : done) {
+            targetDeltas.add(new SeatStreamService.SeatDelta(move.seatNumber, "RESERVED"));
+        }
+        seatGridCache.invalidateAfterCommit(targetScheduleId);
+        if (!targetDeltas.isEmpty()) {
+            seatStream.publishAfterCommit(targetScheduleId, targetDeltas);
+        }
+        // Source seats are freed only once the moves committed; whether a seat is now empty is read
+        // from the inventory then, as other bookings may have changed it in the meantime
+        afterCommit(() -> {
+            for (Move move : skipped) {
+                seatInventory.release(targetScheduleId, move.seatNumber, move.from.legs);
+            }
+            for (Map.Entry<Long, Map<Integer, Long>> source : leaving.entrySet()) {
+                Long scheduleId = source.getKey();
+                List<SeatStreamService.SeatDelta> changes = new ArrayList<>();
+                for (Map.Entry<Integer, Long> seat : source.getValue().entrySet()) {
+                    seatInventory.release(scheduleId, seat.getKey(), seat.getValue());
+                    boolean taken = seatInventory.isTaken(scheduleId, sourceSeats.get(scheduleId), seat.getKey());
+                    changes.add(new SeatStreamService.SeatDelta(seat.getKey(), taken ? "RESERVED" : "AVAILABLE"));
+                }
+                seatGridCache.invalidate(scheduleId);
+                seatStream.publish(scheduleId, changes);
+            }
+        });
+        return done.size();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void prune() {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        jobs.values().removeIf(job -> job.finishedAt != 0 && job.finishedAt < cutoff);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor instanceof ExecutorService service) {
+            service.shutdownNow();
+        }
+    }
+
+    record Candidate(long reservationId, long scheduleId, int totalSeats, int seatNumber, long legs) {}
+
+    record Move(Candidate from, int seatNumber) {}
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    /**
+     * Progress of one rebooking job. Reservations left on their schedule for lack of a seat are
+     * listed in unplacedReservationIds.
+     */
+    public static class RebookingJob {
+        private final String id;
+        private final List<Long> sourceScheduleIds;
+        private final Long targetScheduleId;
+        private final long createdAt = System.currentTimeMillis();
+        private final AtomicInteger moved = new AtomicInteger();
+        private final List<Long> unplacedReservationIds = Collections.synchronizedList(new ArrayList<>());
+        private volatile Status status = Status.QUEUED;
+        private volatile int total;
+        private volatile String error;
+        private volatile long finishedAt;
+
+        RebookingJob(String id, List<Long> sourceScheduleIds, Long targetScheduleId) {
+            this.id = id;
+            this.sourceScheduleIds = sourceScheduleIds;
+            this.targetScheduleId = targetScheduleId;
+        }
+
+        public String getId() { return id; }
+        public List<Long> getSourceScheduleIds() { return sourceScheduleIds; }
+        public Long getTargetScheduleId() { return targetScheduleId; }
+        public Status getStatus() { return status; }
+        public int getTotal() { return total; }
+        public int getMoved() { return moved.get(); }
+        public List<Long> getUnplacedReservationIds() {
+            synchronized (unplacedReservationIds) {
+                return List.copyOf(unplacedReservationIds);
+            }
+        }
+        public String getError() { return error; }
+        public long getCreatedAt() { return createdAt; }
+        public Long getFinishedAt() { return finishedAt != 0 ? finishedAt : null; }
+    }
+}
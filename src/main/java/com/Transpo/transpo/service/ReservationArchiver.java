@@ -0,0 +1,169 @@
+package com.Transpo.transpo.service;
+
+import com.Transpo.transpo.model.Reservation;
+import com.Transpo.transpo.model.ReservationArchiveEvent;
+import com.Transpo.transpo.repository.ReservationArchiveOutboxRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Moves cancelled reservations from the archive outbox to reservation_history in the background.
+ * A cancellation only inserts its outbox row in its own transaction; the writer copies whole
+ * batches with one INSERT ... SELECT and deletes them in the same transaction, so a crash
+ * replays the batch instead of losing or duplicating it. Outbox rows left over from a previous
+ * run are drained on startup.
+ * Backpressure: bursts wait in the durable outbox while the writer moves at most
+ * max-batches-per-run batches per tick, halving its batch size whenever a batch is slower
+ * than the target and growing it back while batches are fast and full.
+ */
+@Service
+public class ReservationArchiver {
+
+    private final ReservationArchiveOutboxRepository outboxRepo;
+    private final TransactionTemplate tx;
+    private final int maxBatchSize;
+    private final int minBatchSize;
+    private final long targetBatchNanos;
+    private final int maxBatchesPerRun;
+    private final long recheckMillis;
+    private final ReentrantLock draining = new ReentrantLock();
+
+    // Events committed since the outbox was last seen empty; 0 lets idle ticks skip the query
+    private final AtomicLong pending = new AtomicLong();
+    private volatile long lastCheckAt;
+    private volatile int batchSize;
+    private volatile long lastBatchMillis;
+    private volatile String lastError;
+    private final LongAdder archived = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public ReservationArchiver(ReservationArchiveOutboxRepository outboxRepo,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${transpo.archival.batch-size:500}") int maxBatchSize,
+                               @Value("${transpo.archival.min-batch-size:20}") int minBatchSize,
+                               @Value("${transpo.archival.target-batch-ms:200}") long targetBatchMillis,
+                               @Value("${transpo.archival.max-batches-per-run:20}") int maxBatchesPerRun,
+                               @Value("${transpo.archival.recheck-seconds:30}") int recheckSeconds) {
+        this.outboxRepo = outboxRepo;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.maxBatchSize = maxBatchSize;
+        this.minBatchSize = Math.min(minBatchSize, maxBatchSize);
+        this.targetBatchNanos = targetBatchMillis * 1_000_000L;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.recheckMillis = recheckSeconds * 1000L;
+        this.batchSize = maxBatchSize;
+    }
+
+    /**
+     * Queue a reservation for archival as part of the current transaction.
+     * Must run before the reservation is deleted.
+     */
+    public void archive(Reservation r) {
+        ReservationArchiveEvent event = new ReservationArchiveEvent();
+        event.copyFrom(r);
+        outboxRepo.save(event);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            pending.incrementAndGet();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                pending.incrementAndGet();
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void replay() {
+        pending.set(outboxRepo.count());
+        drain();
+    }
+
+    /**
+     * Move pending events to history. Returns the number of rows archived.
+     */
+    @Scheduled(fixedDelayString = "${transpo.archival.poll-interval-ms:500}")
+    public int drain() {
+        long now = System.currentTimeMillis();
+        // Also look now and then without a signal, for events committed by another instance
+        if (pending.get() == 0 && now - lastCheckAt < recheckMillis) return 0;
+        if (!draining.tryLock()) return 0;
+        int moved = 0;
+        try {
+            lastCheckAt = now;
+            for (int i = 0; i < maxBatchesPerRun; i++) {
+                long seen = pending.get();
+                int size = batchSize;
+                int n = moveBatch(size);
+                moved += n;
+                if (n < size) {
+                    // Drained as of the signals read before the batch; newer signals keep the writer going
+                    pending.compareAndSet(seen, 0);
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            failures.increment();
+            lastError = e.getMessage();
+        } finally {
+            draining.unlock();
+        }
+        return moved;
+    }
+
+    private int moveBatch(int size) {
+        long start = System.nanoTime();
+        Integer moved = tx.execute(status -> {
+            List<Long> ids = outboxRepo.findBatchIds(size);
+            if (ids.isEmpty()) return 0;
+            outboxRepo.copyToHistory(ids);
+            if (outboxRepo.deleteByIdIn(ids) != ids.size()) {
+                // Another writer moved some of these rows first: roll back rather than duplicate them
+                status.setRollbackOnly();
+                return 0;
+            }
+            return ids.size();
+        });
+        long elapsed = System.nanoTime() - start;
+        int n = moved != null ? moved : 0;
+        if (n > 0) {
+            archived.add(n);
+            batches.increment();
+            lastBatchMillis = elapsed / 1_000_000;
+        }
+        if (elapsed > targetBatchNanos) {
+            batchSize = Math.max(minBatchSize, size / 2);
+        } else if (n == size) {
+            batchSize = Math.min(maxBatchSize, size * 2);
+        }
+        return n;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pendingSignals", pending.get());
+        stats.put("batchSize", batchSize);
+        stats.put("archived", archived.sum());
+        stats.put("batches", batches.sum());
+        stats.put("lastBatchMillis", lastBatchMillis);
+        stats.put("failures", failures.sum());
+        stats.put("lastError", lastError);
+        return stats;
+    }
+}
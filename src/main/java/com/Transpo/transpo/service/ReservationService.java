@@ -1,21 +1,29 @@
 package com.Transpo.transpo.service;
 
+import com.Transpo.transpo.config.MetricsRegistry;
 import com.Transpo.transpo.exception.BadRequestException;
 import com.Transpo.transpo.exception.ConflictException;
 import com.Transpo.transpo.exception.NotFoundException;
+import com.Transpo.transpo.dto.BatchBookingRequestDTO;
 import com.Transpo.transpo.dto.ReservationDTO;
 import com.Transpo.transpo.dto.SeatAvailabilityDTO;
 import com.Transpo.transpo.model.Reservation;
 import com.Transpo.transpo.model.Schedule;
+import com.Transpo.transpo.repository.ReservationBatchRepository;
 import com.Transpo.transpo.repository.ReservationRepository;
 import com.Transpo.transpo.repository.ReservationHistoryRepository;
 import com.Transpo.transpo.model.ReservationHistory;
+import com.Transpo.transpo.model.ReservationSnapshot;
+import com.Transpo.transpo.repository.ReservationArchiveOutboxRepository;
 import com.Transpo.transpo.repository.ScheduleRepository;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
 import com.Transpo.transpo.model.BusStop;
 import com.Transpo.transpo.repository.BusStopRepository;
 import com.Transpo.transpo.repository.DriverAssignmentRepository;
@@ -24,6 +32,7 @@ import com.Transpo.transpo.repository.ConductorAssignmentRepository;
 import com.Transpo.transpo.model.SeatState;
 
 
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -39,6 +48,22 @@ public class ReservationService {
     private final SeatStateRepository seatStateRepo;
     private final ConductorAssignmentRepository conductorAssignmentRepo;
     private final ReservationHistoryRepository reservationHistoryRepo;
+    private final SeatInventoryService seatInventory;
+    private final SeatHoldService seatHoldService;
+    private final ReservationBatchRepository reservationBatchRepo;
+    private final SeatGridCache seatGridCache;
+    private final SeatStreamService seatStream;
+    private final ReservationArchiver archiver;
+    private final ReservationArchiveOutboxRepository archiveOutboxRepo;
+    private final BookingProfiler profiler;
+
+    private final MetricsRegistry.TransactionTimer bookTimer;
+    private final MetricsRegistry.TransactionTimer bookHeldTimer;
+    private final MetricsRegistry.TransactionTimer bookBatchTimer;
+    private final MetricsRegistry.TransactionTimer cancelTimer;
+    private final MetricsRegistry.TransactionTimer updateTimer;
+    private final MetricsRegistry.Counter soldOut;
+    private final MetricsRegistry.Counter seatTaken;
 
     public ReservationService(ReservationRepository reservationRepo, 
                              ScheduleRepository scheduleRepo,
@@ -47,7 +72,16 @@ public class ReservationService {
                              DriverAssignmentRepository driverAssignmentRepo,
                              SeatStateRepository seatStateRepo,
                              ConductorAssignmentRepository conductorAssignmentRepo,
-                             ReservationHistoryRepository reservationHistoryRepo) {
+                             ReservationHistoryRepository reservationHistoryRepo,
+                             SeatInventoryService seatInventory,
+                             SeatHoldService seatHoldService,
+                             ReservationBatchRepository reservationBatchRepo,
+                             SeatGridCache seatGridCache,
+                             SeatStreamService seatStream,
+                             ReservationArchiver archiver,
+                             ReservationArchiveOutboxRepository archiveOutboxRepo,
+                             MetricsRegistry metrics,
+                             BookingProfiler profiler) {
         this.reservationRepo = reservationRepo;
         this.scheduleRepo = scheduleRepo;
         this.ruleService = ruleService;
@@ -56,6 +90,21 @@ public class ReservationService {
         this.seatStateRepo = seatStateRepo;
         this.conductorAssignmentRepo = conductorAssignmentRepo;
         this.reservationHistoryRepo = reservationHistoryRepo;
+        this.seatInventory = seatInventory;
+        this.seatHoldService = seatHoldService;
+        this.reservationBatchRepo = reservationBatchRepo;
+        this.seatGridCache = seatGridCache;
+        this.seatStream = seatStream;
+        this.archiver = archiver;
+        this.archiveOutboxRepo = archiveOutboxRepo;
+        this.profiler = profiler;
+        this.bookTimer = metrics.transactionTimer("transpo_reservation_seconds", "op", "book");
+        this.bookHeldTimer = metrics.transactionTimer("transpo_reservation_seconds", "op", "book_held");
+        this.bookBatchTimer = metrics.transactionTimer("transpo_reservation_seconds", "op", "book_batch");
+        this.cancelTimer = metrics.transactionTimer("transpo_reservation_seconds", "op", "cancel");
+        this.updateTimer = metrics.transactionTimer("transpo_reservation_seconds", "op", "update");
+        this.soldOut = metrics.counter("transpo_reservation_conflicts_total", "cause", "sold_out");
+        this.seatTaken = metrics.counter("transpo_reservation_conflicts_total", "cause", "seat_taken");
     }
 
     /**
@@ -69,16 +118,187 @@ public class ReservationService {
         return principal.toString();
     }
 
+    /**
+     * Release an in-memory seat claim if the surrounding transaction does not commit.
+     */
+    private void releaseSeatOnRollback(Long scheduleId, int seatNumber, long legs) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    seatInventory.release(scheduleId, seatNumber, legs);
+                }
+            }
+        });
+    }
+
+    /**
+     * Release an in-memory seat claim once the surrounding transaction commits.
+     */
+    private void releaseSeatAfterCommit(Long scheduleId, int seatNumber, long legs) {
+        if (legs == 0) return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            seatInventory.release(scheduleId, seatNumber, legs);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                seatInventory.release(scheduleId, seatNumber, legs);
+            }
+        });
+    }
+
+    /**
+     * Release legs of a seat once the surrounding transaction commits and tell seat stream
+     * subscribers whether the seat is now available. The seat is read after the release, so
+     * legs sold to someone else meanwhile keep it reserved.
+     */
+    private void freeSeatAfterCommit(Long scheduleId, int totalSeats, int seatNumber, long legs) {
+        Runnable free = () -> {
+            seatInventory.release(scheduleId, seatNumber, legs);
+            String status = seatInventory.isTaken(scheduleId, totalSeats, seatNumber) ? "RESERVED" : "AVAILABLE";
+            seatGridCache.invalidate(scheduleId);
+            seatStream.publish(scheduleId, List.of(new SeatStreamService.SeatDelta(seatNumber, status)));
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            free.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                free.run();
+            }
+        });
+    }
+
+    private ConflictException conflict(MetricsRegistry.Counter cause, String message) {
+        cause.increment();
+        return new ConflictException(message);
+    }
+
+    private ConflictException seatTaken(int seatNumber) {
+        return conflict(seatTaken, "Seat " + seatNumber + " already taken for this schedule");
+    }
+
     @Transactional
     public Reservation bookSeat(Long scheduleId, String passengerName, 
                                String passengerEmail, int seatNumber
                                , Long pickupStopId, Long dropStopId) {
-        
-        // Lock schedule row for update
-        Schedule schedule = scheduleRepo.findScheduleById(scheduleId);
-        if (schedule == null) {
-            throw new NotFoundException("Schedule not found: " + scheduleId);
+        bookTimer.start();
+
+        // Each phase is timed for JFR and the hot-schedule summary, including the one a failed booking stopped in
+        BookingProfiler.Booking booking = profiler.booking(scheduleId, seatNumber);
+        try {
+            booking.phase(BookingProfiler.Phase.SCHEDULE_LOAD);
+            Schedule schedule = loadBookableSchedule(scheduleId, seatNumber);
+            int maxSeat = schedule.getBus().getTotalSeats();
+
+            // Validate pickup and drop stops
+            booking.phase(BookingProfiler.Phase.STOP_VALIDATION);
+            BusStop pickupStop = resolveStop(pickupStopId, schedule, "Pickup");
+            BusStop dropStop = resolveStop(dropStopId, schedule, "Drop");
+            validateStopOrder(pickupStop, dropStop);
+            long legs = SeatInventoryService.legMask(pickupStop, dropStop);
+
+            booking.phase(BookingProfiler.Phase.CONFLICT_CHECK);
+            // A full bus can still sell a seat for legs that are free on it
+            if (legs == SeatInventoryService.FULL_TRIP && seatInventory.takenCount(scheduleId, maxSeat) >= maxSeat) {
+                throw conflict(soldOut, "No seats available");
+            }
+
+            // Fast duplicate check; the legs are only claimed once all validation passed
+            if (!seatInventory.isFree(scheduleId, maxSeat, seatNumber, legs)) {
+                throw seatTaken(seatNumber);
+            }
+
+            // Apply business rules based on user role
+            booking.phase(BookingProfiler.Phase.RULE_VALIDATION);
+            ruleService.validateReservationRules(getCurrentUsername(), schedule, true);
+
+            // Claim the legs of the seat (compare-and-set) before writing the reservation row
+            booking.phase(BookingProfiler.Phase.SEAT_CLAIM);
+            SeatInventoryService.Claim claim = seatInventory.claimLegs(scheduleId, maxSeat, seatNumber, legs);
+            if (!claim.succeeded()) {
+                throw seatTaken(seatNumber);
+            }
+            releaseSeatOnRollback(scheduleId, seatNumber, legs);
+
+            Reservation saved = insertReservation(schedule, passengerName, passengerEmail, seatNumber,
+                    pickupStop, dropStop, booking);
+            booking.ok();
+            return saved;
+        } catch (ConflictException e) {
+            booking.conflict();
+            throw e;
+        } finally {
+            booking.end();
         }
+    }
+
+    /**
+     * Convert a seat hold into a reservation. The held seat is reused as-is:
+     * no seat conflict check is needed because the hold already owns the seat.
+     */
+    @Transactional
+    public Reservation bookHeldSeat(String holdId, String passengerName, String passengerEmail,
+                                    Long pickupStopId, Long dropStopId) {
+        bookHeldTimer.start();
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated()) {
+            throw new BadRequestException("Authentication required");
+        }
+        SeatHoldService.SeatHold hold = seatHoldService.take(holdId, auth.getName(), hasRole(auth, "ADMIN"));
+        // If the reservation does not commit, hand the seat back to the hold
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        seatHoldService.restore(hold);
+                    }
+                }
+            });
+        }
+
+        BookingProfiler.Booking booking = profiler.booking(hold.getScheduleId(), hold.getSeatNumber());
+        try {
+            booking.phase(BookingProfiler.Phase.SCHEDULE_LOAD);
+            Schedule schedule = loadBookableSchedule(hold.getScheduleId(), hold.getSeatNumber());
+
+            booking.phase(BookingProfiler.Phase.RULE_VALIDATION);
+            ruleService.validateReservationRules(auth.getName(), schedule, true);
+
+            booking.phase(BookingProfiler.Phase.STOP_VALIDATION);
+            BusStop pickupStop = resolveStop(pickupStopId, schedule, "Pickup");
+            BusStop dropStop = resolveStop(dropStopId, schedule, "Drop");
+            validateStopOrder(pickupStop, dropStop);
+
+            // The hold owns the whole seat; give back the legs this passenger does not ride
+            long legs = SeatInventoryService.legMask(pickupStop, dropStop);
+            releaseSeatAfterCommit(schedule.getId(), hold.getSeatNumber(), SeatInventoryService.FULL_TRIP & ~legs);
+
+            Reservation saved = insertReservation(schedule, passengerName, passengerEmail, hold.getSeatNumber(),
+                    pickupStop, dropStop, booking);
+            booking.ok();
+            return saved;
+        } catch (ConflictException e) {
+            booking.conflict();
+            throw e;
+        } finally {
+            booking.end();
+        }
+    }
+
+    /**
+     * Load a schedule for booking and validate the bus capacity and seat range.
+     */
+    private Schedule loadBookableSchedule(Long scheduleId, int seatNumber) {
+        // No row lock: seat conflicts are resolved by the in-memory inventory
+        Schedule schedule = scheduleRepo.findById(scheduleId)
+                .orElseThrow(() -> new NotFoundException("Schedule not found: " + scheduleId));
 
         if (schedule.getBus() == null) {
             throw new BadRequestException("Schedule does not have a bus assigned");
@@ -91,55 +311,54 @@ public class ReservationService {
         if (seatNumber < 1 || seatNumber > maxSeat) {
             throw new BadRequestException("Seat number must be between 1 and " + maxSeat);
         }
+        return schedule;
+    }
 
-        if (schedule.getAvailableSeats() <= 0) {
-            throw new ConflictException("No seats available");
-        }
-
-        // Check duplicate seat booking only (allow multiple reservations by same user on same schedule)
-        List<Reservation> existing = reservationRepo.findByScheduleId(scheduleId);
-        for (Reservation r : existing) {
-            if (r.getSeatNumber() == seatNumber && (r.getStatus() == null || r.getStatus().equalsIgnoreCase("RESERVED") || r.isPaid())) {
-                throw new ConflictException("Seat " + seatNumber + " already taken for this schedule");
-            }
-        }
-
-        // Apply business rules based on user role
-        ruleService.validateReservationRules(getCurrentUsername(), schedule, true);
+    /**
+     * Load a pickup/drop stop and verify it belongs to the route of the schedule.
+     */
+    private BusStop resolveStop(Long stopId, Schedule schedule, String label) {
+        if (stopId == null) return null;
+        BusStop stop = busStopRepo.findById(stopId)
+                .orElseThrow(() -> new NotFoundException(label + " stop not found: " + stopId));
+        if (!stop.getRoute().getId().equals(schedule.getRoute().getId())) {
+            throw new BadRequestException(label + " stop does not belong to this route");
+        }
+        return stop;
+    }
 
-         // Validate pickup and drop stops
-        BusStop pickupStop = null;
-        BusStop dropStop = null;
-        
-        if (pickupStopId != null) {
-            pickupStop = busStopRepo.findById(pickupStopId)
-                    .orElseThrow(() -> new NotFoundException("Pickup stop not found: " + pickupStopId));
-            // Verify pickup stop belongs to the route of this schedule
-            if (!pickupStop.getRoute().getId().equals(schedule.getRoute().getId())) {
-                throw new BadRequestException("Pickup stop does not belong to this route");
-            }
-        }
-        
-        if (dropStopId != null) {
-            dropStop = busStopRepo.findById(dropStopId)
-                    .orElseThrow(() -> new NotFoundException("Drop stop not found: " + dropStopId));
-            // Verify drop stop belongs to the route of this schedule
-            if (!dropStop.getRoute().getId().equals(schedule.getRoute().getId())) {
-                throw new BadRequestException("Drop stop does not belong to this route");
-            }
-        }
-        
-        // Verify pickup comes before drop in the route sequence
+    /**
+     * Verify pickup comes before drop in the route sequence.
+     */
+    private void validateStopOrder(BusStop pickupStop, BusStop dropStop) {
         if (pickupStop != null && dropStop != null) {
             if (pickupStop.getSequence() >= dropStop.getSequence()) {
                 throw new BadRequestException("Pickup stop must come before drop stop in the route");
             }
         }
+    }
+
+    private boolean hasRole(Authentication auth, String role) {
+        return auth.getAuthorities().stream().anyMatch(a -> a.getAuthority() != null && a.getAuthority().contains(role));
+    }
 
-        // Decrease availability
-        schedule.setAvailableSeats(schedule.getAvailableSeats() - 1);
-        scheduleRepo.save(schedule);
+    /**
+     * Write the reservation row for an already claimed seat. availableSeats follows the claim
+     * through {@link AvailableSeatsUpdater}.
+     */
+    private Reservation insertReservation(Schedule schedule, String passengerName, String passengerEmail,
+                                          int seatNumber, BusStop pickupStop, BusStop dropStop,
+                                          BookingProfiler.Booking booking) {
+        booking.phase(BookingProfiler.Phase.INSERT);
+        Reservation saved = reservationRepo.save(
+                newReservation(schedule, passengerName, passengerEmail, seatNumber, pickupStop, dropStop));
+        seatGridCache.invalidateAfterCommit(schedule.getId());
+        seatStream.publishAfterCommit(schedule.getId(), List.of(new SeatStreamService.SeatDelta(seatNumber, "RESERVED")));
+        return saved;
+    }
 
+    private Reservation newReservation(Schedule schedule, String passengerName, String passengerEmail,
+                                       int seatNumber, BusStop pickupStop, BusStop dropStop) {
         // Create reservation
         Reservation res = new Reservation();
         res.setSchedule(schedule);
@@ -156,8 +375,91 @@ public class ReservationService {
             // also set creator username
             res.setCreatedBy(auth.getName());
         }
+        return res;
+    }
+
+    /**
+     * Book several seats on one schedule atomically: either every seat is booked or none.
+     * Seats are claimed in the in-memory inventory and the rows are written with one JDBC batch.
+     */
+    @Transactional
+    public List<Reservation> bookSeats(Long scheduleId, String defaultEmail, List<BatchBookingRequestDTO.Seat> seats) {
+        bookBatchTimer.start();
+        if (scheduleId == null) {
+            throw new BadRequestException("scheduleId is required");
+        }
+        if (seats == null || seats.isEmpty()) {
+            throw new BadRequestException("At least one seat is required");
+        }
+
+        Schedule schedule = loadBookableSchedule(scheduleId, seats.get(0).seatNumber);
+        int maxSeat = schedule.getBus().getTotalSeats();
+
+        java.util.Set<Integer> requested = new java.util.HashSet<>();
+        java.util.Set<Long> stopIds = new java.util.HashSet<>();
+        for (BatchBookingRequestDTO.Seat seat : seats) {
+            if (seat.seatNumber < 1 || seat.seatNumber > maxSeat) {
+                throw new BadRequestException("Seat number must be between 1 and " + maxSeat);
+            }
+            if (!requested.add(seat.seatNumber)) {
+                throw new BadRequestException("Seat " + seat.seatNumber + " requested more than once");
+            }
+            if (seat.pickupStopId != null) stopIds.add(seat.pickupStopId);
+            if (seat.dropStopId != null) stopIds.add(seat.dropStopId);
+        }
 
-        return reservationRepo.save(res);
+        ruleService.validateReservationRules(getCurrentUsername(), schedule, true);
+
+        // Load every referenced stop with one query
+        java.util.Map<Long, BusStop> stops = new java.util.HashMap<>();
+        for (BusStop stop : busStopRepo.findAllById(stopIds)) {
+            stops.put(stop.getId(), stop);
+        }
+
+        List<Reservation> toInsert = new java.util.ArrayList<>(seats.size());
+        long[] legs = new long[seats.size()];
+        for (int i = 0; i < seats.size(); i++) {
+            BatchBookingRequestDTO.Seat seat = seats.get(i);
+            BusStop pickupStop = batchStop(stops, seat.pickupStopId, schedule, "Pickup");
+            BusStop dropStop = batchStop(stops, seat.dropStopId, schedule, "Drop");
+            validateStopOrder(pickupStop, dropStop);
+            legs[i] = SeatInventoryService.legMask(pickupStop, dropStop);
+            String email = seat.passengerEmail != null && !seat.passengerEmail.isBlank() ? seat.passengerEmail : defaultEmail;
+            toInsert.add(newReservation(schedule, seat.passengerName, email, seat.seatNumber, pickupStop, dropStop));
+        }
+
+        // Claim all seats; on the first conflict give back the legs already claimed
+        for (int i = 0; i < seats.size(); i++) {
+            SeatInventoryService.Claim claim = seatInventory.claimLegs(scheduleId, maxSeat, seats.get(i).seatNumber, legs[i]);
+            if (!claim.succeeded()) {
+                for (int j = 0; j < i; j++) {
+                    seatInventory.release(scheduleId, seats.get(j).seatNumber, legs[j]);
+                }
+                throw seatTaken(seats.get(i).seatNumber);
+            }
+        }
+        for (int i = 0; i < seats.size(); i++) {
+            releaseSeatOnRollback(scheduleId, seats.get(i).seatNumber, legs[i]);
+        }
+
+        List<Reservation> saved = reservationBatchRepo.insertAll(toInsert);
+        seatGridCache.invalidateAfterCommit(scheduleId);
+        seatStream.publishAfterCommit(scheduleId, seats.stream()
+                .map(seat -> new SeatStreamService.SeatDelta(seat.seatNumber, "RESERVED"))
+                .toList());
+        return saved;
+    }
+
+    private BusStop batchStop(java.util.Map<Long, BusStop> stops, Long stopId, Schedule schedule, String label) {
+        if (stopId == null) return null;
+        BusStop stop = stops.get(stopId);
+        if (stop == null) {
+            throw new NotFoundException(label + " stop not found: " + stopId);
+        }
+        if (!stop.getRoute().getId().equals(schedule.getRoute().getId())) {
+            throw new BadRequestException(label + " stop does not belong to this route");
+        }
+        return stop;
     }
 
     public List<Reservation> getByEmail(String email) {
@@ -166,6 +468,7 @@ public class ReservationService {
 
     @Transactional
     public void cancelReservation(Long reservationId) {
+        cancelTimer.start();
         Reservation r = reservationRepo.findById(reservationId)
                 .orElseThrow(() -> new NotFoundException("Reservation not found: " + reservationId));
 
@@ -193,32 +496,19 @@ public class ReservationService {
         // Business rules validation for cancellation
         ruleService.validateReservationRules(user, schedule, false);
 
-    // Copy to history, delete original, free seat
-    ReservationHistory h = new ReservationHistory();
-    h.setBookingTime(r.getBookingTime());
-    h.setCreatedBy(r.getCreatedBy());
-    h.setDropStopId(r.getDropStop() != null ? r.getDropStop().getId() : null);
-    h.setPaid(r.isPaid());
-    h.setPassengerEmail(r.getPassengerEmail());
-    h.setPassengerName(r.getPassengerName());
-    h.setPaymentMethod(r.getPaymentMethod());
-    h.setPaymentReference(r.getPaymentReference());
-    h.setPickupStopId(r.getPickupStop() != null ? r.getPickupStop().getId() : null);
-    h.setScheduleId(r.getSchedule() != null ? r.getSchedule().getId() : null);
-    h.setSeatNumber(r.getSeatNumber());
-    h.setStatus("CANCELLED");
-    h.setUsername(r.getUsername());
-    h.setCancelledAt(java.time.LocalDateTime.now());
-    reservationHistoryRepo.save(h);
-
-    // Delete original reservation and free seat
+    // Queue the copy for the background archiver, delete original, free seat
+    archiver.archive(r);
+
+    // Delete original reservation; its legs are freed once the delete commits
+    long legs = SeatInventoryService.legMask(r.getPickupStop(), r.getDropStop());
+    int totalSeats = schedule.getBus() != null ? schedule.getBus().getTotalSeats() : r.getSeatNumber();
     reservationRepo.delete(r);
-    schedule.setAvailableSeats(schedule.getAvailableSeats() + 1);
-    scheduleRepo.save(schedule);
+    freeSeatAfterCommit(schedule.getId(), totalSeats, r.getSeatNumber(), legs);
     }
 
     @Transactional
     public Reservation updateReservation(Long reservationId, ReservationDTO dto) {
+        updateTimer.start();
         if (dto == null) {
             throw new BadRequestException("Reservation update payload is required");
         }
@@ -230,10 +520,8 @@ public class ReservationService {
             throw new BadRequestException("scheduleId is required");
         }
 
-        Schedule newSchedule = scheduleRepo.findScheduleById(dto.getScheduleId());
-        if (newSchedule == null) {
-            throw new NotFoundException("Schedule not found: " + dto.getScheduleId());
-        }
+        Schedule newSchedule = scheduleRepo.findById(dto.getScheduleId())
+                .orElseThrow(() -> new NotFoundException("Schedule not found: " + dto.getScheduleId()));
 
         if (newSchedule.getBus() == null) {
             throw new BadRequestException("Schedule does not have a bus assigned");
@@ -282,23 +570,35 @@ public class ReservationService {
         }
 
         boolean scheduleChanged = !oldSchedule.getId().equals(newSchedule.getId());
-
-        if (scheduleChanged && newSchedule.getAvailableSeats() <= 0) {
-            throw new ConflictException("No seats available");
-        }
-
-        List<Reservation> existing = reservationRepo.findByScheduleId(newSchedule.getId());
-        for (Reservation r : existing) {
-            if (!r.getId().equals(reservationId) && r.getSeatNumber() == seatNumber) {
-                throw new ConflictException("Seat " + seatNumber + " already taken for this schedule");
+        long oldLegs = SeatInventoryService.legMask(reservation.getPickupStop(), reservation.getDropStop());
+        long newLegs = SeatInventoryService.legMask(pickupStop, dropStop);
+        int newTotalSeats = newSchedule.getBus().getTotalSeats();
+
+        if (scheduleChanged && newLegs == SeatInventoryService.FULL_TRIP
+                && seatInventory.takenCount(newSchedule.getId(), newTotalSeats) >= newTotalSeats) {
+            throw conflict(soldOut, "No seats available");
+        }
+
+        boolean seatChanged = scheduleChanged || reservation.getSeatNumber() != seatNumber;
+        if (!seatChanged) {
+            // Same seat: only the legs added by the new stops need claiming
+            long added = newLegs & ~oldLegs;
+            if (added != 0) {
+                if (!seatInventory.claimLegs(newSchedule.getId(), newTotalSeats, seatNumber, added).succeeded()) {
+                    throw seatTaken(seatNumber);
+                }
+                releaseSeatOnRollback(newSchedule.getId(), seatNumber, added);
             }
-        }
+            releaseSeatAfterCommit(oldSchedule.getId(), seatNumber, oldLegs & ~newLegs);
+        } else {
+            if (!seatInventory.claimLegs(newSchedule.getId(), newTotalSeats, seatNumber, newLegs).succeeded()) {
+                throw seatTaken(seatNumber);
+            }
+            releaseSeatOnRollback(newSchedule.getId(), seatNumber, newLegs);
 
-        if (scheduleChanged) {
-            oldSchedule.setAvailableSeats(oldSchedule.getAvailableSeats() + 1);
-            newSchedule.setAvailableSeats(newSchedule.getAvailableSeats() - 1);
-            scheduleRepo.save(oldSchedule);
-            scheduleRepo.save(newSchedule);
+            int oldTotalSeats = oldSchedule.getBus() != null ? oldSchedule.getBus().getTotalSeats() : reservation.getSeatNumber();
+            freeSeatAfterCommit(oldSchedule.getId(), oldTotalSeats, reservation.getSeatNumber(), oldLegs);
+            seatStream.publishAfterCommit(newSchedule.getId(), List.of(new SeatStreamService.SeatDelta(seatNumber, "RESERVED")));
         }
 
         reservation.setSchedule(newSchedule);
@@ -308,6 +608,10 @@ public class ReservationService {
         reservation.setPickupStop(pickupStop);
         reservation.setDropStop(dropStop);
 
+        seatGridCache.invalidateAfterCommit(oldSchedule.getId());
+        if (scheduleChanged) {
+            seatGridCache.invalidateAfterCommit(newSchedule.getId());
+        }
         return reservationRepo.save(reservation);
     }
 
@@ -367,32 +671,18 @@ public class ReservationService {
         // Find driver assignment
         var assignment = driverAssignmentRepo.findByDriverUsername(username)
                 .orElseThrow(() -> new NotFoundException("Driver assignment not found"));
-        
-        // Get all schedules for driver's bus
-        List<Schedule> schedules = scheduleRepo.findAll().stream()
-                .filter(s -> s.getBus().getId().equals(assignment.getBus().getId()))
-                .collect(Collectors.toList());
-        
-        // Get all reservations for these schedules
-        return schedules.stream()
-                .flatMap(s -> reservationRepo.findByScheduleId(s.getId()).stream())
-                .collect(Collectors.toList());
+
+        // All reservations of the bus's schedules in one join query
+        return reservationRepo.findByBusIdWithDetails(assignment.getBus().getId());
     }
 
     /**
      * Get reservations by conductor (for their assigned bus)
      */
     public List<Reservation> getReservationsForConductor(String username) {
-    var assignment = conductorAssignmentRepo.findAll().stream()
-        .filter(a -> a.getConductor() != null && username.equals(a.getConductor().getUsername()))
-        .findFirst()
+    var assignment = conductorAssignmentRepo.findByConductorUsername(username)
         .orElseThrow(() -> new NotFoundException("Conductor assignment not found"));
-    List<Schedule> schedules = scheduleRepo.findAll().stream()
-        .filter(s -> s.getBus() != null && s.getBus().getId().equals(assignment.getBus().getId()))
-        .collect(Collectors.toList());
-    return schedules.stream()
-        .flatMap(s -> reservationRepo.findByScheduleId(s.getId()).stream())
-        .collect(Collectors.toList());
+    return reservationRepo.findByBusIdWithDetails(assignment.getBus().getId());
     }
 
     /**
@@ -420,27 +710,35 @@ public class ReservationService {
     }
 
     public List<java.util.Map<String,Object>> getReservationHistoryForUser(String username) {
-        var items = reservationHistoryRepo.findByUsername(username);
+        // Cancellations still in the archive outbox are listed too, without a history id yet
+        java.util.List<ReservationSnapshot> items = new java.util.ArrayList<>(reservationHistoryRepo.findByUsername(username));
+        items.addAll(archiveOutboxRepo.findByUsername(username));
+        // Bus number and departure come from the schedules, loaded with one query
+        java.util.Set<Long> scheduleIds = new java.util.HashSet<>();
+        for (var h : items) {
+            if (h.getScheduleId() != null) scheduleIds.add(h.getScheduleId());
+        }
+        java.util.Map<Long, Schedule> schedules = new java.util.HashMap<>();
+        if (!scheduleIds.isEmpty()) {
+            for (Schedule s : scheduleRepo.findWithBusByIdIn(scheduleIds)) {
+                schedules.put(s.getId(), s);
+            }
+        }
         java.util.List<java.util.Map<String,Object>> out = new java.util.ArrayList<>();
         for (var h : items) {
             java.util.Map<String,Object> m = new java.util.HashMap<>();
-            m.put("id", h.getId());
+            m.put("id", h instanceof ReservationHistory rh ? rh.getId() : null);
             m.put("passengerName", h.getPassengerName());
             m.put("passengerEmail", h.getPassengerEmail());
             m.put("seatNumber", h.getSeatNumber());
             m.put("bookingTime", h.getBookingTime());
             m.put("cancelledAt", h.getCancelledAt());
             m.put("scheduleId", h.getScheduleId());
-            // busNumber and departureTime require joins; fetch from schedule if available
-            try {
-                if (h.getScheduleId() != null) {
-                    var sched = scheduleRepo.findById(h.getScheduleId()).orElse(null);
-                    if (sched != null) {
-                        m.put("busNumber", sched.getBus() != null ? sched.getBus().getBusNumber() : null);
-                        m.put("departureTime", sched.getDepartureTime());
-                    }
-                }
-            } catch (Exception ignored) {}
+            Schedule sched = schedules.get(h.getScheduleId());
+            if (sched != null) {
+                m.put("busNumber", sched.getBus() != null ? sched.getBus().getBusNumber() : null);
+                m.put("departureTime", sched.getDepartureTime());
+            }
             out.add(m);
         }
         return out;
@@ -450,6 +748,15 @@ public class ReservationService {
      * Build seat availability grid by bus with role-based filtering.
      */
     public SeatAvailabilityDTO getSeatAvailability(Long busId, String busNumber, Long scheduleId, String username) {
+        return getSeatAvailability(busId, busNumber, scheduleId, null, null, username);
+    }
+
+    /**
+     * Seat availability for the legs between the given stops. A seat sold only for other legs
+     * of the route is reported as AVAILABLE.
+     */
+    public SeatAvailabilityDTO getSeatAvailability(Long busId, String busNumber, Long scheduleId,
+                                                  Long pickupStopId, Long dropStopId, String username) {
         if (busId == null && (busNumber == null || busNumber.isBlank())) {
             throw new BadRequestException("busId or busNumber is required");
         }
@@ -466,21 +773,17 @@ public class ReservationService {
                 throw new BadRequestException("Schedule does not belong to bus");
             }
         } else {
-            schedule = scheduleRepo.findAll().stream()
-                    .filter(s -> {
-                        if (s.getBus() == null) return false;
-                        if (busId != null) return s.getBus().getId().equals(busId);
-                        return s.getBus().getBusNumber() != null && s.getBus().getBusNumber().equalsIgnoreCase(busNumber);
-                    })
-                    .findFirst()
+            schedule = (busId != null
+                    ? scheduleRepo.findFirstByBus_IdOrderByIdAsc(busId)
+                    : scheduleRepo.findFirstByBus_BusNumberIgnoreCaseOrderByIdAsc(busNumber))
                     .orElseThrow(() -> new NotFoundException("No schedule for bus: " + (busId != null ? busId : busNumber)));
         }
 
         int totalSeats = schedule.getBus().getTotalSeats();
-        var reservations = reservationRepo.findByScheduleId(schedule.getId());
-
-        // Role-based filtering
-        var seats = new java.util.ArrayList<SeatAvailabilityDTO.Seat>(totalSeats);
+        BusStop pickupStop = resolveStop(pickupStopId, schedule, "Pickup");
+        BusStop dropStop = resolveStop(dropStopId, schedule, "Drop");
+        validateStopOrder(pickupStop, dropStop);
+        long legs = SeatInventoryService.legMask(pickupStop, dropStop);
 
         // Determine role using SecurityContext authorities
     boolean isAdmin = false;
@@ -527,55 +830,22 @@ public class ReservationService {
             }
         }
 
-        // Build seat statuses
-        java.util.Map<Integer, Reservation> bySeat = new java.util.HashMap<>();
-        for (Reservation r : reservations) {
-            bySeat.put(r.getSeatNumber(), r);
-        }
-        for (int i = 1; i <= totalSeats; i++) {
-            SeatAvailabilityDTO.Seat seat = new SeatAvailabilityDTO.Seat();
-        seat.seatNumber = i;
-            Reservation match = bySeat.get(i);
-            if (match == null) {
-                seat.status = "AVAILABLE";
-            } else {
-                seat.status = match.isPaid() ? "PAID" : "RESERVED";
-                // Expose passenger name only for admin/conductor
-                if (isAdmin || isConductor) {
-                    seat.passengerName = match.getPassengerName();
-                } else if (user.equals(match.getUsername())) {
-                    // Passenger sees only own seat name
-                    seat.passengerName = match.getPassengerName();
-                } else {
-                    seat.passengerName = null;
-                }
-            }
-            seats.add(seat);
-        }
+        // Shared grid for the current schedule version; role masking is a view over it
+        SeatGridCache.Grid grid = seatGridCache.grid(schedule.getId(), totalSeats, legs, seatHoldService.heldSeats(schedule.getId()));
+        boolean staff = isAdmin || isConductor;
+        List<SeatAvailabilityDTO.Seat> seats = staff ? grid.staffView() : grid.viewFor(user);
 
-    SeatAvailabilityDTO dto = new SeatAvailabilityDTO();
-    dto.setBusId(schedule.getBus().getId());
-    dto.setBusNumber(schedule.getBus().getBusNumber());
+        SeatAvailabilityDTO dto = new SeatAvailabilityDTO();
+        dto.setBusId(schedule.getBus().getId());
+        dto.setBusNumber(schedule.getBus().getBusNumber());
         dto.setScheduleId(schedule.getId());
         dto.setTotalSeats(totalSeats);
-        // If passenger, hide seats that are not their own as AVAILABLE-only view
-        if (!isAdmin && !isConductor && !isDriver) {
-            String current = user;
-            java.util.ArrayList<SeatAvailabilityDTO.Seat> filtered = new java.util.ArrayList<>();
-            for (SeatAvailabilityDTO.Seat s : seats) {
-                Reservation match = bySeat.get(s.seatNumber);
-                if (match != null && !current.equals(match.getUsername())) {
-                    // Hide other passenger data; show status only
-                    SeatAvailabilityDTO.Seat ns = new SeatAvailabilityDTO.Seat();
-                    ns.seatNumber = s.seatNumber;
-                    ns.status = match.isPaid() ? "PAID" : "RESERVED";
-                    ns.passengerName = null;
-                    filtered.add(ns);
-                }
-                else { filtered.add(s); }
-            }
-            seats = filtered;
-        }
+        dto.setVersion(grid.getVersion());
+        // The ETag also depends on who is looking: staff, a passenger with own seats, or anyone else.
+        // Passengers with own seats are told apart by a digest of the username, not its 32-bit hash
+        String view = staff ? "s" : grid.ownsAny(user)
+                ? "u" + DigestUtils.md5DigestAsHex(user.getBytes(StandardCharsets.UTF_8)) : "p";
+        dto.setEtag("W/\"" + schedule.getId() + "-" + grid.getVersion() + "-" + Long.toHexString(legs) + "-" + view + "\"");
         dto.setSeats(seats);
         return dto;
     }
@@ -635,5 +905,7 @@ public class ReservationService {
         seatState.setState(normalized);
         seatState.setUpdatedBy(auth.getName());
         seatStateRepo.save(seatState);
+        seatGridCache.invalidateAfterCommit(scheduleId);
+        seatStream.publishAfterCommit(scheduleId, List.of(new SeatStreamService.SeatDelta(seatNumber, normalized)));
     }
 }
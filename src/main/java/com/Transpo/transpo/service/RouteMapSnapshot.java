@@ -0,0 +1,145 @@
+package com.Transpo.transpo.service;
+
+import com.Transpo.transpo.dto.BusStopDTO;
+import com.Transpo.transpo.dto.RouteWithStopsDTO;
+import com.Transpo.transpo.model.Route;
+import com.Transpo.transpo.repository.BusStopRepository;
+import com.Transpo.transpo.repository.RouteRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Prebuilt routes-with-stops payload for the map dashboard. The JSON is serialized and
+ * gzipped once per change to routes or stops, so a request only copies bytes.
+ * Writers call {@link #invalidateAfterCommit()}; the next read rebuilds.
+ */
+@Component
+public class RouteMapSnapshot {
+
+    private final RouteRepository routeRepo;
+    private final BusStopRepository busStopRepo;
+    private final ObjectMapper objectMapper;
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Snapshot current;
+
+    public RouteMapSnapshot(RouteRepository routeRepo, BusStopRepository busStopRepo, ObjectMapper objectMapper) {
+        this.routeRepo = routeRepo;
+        this.busStopRepo = busStopRepo;
+        this.objectMapper = objectMapper;
+    }
+
+    public Snapshot get() {
+        Snapshot snapshot = current;
+        if (snapshot != null && snapshot.generation == generation.get()) {
+            return snapshot;
+        }
+        synchronized (this) {
+            snapshot = current;
+            long gen = generation.get();
+            if (snapshot == null || snapshot.generation != gen) {
+                // A write during the build bumps the generation, so the next read rebuilds again
+                snapshot = build(gen);
+                current = snapshot;
+            }
+            return snapshot;
+        }
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    public void invalidateAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate();
+            }
+        });
+    }
+
+    private Snapshot build(long gen) {
+        // Stops come ordered by route and sequence, so grouping keeps their order
+        Map<Long, List<BusStopDTO>> byRoute = new HashMap<>();
+        for (Object[] row : busStopRepo.findRouteStopPoints()) {
+            BusStopDTO stop = new BusStopDTO();
+            stop.setId((Long) row[0]);
+            stop.setRouteId((Long) row[1]);
+            stop.setName((String) row[2]);
+            stop.setLatitude((Double) row[3]);
+            stop.setLongitude((Double) row[4]);
+            stop.setSequence((Integer) row[5]);
+            byRoute.computeIfAbsent(stop.getRouteId(), id -> new ArrayList<>()).add(stop);
+        }
+
+        List<RouteWithStopsDTO> routes = new ArrayList<>();
+        for (Route r : routeRepo.findAll(Sort.by("id"))) {
+            List<BusStopDTO> stops = byRoute.getOrDefault(r.getId(), List.of());
+            routes.add(new RouteWithStopsDTO(r.getId(), null, r.getOrigin(), r.getDestination(),
+                    Collections.unmodifiableList(stops)));
+        }
+
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(routes);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize route map", e);
+        }
+        return new Snapshot(gen, Collections.unmodifiableList(routes), json, gzip(json),
+                "\"" + DigestUtils.md5DigestAsHex(json) + "\"");
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * One immutable build of the payload. The byte arrays are never modified after the build.
+     */
+    public static final class Snapshot {
+        private final long generation;
+        private final List<RouteWithStopsDTO> routes;
+        private final byte[] json;
+        private final byte[] gzip;
+        private final String etag;
+
+        Snapshot(long generation, List<RouteWithStopsDTO> routes, byte[] json, byte[] gzip, String etag) {
+            this.generation = generation;
+            this.routes = routes;
+            this.json = json;
+            this.gzip = gzip;
+            this.etag = etag;
+        }
+
+        public List<RouteWithStopsDTO> getRoutes() { return routes; }
+        public byte[] getJson() { return json; }
+        public byte[] getGzip() { return gzip; }
+        public String getEtag() { return etag; }
+    }
+}
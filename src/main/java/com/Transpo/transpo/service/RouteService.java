@@ -1,52 +1,189 @@
 package com.Transpo.transpo.service;
 
+import com.Transpo.transpo.exception.ConflictException;
+import com.Transpo.transpo.model.BusStop;
 import com.Transpo.transpo.model.Route;
+import com.Transpo.transpo.repository.ReservationRepository;
 import com.Transpo.transpo.repository.RouteRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 public class RouteService {
 
     private final RouteRepository repo;
+    private final StopSearchIndex stopSearchIndex;
+    private final SpatialIndex spatialIndex;
+    private final RouteMapSnapshot routeMapSnapshot;
+    private final EtaService etaService;
+    private final FareMatrixCache fareMatrix;
+    private final ReservationRepository reservationRepo;
 
-    public RouteService(RouteRepository repo) {
+    public RouteService(RouteRepository repo, StopSearchIndex stopSearchIndex, SpatialIndex spatialIndex,
+                        RouteMapSnapshot routeMapSnapshot, EtaService etaService,
+                        FareMatrixCache fareMatrix, ReservationRepository reservationRepo) {
         this.repo = repo;
+        this.stopSearchIndex = stopSearchIndex;
+        this.spatialIndex = spatialIndex;
+        this.routeMapSnapshot = routeMapSnapshot;
+        this.etaService = etaService;
+        this.fareMatrix = fareMatrix;
+        this.reservationRepo = reservationRepo;
     }
 
     public Route create(Route r) {
-        return repo.save(r);
+        Route saved = repo.save(r);
+        stopSearchIndex.put(saved);
+        routeMapSnapshot.invalidateAfterCommit();
+        return saved;
     }
 
     public List<Route> list() {
-        return repo.findAll();
+        return repo.findAllWithStops();
     }
 
     public Optional<Route> findById(Long id) {
         return repo.findById(id);
     }
 
+    /**
+     * Update origin, destination and the named stops. Stops are matched by name so placed
+     * stops keep their coordinates and reservations; unplaced stops no longer named are
+     * removed unless a reservation uses them, and placed ones stay after the stop they follow.
+     * Stops are renumbered in the new order, except when it only appends stops. Reservations
+     * derive their seat legs from the sequence, so moving a stop they use is refused.
+     */
+    @Transactional
     public Route update(Long id, Route updated) {
         return repo.findById(id).map(r -> {
             r.setOrigin(updated.getOrigin());
             r.setDestination(updated.getDestination());
-             r.setStop01(updated.getStop01());
-        r.setStop02(updated.getStop02());
-        r.setStop03(updated.getStop03());
-        r.setStop04(updated.getStop04());
-        r.setStop05(updated.getStop05());
-        r.setStop06(updated.getStop06());
-        r.setStop07(updated.getStop07());
-        r.setStop08(updated.getStop08());
-        r.setStop09(updated.getStop09());
-        r.setStop10(updated.getStop10());
-            return repo.save(r);
+            applyStopNames(r, updated.getStopNames());
+            Route saved = repo.saveAndFlush(r);
+            // The in-memory indexes only see the new stops once they are committed
+            List<String> names = saved.getStopNames();
+            List<BusStop> stops = new ArrayList<>(saved.getBusStops());
+            afterCommit(() -> {
+                stopSearchIndex.put(id, names);
+                spatialIndex.removeRoute(id);
+                spatialIndex.addStops(stops);
+                etaService.forgetRoute(id);
+            });
+            fareMatrix.invalidateAfterCommit(id);
+            routeMapSnapshot.invalidateAfterCommit();
+            return saved;
         }).orElseThrow(() -> new RuntimeException("Route not found"));
     }
 
+    private void applyStopNames(Route route, List<String> names) {
+        List<BusStop> current = route.orderedStops();
+        Map<String, Deque<BusStop>> byName = new HashMap<>();
+        int last = 0;
+        for (BusStop stop : current) {
+            byName.computeIfAbsent(StopSearchIndex.normalize(stop.getName()), n -> new ArrayDeque<>()).add(stop);
+            if (stop.getSequence() != null) last = Math.max(last, stop.getSequence());
+        }
+        List<BusStop> ordered = new ArrayList<>();
+        for (String name : names) {
+            Deque<BusStop> same = byName.get(StopSearchIndex.normalize(name));
+            BusStop stop = same != null ? same.poll() : null;
+            if (stop == null) {
+                stop = new BusStop(name, null, null, null, route);
+                route.addBusStop(stop);
+            }
+            stop.setName(name);
+            ordered.add(stop);
+        }
+        BusStop previous = null;
+        for (BusStop stop : current) {
+            if (ordered.contains(stop)) {
+                previous = stop;
+            } else if (stop.getLatitude() != null && stop.getLongitude() != null) {
+                ordered.add(previous == null ? 0 : ordered.indexOf(previous) + 1, stop);
+                previous = stop;
+            } else {
+                if (isUsed(stop)) {
+                    throw new ConflictException("Stop " + stop.getName() + " is used by reservations");
+                }
+                route.removeBusStop(stop);
+            }
+        }
+
+        if (onlyAppends(ordered)) {
+            for (BusStop stop : ordered) {
+                if (stop.getSequence() == null) stop.setSequence(++last);
+            }
+            return;
+        }
+        List<BusStop> moved = new ArrayList<>();
+        for (int i = 0; i < ordered.size(); i++) {
+            BusStop stop = ordered.get(i);
+            if (Integer.valueOf(i + 1).equals(stop.getSequence())) continue;
+            if (isUsed(stop)) {
+                throw new ConflictException("Stop " + stop.getName() + " is used by reservations and cannot be moved");
+            }
+            moved.add(stop);
+        }
+        // (route_id, sequence) is unique: park the moved stops on free negative sequences first
+        int parked = 0;
+        for (BusStop stop : moved) {
+            stop.setSequence(--parked);
+        }
+        repo.saveAndFlush(route);
+        for (int i = 0; i < ordered.size(); i++) {
+            ordered.get(i).setSequence(i + 1);
+        }
+    }
+
+    // Existing stops in their sequence order, followed by new stops only
+    private static boolean onlyAppends(List<BusStop> ordered) {
+        int previous = Integer.MIN_VALUE;
+        boolean added = false;
+        for (BusStop stop : ordered) {
+            if (stop.getId() == null) {
+                added = true;
+            } else if (added || stop.getSequence() == null || stop.getSequence() <= previous) {
+                return false;
+            } else {
+                previous = stop.getSequence();
+            }
+        }
+        return true;
+    }
+
+    private boolean isUsed(BusStop stop) {
+        return stop.getId() != null && reservationRepo.existsByPickupStopIdOrDropStopId(stop.getId(), stop.getId());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
     public void delete(Long id) {
         repo.deleteById(id);
+        stopSearchIndex.remove(id);
+        spatialIndex.removeRoute(id);
+        etaService.forgetRoute(id);
+        fareMatrix.invalidate(id);
+        routeMapSnapshot.invalidateAfterCommit();
     }
 }
@@ -1,36 +1,159 @@
 package com.Transpo.transpo.service;
 
+import com.Transpo.transpo.config.MetricsRegistry;
+import com.Transpo.transpo.dto.ScheduleResponseDTO;
+import com.Transpo.transpo.exception.BadRequestException;
 import com.Transpo.transpo.exception.NotFoundException;
 import com.Transpo.transpo.model.Bus;
 import com.Transpo.transpo.model.Route;
 import com.Transpo.transpo.model.Schedule;
 import com.Transpo.transpo.repository.BusRepository;
+import com.Transpo.transpo.repository.ScheduleQueryRepository;
 import com.Transpo.transpo.repository.ScheduleRepository;
 import com.Transpo.transpo.repository.ReservationRepository;
 import com.Transpo.transpo.repository.RouteRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
 public class ScheduleService {
 
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 500;
+
     private final ScheduleRepository scheduleRepo;
     private final ReservationRepository reservationRepo;
     private final BusRepository busRepository;
     private final RouteRepository routeRepository;
-    
+    private final SeatInventoryService seatInventory;
+    private final SeatGridCache seatGridCache;
+    private final StopSearchIndex stopSearchIndex;
+    private final ScheduleQueryRepository scheduleQueryRepo;
+    private final DynamicPricingService pricing;
+    private final MetricsRegistry.TransactionTimer listTimer;
+    private final MetricsRegistry.TransactionTimer searchTimer;
+    private final MetricsRegistry.TransactionTimer detailsTimer;
 
     public ScheduleService(ScheduleRepository scheduleRepo, 
                           ReservationRepository reservationRepo,
                           BusRepository busRepository,
-                          RouteRepository routeRepository) {
+                          RouteRepository routeRepository,
+                          SeatInventoryService seatInventory,
+                          SeatGridCache seatGridCache,
+                          StopSearchIndex stopSearchIndex,
+                          ScheduleQueryRepository scheduleQueryRepo,
+                          DynamicPricingService pricing,
+                          MetricsRegistry metrics) {
         this.scheduleRepo = scheduleRepo;
         this.reservationRepo = reservationRepo;
         this.busRepository = busRepository;
         this.routeRepository = routeRepository;
+        this.seatInventory = seatInventory;
+        this.seatGridCache = seatGridCache;
+        this.stopSearchIndex = stopSearchIndex;
+        this.scheduleQueryRepo = scheduleQueryRepo;
+        this.pricing = pricing;
+        this.listTimer = metrics.transactionTimer("transpo_schedule_seconds", "op", "list");
+        this.searchTimer = metrics.transactionTimer("transpo_schedule_seconds", "op", "search");
+        this.detailsTimer = metrics.transactionTimer("transpo_schedule_seconds", "op", "details");
+    }
+
+    /**
+     * One page of schedules ordered by (departureTime, id). The cursor is the opaque
+     * value returned as nextCursor by the previous page. Without a cursor and a limit every
+     * matching schedule is returned in one page.
+     */
+    @Transactional(readOnly = true)
+    public SchedulePage listPage(ScheduleQueryRepository.Filter filter, String cursor, Integer limit) {
+        listTimer.start();
+        if (filter.from != null && filter.to != null && !filter.from.isBefore(filter.to)) {
+            throw new BadRequestException("from must be before to");
+        }
+        boolean paged = limit != null || (cursor != null && !cursor.isBlank());
+        if (!paged) {
+            return new SchedulePage(pricing.price(stopSearchIndex.fillStops(scheduleQueryRepo.findAll(filter))), null);
+        }
+        if (limit == null) {
+            limit = DEFAULT_PAGE_SIZE;
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            decodeCursor(cursor, filter);
+        }
+        // Read one extra row to know whether another page follows
+        List<ScheduleResponseDTO> rows = stopSearchIndex.fillStops(scheduleQueryRepo.findPage(filter, limit + 1));
+        if (rows.size() <= limit) {
+            return new SchedulePage(pricing.price(rows), null);
+        }
+        List<ScheduleResponseDTO> page = pricing.price(rows.subList(0, limit));
+        ScheduleResponseDTO last = page.get(limit - 1);
+        return new SchedulePage(page, encodeCursor(last.getDepartureTime(), last.getId()));
+    }
+
+    private static String encodeCursor(LocalDateTime departureTime, Long id) {
+        String raw = departureTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void decodeCursor(String cursor, ScheduleQueryRepository.Filter filter) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            filter.afterTime = LocalDateTime.parse(raw.substring(0, sep));
+            filter.afterId = Long.parseLong(raw.substring(sep + 1));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    public static class SchedulePage {
+        private final List<ScheduleResponseDTO> items;
+        private final String nextCursor;
+
+        public SchedulePage(List<ScheduleResponseDTO> items, String nextCursor) {
+            this.items = items;
+            this.nextCursor = nextCursor;
+        }
+
+        public List<ScheduleResponseDTO> getItems() { return items; }
+        public String getNextCursor() { return nextCursor; }
+    }
+
+    /**
+     * Schedules of the routes where a stop matching pickup comes before a stop matching drop.
+     */
+    @Transactional(readOnly = true)
+    public List<ScheduleResponseDTO> searchByPickupAndDrop(String pickup, String drop) {
+        searchTimer.start();
+        List<Long> routeIds = stopSearchIndex.findRoutes(pickup, drop);
+        if (routeIds.isEmpty()) {
+            return List.of();
+        }
+        return pricing.price(stopSearchIndex.fillStops(scheduleRepo.findScheduleDetailsByRouteIds(routeIds)));
+    }
+
+    /**
+     * Schedule with bus, route and the route's stop names.
+     */
+    @Transactional(readOnly = true)
+    public Optional<ScheduleResponseDTO> getDetails(Long id) {
+        detailsTimer.start();
+        Optional<ScheduleResponseDTO> dto = scheduleRepo.findScheduleDetailsById(id);
+        dto.ifPresent(d -> {
+            d.setStopNames(stopSearchIndex.stopNames(d.getRouteId()));
+            d.setDynamicFare(pricing.quote(d.getId(), d.getTotalSeats(), d.getAvailableSeats(),
+                    d.getDepartureTime(), d.getFare()).fare());
+        });
+        return dto;
     }
 
     @Transactional
@@ -75,14 +198,8 @@ public class ScheduleService {
     @Transactional(readOnly = true)
     public List<Schedule> findByBusNumber(String busNumber) {
         if (busNumber == null || busNumber.isBlank()) return List.of();
-        List<Schedule> schedules = scheduleRepo.findAll().stream()
-                .filter(s -> s.getBus() != null && busNumber.equals(s.getBus().getBusNumber()))
-                .collect(Collectors.toList());
-        schedules.forEach(s -> {
-            if (s.getBus() != null) s.getBus().getBusNumber();
-            if (s.getRoute() != null) s.getRoute().getOrigin();
-        });
-        return schedules;
+        // Bus and route are fetched in the same statement
+        return scheduleRepo.findByBusNumberWithRoute(busNumber);
     }
 
     @Transactional(readOnly = true)
@@ -157,6 +274,7 @@ public class ScheduleService {
             existing.setRoute(route);
         }
 
+        seatGridCache.invalidateAfterCommit(id);
         return scheduleRepo.save(existing);
     }
 
@@ -166,5 +284,7 @@ public class ScheduleService {
                 .orElseThrow(() -> new NotFoundException("Schedule not found with id: " + id));
         // Optionally ensure related reservations handled by cascade or service rules
         scheduleRepo.delete(existing);
+        seatInventory.evictAfterCommit(id);
+        seatGridCache.invalidateAfterCommit(id);
     }
 }
\ No newline at end of file
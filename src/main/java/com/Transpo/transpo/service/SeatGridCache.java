@@ -0,0 +1,216 @@
+package com.Transpo.transpo.service;
+
+import com.Transpo.transpo.dto.SeatAvailabilityDTO;
+import com.Transpo.transpo.repository.ReservationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of seat-availability grids per schedule.
+ * Every schedule has a version that is bumped after each committed change to its
+ * reservations, seat states or seat holds; a cached grid is only served while its version is current.
+ * Grids are immutable and shared between requests, role masking is a view over them.
+ */
+@Component
+public class SeatGridCache {
+
+    public static final String AVAILABLE = "AVAILABLE";
+    public static final String RESERVED = "RESERVED";
+    public static final String PAID = "PAID";
+    public static final String HELD = "HELD";
+
+    private final ReservationRepository reservationRepo;
+    private final int maxSchedules;
+
+    // Seeded with the clock so versions (and ETags) are not reused after a restart
+    private final AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+    private final Map<Long, ScheduleGrids> grids = new ConcurrentHashMap<>();
+
+    public SeatGridCache(ReservationRepository reservationRepo,
+                         @Value("${transpo.seat-grid.max-schedules:2000}") int maxSchedules) {
+        this.reservationRepo = reservationRepo;
+        this.maxSchedules = maxSchedules;
+    }
+
+    /**
+     * Current version of a schedule's seat grid.
+     */
+    public long version(Long scheduleId) {
+        return versions.computeIfAbsent(scheduleId, id -> clock.incrementAndGet());
+    }
+
+    /**
+     * Bump the version of a schedule and drop its cached grids.
+     */
+    public void invalidate(Long scheduleId) {
+        versions.put(scheduleId, clock.incrementAndGet());
+        grids.remove(scheduleId);
+    }
+
+    /**
+     * Invalidate once the current transaction commits, so readers never cache
+     * uncommitted rows under the new version.
+     */
+    public void invalidateAfterCommit(Long scheduleId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(scheduleId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(scheduleId);
+            }
+        });
+    }
+
+    /**
+     * Grid of the schedule for the given legs, built from the reservations table when missing or stale.
+     * Free seats in heldSeats are shown as HELD; the set is only read when the grid is built.
+     */
+    public Grid grid(Long scheduleId, int totalSeats, long legs, Set<Integer> heldSeats) {
+        long version = version(scheduleId);
+        ScheduleGrids cached = grids.get(scheduleId);
+        if (cached != null && cached.version == version) {
+            Grid grid = cached.byLegs.get(legs);
+            if (grid != null && grid.totalSeats == totalSeats) {
+                return grid;
+            }
+        }
+
+        Grid grid = build(scheduleId, version, totalSeats, legs, heldSeats);
+        if (grids.size() >= maxSchedules && !grids.containsKey(scheduleId)) {
+            grids.clear();
+        }
+        // Keep the newest version if a concurrent request stored one meanwhile
+        ScheduleGrids entry = grids.merge(scheduleId, new ScheduleGrids(version),
+                (current, fresh) -> current.version >= fresh.version ? current : fresh);
+        if (entry.version == version) {
+            entry.byLegs.put(legs, grid);
+        }
+        return grid;
+    }
+
+    private Grid build(Long scheduleId, long version, int totalSeats, long legs, Set<Integer> heldSeats) {
+        String[] status = new String[totalSeats];
+        String[] passengerName = new String[totalSeats];
+        String[] username = new String[totalSeats];
+        for (Object[] row : reservationRepo.findSeatGridRows(scheduleId)) {
+            int seat = ((Number) row[0]).intValue();
+            if (seat < 1 || seat > totalSeats) continue;
+            long reservedLegs = SeatInventoryService.legMask((Integer) row[4], (Integer) row[5]);
+            if ((reservedLegs & legs) == 0) continue;
+            // First overlapping reservation wins; a seat can be shared by several passengers
+            if (status[seat - 1] != null) continue;
+            status[seat - 1] = Boolean.TRUE.equals(row[1]) ? PAID : RESERVED;
+            passengerName[seat - 1] = (String) row[2];
+            username[seat - 1] = (String) row[3];
+        }
+        // A hold covers the whole trip
+        for (int seat : heldSeats) {
+            if (seat >= 1 && seat <= totalSeats && status[seat - 1] == null) {
+                status[seat - 1] = HELD;
+            }
+        }
+        return new Grid(scheduleId, version, legs, totalSeats, status, passengerName, username);
+    }
+
+    private static final class ScheduleGrids {
+        final long version;
+        final Map<Long, Grid> byLegs = new ConcurrentHashMap<>();
+
+        ScheduleGrids(long version) {
+            this.version = version;
+        }
+    }
+
+    /**
+     * Immutable seat grid of one schedule version. The staff and public seat lists are
+     * built once and shared; callers must not modify them.
+     */
+    public static final class Grid {
+        private final Long scheduleId;
+        private final long version;
+        private final long legs;
+        private final int totalSeats;
+        private final String[] username;
+        private final List<SeatAvailabilityDTO.Seat> staffView;
+        private final List<SeatAvailabilityDTO.Seat> publicView;
+
+        Grid(Long scheduleId, long version, long legs, int totalSeats,
+             String[] status, String[] passengerName, String[] username) {
+            this.scheduleId = scheduleId;
+            this.version = version;
+            this.legs = legs;
+            this.totalSeats = totalSeats;
+            this.username = username;
+            List<SeatAvailabilityDTO.Seat> staff = new ArrayList<>(totalSeats);
+            List<SeatAvailabilityDTO.Seat> anonymous = new ArrayList<>(totalSeats);
+            for (int i = 0; i < totalSeats; i++) {
+                String s = status[i] != null ? status[i] : AVAILABLE;
+                staff.add(seat(i + 1, s, passengerName[i]));
+                anonymous.add(passengerName[i] == null ? staff.get(i) : seat(i + 1, s, null));
+            }
+            this.staffView = Collections.unmodifiableList(staff);
+            this.publicView = Collections.unmodifiableList(anonymous);
+        }
+
+        public Long getScheduleId() { return scheduleId; }
+        public long getVersion() { return version; }
+        public long getLegs() { return legs; }
+        public int getTotalSeats() { return totalSeats; }
+
+        /**
+         * Seats as seen by admins and conductors: every passenger name is visible.
+         */
+        public List<SeatAvailabilityDTO.Seat> staffView() {
+            return staffView;
+        }
+
+        /**
+         * Seats as seen by any other user: only the user's own passenger names are visible.
+         */
+        public List<SeatAvailabilityDTO.Seat> viewFor(String user) {
+            if (!ownsAny(user)) {
+                return publicView;
+            }
+            List<SeatAvailabilityDTO.Seat> seats = new ArrayList<>(publicView);
+            for (int i = 0; i < totalSeats; i++) {
+                if (user.equals(username[i])) {
+                    seats.set(i, staffView.get(i));
+                }
+            }
+            return seats;
+        }
+
+        /**
+         * True if the user has a reservation shown in this grid.
+         */
+        public boolean ownsAny(String user) {
+            if (user == null) return false;
+            for (String u : username) {
+                if (user.equals(u)) return true;
+            }
+            return false;
+        }
+
+        private static SeatAvailabilityDTO.Seat seat(int number, String status, String passengerName) {
+            SeatAvailabilityDTO.Seat seat = new SeatAvailabilityDTO.Seat();
+            seat.seatNumber = number;
+            seat.status = status;
+            seat.passengerName = passengerName;
+            return seat;
+        }
+    }
+}
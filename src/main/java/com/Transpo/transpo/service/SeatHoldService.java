@@ -0,0 +1,255 @@
+package com.Transpo.transpo.service;
+
+import com.Transpo.transpo.exception.BadRequestException;
+import com.Transpo.transpo.exception.ConflictException;
+import com.Transpo.transpo.exception.NotFoundException;
+import com.Transpo.transpo.model.Schedule;
+import com.Transpo.transpo.repository.ScheduleRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Temporary seat holds taken before payment.
+ * A hold claims the seat in the {@link SeatInventoryService} without writing a reservation;
+ * expired holds are released by a sweeper that walks a time-bucketed expiry wheel,
+ * so only the buckets that are due are visited.
+ * Held seats show as HELD in the seat grid and on the seat streams.
+ * Holds live in memory only: after a restart the inventory is rebuilt from reservations,
+ * which releases every outstanding hold.
+ */
+@Service
+public class SeatHoldService {
+
+    private final ScheduleRepository scheduleRepo;
+    private final SeatInventoryService seatInventory;
+    private final SeatGridCache seatGridCache;
+    private final SeatStreamService seatStream;
+    private final Map<String, SeatHold> holds = new ConcurrentHashMap<>();
+    // schedule id -> seat numbers with a hold, for the seat grid
+    private final Map<Long, Set<Integer>> heldSeats = new ConcurrentHashMap<>();
+    // bucket index (expiry millis / bucketMillis) -> hold ids expiring in that bucket
+    private final ConcurrentSkipListMap<Long, Queue<String>> wheel = new ConcurrentSkipListMap<>();
+
+    private final int defaultMinutes;
+    private final int maxMinutes;
+    private final long bucketMillis;
+
+    public SeatHoldService(ScheduleRepository scheduleRepo,
+                           SeatInventoryService seatInventory,
+                           SeatGridCache seatGridCache,
+                           SeatStreamService seatStream,
+                           @Value("${transpo.holds.default-minutes:10}") int defaultMinutes,
+                           @Value("${transpo.holds.max-minutes:30}") int maxMinutes,
+                           @Value("${transpo.holds.bucket-millis:1000}") long bucketMillis) {
+        this.scheduleRepo = scheduleRepo;
+        this.seatInventory = seatInventory;
+        this.seatGridCache = seatGridCache;
+        this.seatStream = seatStream;
+        this.defaultMinutes = defaultMinutes;
+        this.maxMinutes = maxMinutes;
+        this.bucketMillis = bucketMillis;
+    }
+
+    /**
+     * Hold the given seats for the given number of minutes. All seats are held or none.
+     */
+    public List<SeatHold> hold(Long scheduleId, List<Integer> seatNumbers, Integer minutes, String username) {
+        if (scheduleId == null) throw new BadRequestException("scheduleId is required");
+        if (seatNumbers == null || seatNumbers.isEmpty()) throw new BadRequestException("seatNumbers is required");
+        if (username == null) throw new BadRequestException("Authentication required");
+        int ttl = minutes == null ? defaultMinutes : minutes;
+        if (ttl < 1 || ttl > maxMinutes) {
+            throw new BadRequestException("Hold minutes must be between 1 and " + maxMinutes);
+        }
+
+        Schedule schedule = scheduleRepo.findById(scheduleId)
+                .orElseThrow(() -> new NotFoundException("Schedule not found: " + scheduleId));
+        if (schedule.getBus() == null) {
+            throw new BadRequestException("Schedule does not have a bus assigned");
+        }
+        int maxSeat = schedule.getBus().getTotalSeats();
+        for (Integer seat : seatNumbers) {
+            if (seat == null || seat < 1 || seat > maxSeat) {
+                throw new BadRequestException("Seat number must be between 1 and " + maxSeat);
+            }
+        }
+
+        long expiresAt = System.currentTimeMillis() + ttl * 60_000L;
+        List<SeatHold> created = new ArrayList<>(seatNumbers.size());
+        for (Integer seat : seatNumbers) {
+            if (!seatInventory.claim(scheduleId, maxSeat, seat)) {
+                // Roll back the seats claimed so far
+                for (SeatHold h : created) {
+                    seatInventory.release(h.getScheduleId(), h.getSeatNumber());
+                }
+                throw new ConflictException("Seat " + seat + " already taken for this schedule");
+            }
+            created.add(new SeatHold(UUID.randomUUID().toString(), scheduleId, seat, username, expiresAt));
+        }
+        for (SeatHold h : created) {
+            register(h);
+        }
+        changed(scheduleId, seatNumbers, SeatGridCache.HELD);
+        return created;
+    }
+
+    /**
+     * Remove a hold so it can be converted into a reservation. The seat stays claimed;
+     * the caller must either keep it (reservation committed) or {@link #restore} it.
+     */
+    public SeatHold take(String holdId, String username, boolean isAdmin) {
+        SeatHold hold = holds.get(holdId);
+        if (hold == null) throw new NotFoundException("Seat hold not found: " + holdId);
+        if (!isAdmin && !hold.getUsername().equals(username)) {
+            throw new BadRequestException("Seat hold belongs to another user");
+        }
+        if (!holds.remove(holdId, hold)) {
+            throw new NotFoundException("Seat hold not found: " + holdId);
+        }
+        unmark(hold);
+        if (hold.isExpired(System.currentTimeMillis())) {
+            releaseSeat(hold);
+            throw new ConflictException("Seat hold has expired");
+        }
+        return hold;
+    }
+
+    /**
+     * Put back a hold taken with {@link #take} when its conversion did not commit.
+     */
+    public void restore(SeatHold hold) {
+        if (hold.isExpired(System.currentTimeMillis())) {
+            releaseSeat(hold);
+            return;
+        }
+        register(hold);
+        changed(hold.getScheduleId(), List.of(hold.getSeatNumber()), SeatGridCache.HELD);
+    }
+
+    /**
+     * Release a hold before it expires.
+     */
+    public void release(String holdId, String username, boolean isAdmin) {
+        SeatHold hold = take(holdId, username, isAdmin);
+        releaseSeat(hold);
+    }
+
+    public SeatHold get(String holdId) {
+        SeatHold hold = holds.get(holdId);
+        if (hold == null) throw new NotFoundException("Seat hold not found: " + holdId);
+        return hold;
+    }
+
+    /**
+     * Release every hold whose bucket is due. Each bucket is drained as one batch.
+     */
+    @Scheduled(fixedDelayString = "${transpo.holds.sweep-interval-ms:1000}")
+    public int sweepExpired() {
+        long now = System.currentTimeMillis();
+        long dueBucket = now / bucketMillis;
+        int released = 0;
+        Map<Long, List<Integer>> freed = new HashMap<>();
+        Map.Entry<Long, Queue<String>> entry;
+        while ((entry = wheel.firstEntry()) != null && entry.getKey() <= dueBucket) {
+            if (!wheel.remove(entry.getKey(), entry.getValue())) continue;
+            String holdId;
+            while ((holdId = entry.getValue().poll()) != null) {
+                SeatHold hold = holds.get(holdId);
+                // Skip holds that were converted/released, or re-registered with a later expiry
+                if (hold == null || !hold.isExpired(now)) continue;
+                if (holds.remove(holdId, hold)) {
+                    unmark(hold);
+                    seatInventory.release(hold.getScheduleId(), hold.getSeatNumber());
+                    freed.computeIfAbsent(hold.getScheduleId(), id -> new ArrayList<>()).add(hold.getSeatNumber());
+                    released++;
+                }
+            }
+        }
+        freed.forEach((scheduleId, seats) -> changed(scheduleId, seats, SeatGridCache.AVAILABLE));
+        return released;
+    }
+
+    /**
+     * Seat numbers of the schedule that currently have a hold. The set is live; callers must not modify it.
+     */
+    public Set<Integer> heldSeats(Long scheduleId) {
+        Set<Integer> seats = heldSeats.get(scheduleId);
+        return seats != null ? Collections.unmodifiableSet(seats) : Set.of();
+    }
+
+    public int activeHolds() {
+        return holds.size();
+    }
+
+    private void register(SeatHold hold) {
+        holds.put(hold.getId(), hold);
+        heldSeats.compute(hold.getScheduleId(), (id, seats) -> {
+            Set<Integer> s = seats != null ? seats : ConcurrentHashMap.newKeySet();
+            s.add(hold.getSeatNumber());
+            return s;
+        });
+        long bucket = hold.getExpiresAt() / bucketMillis + 1;
+        while (true) {
+            Queue<String> queue = wheel.computeIfAbsent(bucket, b -> new ConcurrentLinkedQueue<>());
+            queue.add(hold.getId());
+            // The sweeper may have taken the bucket out of the wheel before the add; then it
+            // might never see this id, so add it again to a fresh bucket. A duplicate is skipped.
+            if (wheel.get(bucket) == queue) return;
+        }
+    }
+
+    private void unmark(SeatHold hold) {
+        heldSeats.computeIfPresent(hold.getScheduleId(), (id, seats) -> {
+            seats.remove(hold.getSeatNumber());
+            return seats.isEmpty() ? null : seats;
+        });
+    }
+
+    private void releaseSeat(SeatHold hold) {
+        seatInventory.release(hold.getScheduleId(), hold.getSeatNumber());
+        changed(hold.getScheduleId(), List.of(hold.getSeatNumber()), SeatGridCache.AVAILABLE);
+    }
+
+    // Holds are not transactional: the grid version moves and subscribers hear about it right away
+    private void changed(Long scheduleId, List<Integer> seats, String status) {
+        seatGridCache.invalidate(scheduleId);
+        seatStream.publish(scheduleId, seats.stream().map(seat -> new SeatStreamService.SeatDelta(seat, status)).toList());
+    }
+
+    public static class SeatHold {
+        private final String id;
+        private final Long scheduleId;
+        private final int seatNumber;
+        private final String username;
+        private final long expiresAt;
+
+        public SeatHold(String id, Long scheduleId, int seatNumber, String username, long expiresAt) {
+            this.id = id;
+            this.scheduleId = scheduleId;
+            this.seatNumber = seatNumber;
+            this.username = username;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getId() { return id; }
+        public Long getScheduleId() { return scheduleId; }
+        public int getSeatNumber() { return seatNumber; }
+        public String getUsername() { return username; }
+        public long getExpiresAt() { return expiresAt; }
+
+        boolean isExpired(long now) { return now >= expiresAt; }
+    }
+}
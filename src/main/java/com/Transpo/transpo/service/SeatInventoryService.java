@@ -0,0 +1,334 @@
+package com.Transpo.transpo.service;
+
+import com.Transpo.transpo.model.BusStop;
+import com.Transpo.transpo.repository.ReservationRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * In-memory seat inventory. For every schedule each seat holds a bitmask of the route legs
+ * it is sold for (leg n = from the stop with sequence n to the next stop), so one seat can be
+ * sold to several passengers whose pickup/drop intervals do not overlap.
+ * Legs are claimed with compare-and-set, so conflict detection is a bitwise test and does not
+ * need to read the reservations of the schedule.
+ * A schedule is loaded from the reservations table on first use; at startup every schedule
+ * with reservations is loaded in one query.
+ * Schedules whose number of taken seats changed are remembered until
+ * {@link #drainCountChanges()}; {@link AvailableSeatsUpdater} copies their counts to the
+ * schedules table.
+ */
+@Service
+public class SeatInventoryService {
+
+    /** Mask used when no stops are given: the whole trip. */
+    public static final long FULL_TRIP = -1L;
+
+    public enum Claim {
+        /** Legs are already sold on this seat. */
+        CONFLICT,
+        /** The seat had no legs sold before this claim. */
+        NEW_SEAT,
+        /** The seat already had other, non-overlapping legs sold. */
+        SHARED_SEAT;
+
+        public boolean succeeded() { return this != CONFLICT; }
+    }
+
+    private final ReservationRepository reservationRepo;
+    private final Map<Long, ScheduleSeats> inventories = new ConcurrentHashMap<>();
+    private final Set<Long> countChanged = ConcurrentHashMap.newKeySet();
+
+    public SeatInventoryService(ReservationRepository reservationRepo) {
+        this.reservationRepo = reservationRepo;
+    }
+
+    /**
+     * Legs covered by a trip from pickup to drop. Missing stops mean the start/end of the route.
+     * Sequences outside 0..63 fall back to the whole trip.
+     */
+    public static long legMask(Integer pickupSequence, Integer dropSequence) {
+        if (pickupSequence == null && dropSequence == null) return FULL_TRIP;
+        int from = pickupSequence != null ? pickupSequence : 0;
+        int to = dropSequence != null ? dropSequence : 64;
+        if (from < 0 || to > 64 || from >= to) return FULL_TRIP;
+        long upTo = to == 64 ? -1L : (1L << to) - 1;
+        return upTo & ~((1L << from) - 1);
+    }
+
+    public static long legMask(BusStop pickupStop, BusStop dropStop) {
+        return legMask(pickupStop != null ? pickupStop.getSequence() : null,
+                dropStop != null ? dropStop.getSequence() : null);
+    }
+
+    /**
+     * Load every schedule with active reservations. Requests are already served at this point,
+     * so a schedule loaded (and possibly claimed on) in the meantime is kept as it is.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        Map<Long, ScheduleSeats> loaded = new HashMap<>();
+        for (Object[] row : reservationRepo.findActiveSeatClaims()) {
+            Long scheduleId = (Long) row[0];
+            int totalSeats = ((Number) row[1]).intValue();
+            int seatNumber = ((Number) row[2]).intValue();
+            long legs = legMask((Integer) row[3], (Integer) row[4]);
+            ScheduleSeats seats = loaded.computeIfAbsent(scheduleId,
+                    id -> new ScheduleSeats(Math.max(totalSeats, seatNumber)));
+            seats.force(seatNumber, legs);
+        }
+        loaded.forEach(inventories::putIfAbsent);
+    }
+
+    /**
+     * Atomically claim a whole seat for the whole trip. Returns false if any leg is taken.
+     */
+    public boolean claim(Long scheduleId, int totalSeats, int seatNumber) {
+        return claimLegs(scheduleId, totalSeats, seatNumber, FULL_TRIP).succeeded();
+    }
+
+    /**
+     * Atomically claim the given legs of a seat.
+     */
+    public Claim claimLegs(Long scheduleId, int totalSeats, int seatNumber, long legs) {
+        while (true) {
+            // null: the schedule was being grown; retry on the larger copy
+            Claim claim = seats(scheduleId, Math.max(totalSeats, seatNumber)).claim(seatNumber, legs);
+            if (claim == Claim.NEW_SEAT) countChanged.add(scheduleId);
+            if (claim != null) return claim;
+        }
+    }
+
+    /**
+     * Release a whole seat.
+     */
+    public void release(Long scheduleId, int seatNumber) {
+        release(scheduleId, seatNumber, FULL_TRIP);
+    }
+
+    /**
+     * Release the given legs of a seat.
+     */
+    public void release(Long scheduleId, int seatNumber, long legs) {
+        while (true) {
+            ScheduleSeats seats = inventories.get(scheduleId);
+            if (seats == null) return;
+            if (seats.clear(seatNumber, legs)) {
+                if (seats.get(seatNumber) == 0) countChanged.add(scheduleId);
+                return;
+            }
+        }
+    }
+
+    public boolean isTaken(Long scheduleId, int totalSeats, int seatNumber) {
+        return !isFree(scheduleId, totalSeats, seatNumber, FULL_TRIP);
+    }
+
+    public boolean isFree(Long scheduleId, int totalSeats, int seatNumber, long legs) {
+        return (seats(scheduleId, Math.max(totalSeats, seatNumber)).get(seatNumber) & legs) == 0;
+    }
+
+    /**
+     * Number of seats with at least one leg sold.
+     */
+    public int takenCount(Long scheduleId, int totalSeats) {
+        return seats(scheduleId, totalSeats).count();
+    }
+
+    /**
+     * Number of taken seats of a schedule already in memory, or -1 if it is not loaded.
+     */
+    public int loadedTakenCount(Long scheduleId) {
+        ScheduleSeats seats = inventories.get(scheduleId);
+        return seats != null ? seats.count() : -1;
+    }
+
+    /**
+     * Schedules whose number of taken seats changed since the last call.
+     */
+    public List<Long> drainCountChanges() {
+        List<Long> changed = new ArrayList<>();
+        for (Long id : countChanged) {
+            if (countChanged.remove(id)) changed.add(id);
+        }
+        return changed;
+    }
+
+    /**
+     * Report the given schedules as changed again, e.g. when writing their counts failed.
+     */
+    public void markCountChanged(Collection<Long> scheduleIds) {
+        countChanged.addAll(scheduleIds);
+    }
+
+    /**
+     * Report every schedule in memory as changed.
+     */
+    public void markAllLoaded() {
+        countChanged.addAll(inventories.keySet());
+    }
+
+    /**
+     * Drop the in-memory state of a schedule; it is reloaded on next access.
+     */
+    public void evict(Long scheduleId) {
+        inventories.remove(scheduleId);
+    }
+
+    /**
+     * Evict once the current transaction commits, so a rollback keeps the live claims.
+     */
+    public void evictAfterCommit(Long scheduleId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(scheduleId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(scheduleId);
+            }
+        });
+    }
+
+    private ScheduleSeats seats(Long scheduleId, int capacity) {
+        ScheduleSeats seats = inventories.get(scheduleId);
+        if (seats != null && seats.capacity() >= capacity) {
+            return seats;
+        }
+        // Unknown schedule or bus grew: load once from the table, or copy into a larger array
+        return inventories.compute(scheduleId, (id, current) -> {
+            if (current != null && current.capacity() >= capacity) {
+                return current;
+            }
+            ScheduleSeats fresh = new ScheduleSeats(capacity);
+            if (current != null) {
+                fresh.copyFrom(current);
+            } else {
+                for (Object[] row : reservationRepo.findActiveSeatLegs(id)) {
+                    fresh.force(((Number) row[0]).intValue(), legMask((Integer) row[1], (Integer) row[2]));
+                }
+            }
+            return fresh;
+        });
+    }
+
+    /**
+     * One leg mask per seat number (1-based) backed by an AtomicLongArray.
+     * Writers hold the read side of a lock whose write side is only taken to copy the seats into
+     * a larger instance, so no claim can land on this one while, or after, it is copied. Writes
+     * to a copied instance return null/false and are retried on its replacement.
+     */
+    static final class ScheduleSeats {
+        private final AtomicLongArray legs;
+        private final AtomicInteger count = new AtomicInteger();
+        private final StampedLock resize = new StampedLock();
+        private boolean retired;
+
+        ScheduleSeats(int capacity) {
+            // Leave some headroom so small bus changes do not force a reload
+            this.legs = new AtomicLongArray(Math.max(8, (capacity + 7) & ~7));
+        }
+
+        int capacity() { return legs.length(); }
+
+        int count() { return count.get(); }
+
+        long get(int seatNumber) {
+            if (seatNumber < 1 || seatNumber > capacity()) return 0;
+            return legs.get(seatNumber - 1);
+        }
+
+        Claim claim(int seatNumber, long mask) {
+            if (seatNumber < 1 || seatNumber > capacity()) return Claim.CONFLICT;
+            int index = seatNumber - 1;
+            long stamp = resize.readLock();
+            try {
+                if (retired) return null;
+                while (true) {
+                    long current = legs.get(index);
+                    if ((current & mask) != 0) {
+                        return Claim.CONFLICT;
+                    }
+                    if (legs.compareAndSet(index, current, current | mask)) {
+                        if (current == 0) {
+                            count.incrementAndGet();
+                            return Claim.NEW_SEAT;
+                        }
+                        return Claim.SHARED_SEAT;
+                    }
+                }
+            } finally {
+                resize.unlockRead(stamp);
+            }
+        }
+
+        /** Set legs without a conflict check; only used while loading, before the instance is shared. */
+        void force(int seatNumber, long mask) {
+            if (seatNumber < 1 || seatNumber > capacity()) return;
+            int index = seatNumber - 1;
+            while (true) {
+                long current = legs.get(index);
+                if (legs.compareAndSet(index, current, current | mask)) {
+                    if (current == 0 && mask != 0) count.incrementAndGet();
+                    return;
+                }
+            }
+        }
+
+        /** Returns false if this instance was copied and the release must go to its replacement. */
+        boolean clear(int seatNumber, long mask) {
+            if (seatNumber < 1 || seatNumber > capacity()) return true;
+            int index = seatNumber - 1;
+            long stamp = resize.readLock();
+            try {
+                if (retired) return false;
+                while (true) {
+                    long current = legs.get(index);
+                    if ((current & mask) == 0) {
+                        return true;
+                    }
+                    long next = current & ~mask;
+                    if (legs.compareAndSet(index, current, next)) {
+                        if (next == 0) count.decrementAndGet();
+                        return true;
+                    }
+                }
+            } finally {
+                resize.unlockRead(stamp);
+            }
+        }
+
+        /** Copy the seats of other, which takes no more writes afterwards. */
+        void copyFrom(ScheduleSeats other) {
+            long stamp = other.resize.writeLock();
+            try {
+                other.retired = true;
+                for (int i = 0; i < other.legs.length(); i++) {
+                    long mask = other.legs.get(i);
+                    if (mask != 0) {
+                        legs.set(i, mask);
+                        count.incrementAndGet();
+                    }
+                }
+            } finally {
+                other.resize.unlockWrite(stamp);
+            }
+        }
+    }
+}
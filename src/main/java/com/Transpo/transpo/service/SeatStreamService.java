@@ -0,0 +1,258 @@
+package com.Transpo.transpo.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-Sent Events fan-out of seat changes per schedule.
+ * Writers publish deltas after their transaction commits; each subscriber has a bounded
+ * queue drained by a small sender pool, and a subscriber whose queue is full is dropped
+ * instead of slowing down the writers or the other subscribers.
+ * Writes to a client block a sender until the client reads them. A write still running after
+ * send-timeout-ms drops its subscriber, and the pool starts another sender in place of the stuck
+ * one (up to max-sender-threads) until the servlet container times the write out.
+ */
+@Service
+public class SeatStreamService {
+
+    private final SeatGridCache seatGridCache;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final long sendTimeoutNanos;
+    private final int senderThreads;
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor senders;
+    // Senders blocked in a write to a dropped subscriber
+    private final AtomicInteger stuck = new AtomicInteger();
+    private final AtomicInteger dropped = new AtomicInteger();
+
+    public SeatStreamService(SeatGridCache seatGridCache,
+                             @Value("${transpo.seat-stream.buffer-size:64}") int bufferSize,
+                             @Value("${transpo.seat-stream.timeout-ms:1800000}") long timeoutMillis,
+                             @Value("${transpo.seat-stream.sender-threads:4}") int senderThreads,
+                             @Value("${transpo.seat-stream.max-sender-threads:16}") int maxSenderThreads,
+                             @Value("${transpo.seat-stream.send-timeout-ms:5000}") long sendTimeoutMillis) {
+        this.seatGridCache = seatGridCache;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeoutMillis;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+        this.senderThreads = senderThreads;
+        this.senders = new ThreadPoolExecutor(senderThreads, Math.max(senderThreads, maxSenderThreads),
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "seat-stream-sender");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Open a stream for a schedule. The first event carries the current grid version.
+     */
+    public SseEmitter subscribe(Long scheduleId) {
+        return subscribe(scheduleId, new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(Long scheduleId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(scheduleId, emitter, new ArrayBlockingQueue<>(bufferSize));
+        subscribers.computeIfAbsent(scheduleId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        subscriber.offer(SseEmitter.event().name("ready")
+                .data(Map.of("scheduleId", scheduleId, "version", seatGridCache.version(scheduleId)),
+                        MediaType.APPLICATION_JSON).build());
+        return emitter;
+    }
+
+    /**
+     * Publish seat deltas once the current transaction commits; nothing is sent on rollback.
+     */
+    public void publishAfterCommit(Long scheduleId, List<SeatDelta> deltas) {
+        if (deltas.isEmpty()) return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(scheduleId, deltas);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(scheduleId, deltas);
+            }
+        });
+    }
+
+    public void publish(Long scheduleId, List<SeatDelta> deltas) {
+        Set<Subscriber> subs = subscribers.get(scheduleId);
+        if (subs == null || subs.isEmpty()) return;
+        Set<DataWithMediaType> event = SseEmitter.event().name("seats")
+                .data(Map.of("scheduleId", scheduleId, "version", seatGridCache.version(scheduleId), "seats", deltas),
+                        MediaType.APPLICATION_JSON).build();
+        // Built once and shared by every subscriber
+        for (Subscriber s : subs) {
+            s.offer(event);
+        }
+    }
+
+    /**
+     * Comment line that keeps proxies from closing idle streams and detects dead clients.
+     */
+    @Scheduled(fixedDelayString = "${transpo.seat-stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        Set<DataWithMediaType> ping = SseEmitter.event().comment("ping").build();
+        for (Set<Subscriber> subs : subscribers.values()) {
+            for (Subscriber s : subs) {
+                s.offer(ping);
+            }
+        }
+    }
+
+    /**
+     * Drop subscribers whose current write has not finished within the send timeout.
+     */
+    @Scheduled(fixedDelayString = "${transpo.seat-stream.send-check-ms:1000}")
+    public void dropSlowSubscribers() {
+        long now = System.nanoTime();
+        for (Set<Subscriber> subs : subscribers.values()) {
+            for (Subscriber s : subs) {
+                long started = s.sendStarted;
+                if (started != 0 && now - started > sendTimeoutNanos) {
+                    s.drop();
+                }
+            }
+        }
+    }
+
+    private synchronized void resizeSenders() {
+        int extra = Math.max(0, stuck.get());
+        senders.setCorePoolSize(Math.min(senderThreads + extra, senders.getMaximumPoolSize()));
+    }
+
+    public Map<String, Object> stats() {
+        int open = 0;
+        for (Set<Subscriber> subs : subscribers.values()) {
+            open += subs.size();
+        }
+        return Map.of("schedules", subscribers.size(), "subscribers", open, "dropped", dropped.get(),
+                "stuckSenders", stuck.get());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        senders.shutdownNow();
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.scheduleId, (id, subs) -> {
+            subs.remove(subscriber);
+            return subs.isEmpty() ? null : subs;
+        });
+    }
+
+    /** Seat number and its new status (AVAILABLE, RESERVED, PAID or a seat-state overlay value). */
+    public record SeatDelta(int seatNumber, String status) {}
+
+    private final class Subscriber {
+        final Long scheduleId;
+        final SseEmitter emitter;
+        final BlockingQueue<Set<DataWithMediaType>> queue;
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean stalled = new AtomicBoolean();
+        final AtomicBoolean counted = new AtomicBoolean();
+        // System.nanoTime() when the running write started, 0 when idle
+        volatile long sendStarted;
+
+        Subscriber(Long scheduleId, SseEmitter emitter, BlockingQueue<Set<DataWithMediaType>> queue) {
+            this.scheduleId = scheduleId;
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+
+        /** The sender is no longer blocked on this subscriber; counted once. */
+        void unstuck() {
+            if (counted.compareAndSet(false, true)) {
+                stuck.decrementAndGet();
+                resizeSenders();
+            }
+        }
+
+        /**
+         * Stop sending to this subscriber. The emitter is completed by its sender once any running
+         * write returns: complete() waits for the same write, and the caller may be a publisher.
+         */
+        void drop() {
+            if (!stalled.compareAndSet(false, true)) return;
+            dropped.incrementAndGet();
+            remove(this);
+            long started = sendStarted;
+            stuck.incrementAndGet();
+            if (started == 0 || sendStarted != started) {
+                // No write running, or it finished meanwhile
+                unstuck();
+            }
+            resizeSenders();
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        void offer(Set<DataWithMediaType> event) {
+            if (!queue.offer(event)) {
+                // Buffer full: the client cannot keep up, it reconnects and reloads the grid
+                drop();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        void drain() {
+            try {
+                Set<DataWithMediaType> event;
+                while (!stalled.get() && (event = queue.poll()) != null) {
+                    sendStarted = System.nanoTime();
+                    emitter.send(event);
+                    sendStarted = 0;
+                }
+            } catch (IOException | IllegalStateException e) {
+                remove(this);
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                sendStarted = 0;
+                draining.set(false);
+                if (stalled.get()) {
+                    unstuck();
+                }
+            }
+            if (stalled.get()) {
+                emitter.complete();
+                return;
+            }
+            // An event may have arrived after the last poll but before the flag was cleared
+            if (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+    }
+}
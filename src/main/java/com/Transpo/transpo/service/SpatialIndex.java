@@ -0,0 +1,232 @@
+package com.Transpo.transpo.service;
+
+import com.Transpo.transpo.model.BusStop;
+import com.Transpo.transpo.repository.BusStopRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Uniform lat/lng grid over bus stops and live bus positions.
+ * Nearest-stop queries walk rings of cells outwards from the query point and stop as soon
+ * as no unvisited cell can hold a closer stop; radius queries only visit the cells that
+ * overlap the radius. Stops are loaded once at startup and then added or removed
+ * incrementally; bus cells move only when a ping crosses a cell border.
+ */
+@Service
+public class SpatialIndex {
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double KM_PER_DEGREE = EARTH_RADIUS_KM * Math.PI / 180;
+
+    private final BusStopRepository busStopRepo;
+    private final double cellDegrees;
+    private final int maxRings;
+    private final long busMaxAgeMillis;
+
+    private final Map<Long, Set<StopPoint>> stopCells = new ConcurrentHashMap<>();
+    private final Map<Long, StopPoint> stops = new ConcurrentHashMap<>();
+    private final Map<Long, Set<BusPoint>> busCells = new ConcurrentHashMap<>();
+    private final Map<Long, BusPoint> buses = new ConcurrentHashMap<>();
+
+    public SpatialIndex(BusStopRepository busStopRepo,
+                        @Value("${transpo.spatial.cell-degrees:0.01}") double cellDegrees,
+                        @Value("${transpo.spatial.max-rings:500}") int maxRings,
+                        @Value("${transpo.spatial.bus-max-age-seconds:120}") int busMaxAgeSeconds) {
+        this.busStopRepo = busStopRepo;
+        this.cellDegrees = cellDegrees;
+        this.maxRings = maxRings;
+        this.busMaxAgeMillis = busMaxAgeSeconds * 1000L;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        stopCells.clear();
+        stops.clear();
+        for (Object[] row : busStopRepo.findAllPoints()) {
+            // Named stops not placed on the map yet have no position
+            if (row[3] == null || row[4] == null) continue;
+            addStop(new StopPoint((Long) row[0], (Long) row[1], (String) row[2],
+                    ((Number) row[3]).doubleValue(), ((Number) row[4]).doubleValue()));
+        }
+    }
+
+    public void addStops(List<BusStop> added) {
+        for (BusStop s : added) {
+            if (s.getId() == null || s.getLatitude() == null || s.getLongitude() == null) continue;
+            Long routeId = s.getRoute() != null ? s.getRoute().getId() : null;
+            removeStop(s.getId());
+            addStop(new StopPoint(s.getId(), routeId, s.getName(), s.getLatitude(), s.getLongitude()));
+        }
+    }
+
+    public void removeRoute(Long routeId) {
+        for (StopPoint p : new ArrayList<>(stops.values())) {
+            if (routeId.equals(p.routeId())) removeStop(p.id());
+        }
+    }
+
+    /**
+     * Move a bus to its latest position. Allocates only when the bus first reports
+     * or crosses into another cell.
+     */
+    public void updateBus(Long busId, double lat, double lng, long timestamp) {
+        long cell = cell(lat, lng);
+        BusPoint bus = buses.get(busId);
+        if (bus == null) {
+            bus = buses.computeIfAbsent(busId, id -> new BusPoint(id, cell));
+            busCells.computeIfAbsent(cell, c -> ConcurrentHashMap.newKeySet()).add(bus);
+        }
+        bus.lat = lat;
+        bus.lng = lng;
+        bus.timestamp = timestamp;
+        if (bus.cell != cell) {
+            long previous = bus.cell;
+            busCells.computeIfAbsent(cell, c -> ConcurrentHashMap.newKeySet()).add(bus);
+            bus.cell = cell;
+            BusPoint moved = bus;
+            busCells.computeIfPresent(previous, (c, set) -> {
+                set.remove(moved);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+
+    /**
+     * The k stops closest to a point, nearest first.
+     */
+    public List<NearbyStop> nearestStops(double lat, double lng, int k) {
+        if (k <= 0 || stops.isEmpty()) return List.of();
+        // Max-heap of the best k candidates so far
+        PriorityQueue<NearbyStop> best = new PriorityQueue<>(Comparator.comparingDouble(NearbyStop::distanceKm).reversed());
+        int row = row(lat);
+        int col = col(lng);
+        for (int ring = 0; ring <= maxRings; ring++) {
+            for (int r = row - ring; r <= row + ring; r++) {
+                for (int c = col - ring; c <= col + ring; c++) {
+                    // Only the border of the ring; the inside was visited before
+                    if (ring > 0 && r != row - ring && r != row + ring && c != col - ring && c != col + ring) continue;
+                    Set<StopPoint> cell = stopCells.get(key(r, c));
+                    if (cell == null) continue;
+                    for (StopPoint p : cell) {
+                        double d = distanceKm(lat, lng, p.lat(), p.lng());
+                        if (best.size() < k) {
+                            best.add(new NearbyStop(p.id(), p.routeId(), p.name(), p.lat(), p.lng(), d));
+                        } else if (d < best.peek().distanceKm()) {
+                            best.poll();
+                            best.add(new NearbyStop(p.id(), p.routeId(), p.name(), p.lat(), p.lng(), d));
+                        }
+                    }
+                }
+            }
+            // Any stop outside this ring is at least ring cells away
+            if (best.size() == k && best.peek().distanceKm() <= ring * minCellKm(lat)) break;
+            if (best.size() == stops.size()) break;
+        }
+        List<NearbyStop> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(NearbyStop::distanceKm));
+        return result;
+    }
+
+    /**
+     * Buses whose latest position is within radiusKm of a point, nearest first.
+     * Buses that have not reported recently are ignored.
+     */
+    public List<NearbyBus> busesWithin(double lat, double lng, double radiusKm) {
+        long since = System.currentTimeMillis() - busMaxAgeMillis;
+        double dLat = radiusKm / KM_PER_DEGREE;
+        double dLng = radiusKm / (KM_PER_DEGREE * Math.max(0.01, Math.cos(Math.toRadians(Math.min(89.0, Math.abs(lat) + dLat)))));
+        List<NearbyBus> result = new ArrayList<>();
+        for (int r = row(lat - dLat); r <= row(lat + dLat); r++) {
+            for (int c = col(lng - dLng); c <= col(lng + dLng); c++) {
+                Set<BusPoint> cell = busCells.get(key(r, c));
+                if (cell == null) continue;
+                for (BusPoint b : cell) {
+                    if (b.timestamp < since) continue;
+                    double d = distanceKm(lat, lng, b.lat, b.lng);
+                    if (d <= radiusKm) {
+                        result.add(new NearbyBus(b.busId, b.lat, b.lng, b.timestamp, d));
+                    }
+                }
+            }
+        }
+        result.sort(Comparator.comparingDouble(NearbyBus::distanceKm));
+        return result;
+    }
+
+    public int stopCount() {
+        return stops.size();
+    }
+
+    private void addStop(StopPoint p) {
+        stops.put(p.id(), p);
+        stopCells.computeIfAbsent(cell(p.lat(), p.lng()), c -> ConcurrentHashMap.newKeySet()).add(p);
+    }
+
+    private void removeStop(Long stopId) {
+        StopPoint p = stops.remove(stopId);
+        if (p == null) return;
+        stopCells.computeIfPresent(cell(p.lat(), p.lng()), (c, set) -> {
+            set.remove(p);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private double minCellKm(double lat) {
+        return cellDegrees * KM_PER_DEGREE * Math.cos(Math.toRadians(Math.min(89.0, Math.abs(lat) + cellDegrees * maxRings)));
+    }
+
+    private int row(double lat) {
+        return (int) Math.floor(lat / cellDegrees);
+    }
+
+    private int col(double lng) {
+        return (int) Math.floor(lng / cellDegrees);
+    }
+
+    private long cell(double lat, double lng) {
+        return key(row(lat), col(lng));
+    }
+
+    private static long key(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+
+    static double distanceKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    private record StopPoint(Long id, Long routeId, String name, double lat, double lng) {}
+
+    private static final class BusPoint {
+        final Long busId;
+        volatile long cell;
+        volatile double lat;
+        volatile double lng;
+        volatile long timestamp;
+
+        BusPoint(Long busId, long cell) {
+            this.busId = busId;
+            this.cell = cell;
+        }
+    }
+
+    public record NearbyStop(Long id, Long routeId, String name, double lat, double lng, double distanceKm) {}
+
+    public record NearbyBus(Long busId, double lat, double lng, long updatedAt, double distanceKm) {}
+}
@@ -0,0 +1,191 @@
+package com.Transpo.transpo.service;
+
+import com.Transpo.transpo.dto.ScheduleResponseDTO;
+import com.Transpo.transpo.model.Route;
+import com.Transpo.transpo.repository.BusStopRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process inverted index over the ordered stop names of every route (bus_stops).
+ * Normalized stop names are split into trigrams that map to route ids, so a substring
+ * search only verifies the routes sharing all trigrams of the query instead of scanning
+ * every route. Positions are kept per route to check that pickup comes before drop.
+ * Also the source of the stop names in schedule responses.
+ * Kept up to date by {@link RouteService} and {@link DriverService} when stops change.
+ */
+@Component
+public class StopSearchIndex {
+
+    private static final int GRAM = 3;
+
+    private final BusStopRepository busStopRepo;
+    // route id -> normalized stop names in route order
+    private final Map<Long, String[]> routeStops = new ConcurrentHashMap<>();
+    // route id -> stop names as entered, in route order
+    private final Map<Long, List<String>> routeNames = new ConcurrentHashMap<>();
+    // trigram -> ids of routes with a stop name containing it
+    private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+
+    public StopSearchIndex(BusStopRepository busStopRepo) {
+        this.busStopRepo = busStopRepo;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        routeStops.clear();
+        routeNames.clear();
+        postings.clear();
+        // Rows come ordered by route and stop sequence
+        Map<Long, List<String>> byRoute = new LinkedHashMap<>();
+        for (Object[] row : busStopRepo.findRouteStopPoints()) {
+            byRoute.computeIfAbsent((Long) row[1], id -> new ArrayList<>()).add((String) row[2]);
+        }
+        byRoute.forEach(this::add);
+    }
+
+    /**
+     * Index a new route or re-index a changed one.
+     */
+    public void put(Route route) {
+        if (route == null || route.getId() == null) return;
+        put(route.getId(), route.getStopNames());
+    }
+
+    public synchronized void put(Long routeId, List<String> stopNames) {
+        remove(routeId);
+        add(routeId, stopNames);
+    }
+
+    /**
+     * Stop names of a route in order; empty when the route has no stops.
+     */
+    public List<String> stopNames(Long routeId) {
+        List<String> names = routeNames.get(routeId);
+        return names != null ? names : List.of();
+    }
+
+    /**
+     * Fill the stop names of schedule rows from the index.
+     */
+    public <T extends Collection<ScheduleResponseDTO>> T fillStops(T schedules) {
+        for (ScheduleResponseDTO dto : schedules) {
+            dto.setStopNames(stopNames(dto.getRouteId()));
+        }
+        return schedules;
+    }
+
+    public synchronized void remove(Long routeId) {
+        routeNames.remove(routeId);
+        String[] stops = routeStops.remove(routeId);
+        if (stops == null) return;
+        for (String gram : grams(stops)) {
+            postings.computeIfPresent(gram, (g, ids) -> {
+                ids.remove(routeId);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    /**
+     * Ids of the routes with a stop matching pickup that comes before a stop matching drop.
+     * Matching is a case-insensitive substring match on the stop name.
+     */
+    public List<Long> findRoutes(String pickup, String drop) {
+        String p = pickup == null ? "" : normalize(pickup);
+        String d = drop == null ? "" : normalize(drop);
+        Set<Long> candidates = candidates(p);
+        if (candidates.isEmpty()) return List.of();
+        candidates.retainAll(candidates(d));
+
+        List<Long> result = new ArrayList<>();
+        for (Long routeId : candidates) {
+            String[] stops = routeStops.get(routeId);
+            if (stops == null) continue;
+            int first = firstMatch(stops, p);
+            if (first >= 0 && lastMatch(stops, d) > first) {
+                result.add(routeId);
+            }
+        }
+        return result;
+    }
+
+    private void add(Long routeId, List<String> names) {
+        String[] stops = new String[names.size()];
+        for (int i = 0; i < stops.length; i++) {
+            stops[i] = normalize(names.get(i));
+        }
+        routeNames.put(routeId, List.copyOf(names));
+        routeStops.put(routeId, stops);
+        for (String gram : grams(stops)) {
+            postings.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(routeId);
+        }
+    }
+
+    private Set<Long> candidates(String query) {
+        if (query.length() < GRAM) {
+            // Too short for a trigram lookup; the verification step does the filtering
+            return new HashSet<>(routeStops.keySet());
+        }
+        Set<Long> result = null;
+        for (String gram : grams(query)) {
+            Set<Long> ids = postings.get(gram);
+            if (ids == null) return new HashSet<>();
+            if (result == null) {
+                result = new HashSet<>(ids);
+            } else {
+                result.retainAll(ids);
+            }
+            if (result.isEmpty()) break;
+        }
+        return result;
+    }
+
+    private static int firstMatch(String[] stops, String query) {
+        for (int i = 0; i < stops.length; i++) {
+            if (stops[i] != null && stops[i].contains(query)) return i;
+        }
+        return -1;
+    }
+
+    private static int lastMatch(String[] stops, String query) {
+        for (int i = stops.length - 1; i >= 0; i--) {
+            if (stops[i] != null && stops[i].contains(query)) return i;
+        }
+        return -1;
+    }
+
+    private static Collection<String> grams(String[] stops) {
+        Set<String> grams = new HashSet<>();
+        for (String stop : stops) {
+            if (stop != null) grams.addAll(grams(stop));
+        }
+        return grams;
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    static String normalize(String name) {
+        if (name == null) return null;
+        return name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
@@ -16,12 +17,18 @@ public class TicketPriceService {
     private final TicketPriceRepository ticketPriceRepository;
     private final RouteRepository routeRepository;
     private final BusStopRepository busStopRepository;
-    public TicketPriceService(TicketPriceRepository ticketPriceRepository, RouteRepository routeRepository, BusStopRepository busStopRepository) {
+    private final FareMatrixCache fareMatrix;
+    public TicketPriceService(TicketPriceRepository ticketPriceRepository, RouteRepository routeRepository,
+                              BusStopRepository busStopRepository, FareMatrixCache fareMatrix) {
         this.ticketPriceRepository = ticketPriceRepository;
         this.routeRepository = routeRepository;
         this.busStopRepository = busStopRepository;
+        this.fareMatrix = fareMatrix;
     }
 
+    /** Most pairs priced by one batch quote. */
+    public static final int MAX_QUOTE_PAIRS = 1000;
+
     public List<TicketPrice> listByRoute(Long routeId) {
         return ticketPriceRepository.findByRouteId(routeId);
     }
@@ -37,6 +44,7 @@ public class TicketPriceService {
         if (!fromBelongs || !toBelongs) {
             throw new IllegalArgumentException("Both stops must belong to the specified route");
         }
+        fareMatrix.invalidateAfterCommit(routeId);
         // Symmetric upsert: if a record exists for either direction, update its price instead of inserting
         return ticketPriceRepository.findSymmetric(routeId, fromStopId, toStopId)
                 .map(existing -> {
@@ -57,11 +65,29 @@ public class TicketPriceService {
     public TicketPrice update(Long id, BigDecimal price) {
         TicketPrice tp = ticketPriceRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("Ticket price not found"));
         tp.setPrice(price);
+        fareMatrix.invalidateAfterCommit(tp.getRoute().getId());
         return ticketPriceRepository.save(tp);
     }
 
-    public TicketPrice findPrice(Long routeId, Long fromStopId, Long toStopId) {
-        return ticketPriceRepository.findSymmetric(routeId, fromStopId, toStopId).orElse(null);
+    /**
+     * Price between two stops in either direction from the route's in-memory fare matrix; null when not set.
+     */
+    public BigDecimal findPrice(Long routeId, Long fromStopId, Long toStopId) {
+        return fareMatrix.price(routeId, fromStopId, toStopId);
+    }
+
+    /**
+     * Prices of many (fromStopId, toStopId) pairs of one route; a null price means the pair is not priced.
+     */
+    public List<BigDecimal> findPrices(Long routeId, List<Long[]> pairs) {
+        if (pairs.size() > MAX_QUOTE_PAIRS) {
+            throw new IllegalArgumentException("At most " + MAX_QUOTE_PAIRS + " pairs per request");
+        }
+        List<BigDecimal> prices = new ArrayList<>(pairs.size());
+        for (Long[] pair : pairs) {
+            prices.add(fareMatrix.price(routeId, pair[0], pair[1]));
+        }
+        return prices;
     }
 
     // If Route exposes a stop list, add membership validation here.
@@ -70,6 +96,7 @@ public class TicketPriceService {
     public void delete(Long id) {
         TicketPrice tp = ticketPriceRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Ticket price not found"));
+        fareMatrix.invalidateAfterCommit(tp.getRoute().getId());
         ticketPriceRepository.delete(tp);
     }
 }
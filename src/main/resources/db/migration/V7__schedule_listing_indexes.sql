@@ -0,0 +1,5 @@
+-- Keyset pagination on (departure_time, id) and the listing filters
+CREATE INDEX IF NOT EXISTS ix_schedules_departure_id ON schedules(departure_time, id);
+CREATE INDEX IF NOT EXISTS ix_schedules_bus_departure ON schedules(bus_id, departure_time, id);
+CREATE INDEX IF NOT EXISTS ix_schedules_route_departure ON schedules(route_id, departure_time, id);
+CREATE INDEX IF NOT EXISTS ix_routes_origin_destination ON routes(LOWER(origin), LOWER(destination));
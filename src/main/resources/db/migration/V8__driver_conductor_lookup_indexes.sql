@@ -0,0 +1,4 @@
+-- Join path bus -> schedules -> reservations used by the driver and conductor dashboards
+CREATE INDEX IF NOT EXISTS ix_reservations_schedule_seat ON reservations(schedule_id, seat_number);
+CREATE INDEX IF NOT EXISTS ix_driver_assignments_bus ON driver_assignments(bus_id);
+CREATE INDEX IF NOT EXISTS ix_conductor_assignments_bus ON conductor_assignments(bus_id);
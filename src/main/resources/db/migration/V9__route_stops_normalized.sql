@@ -0,0 +1,70 @@
+-- Named route stops (routes.stop01..stop10) move into bus_stops, the one ordered stop list per route.
+-- Named stops have no coordinates until a driver places them on the map.
+ALTER TABLE bus_stops ALTER COLUMN latitude DROP NOT NULL;
+ALTER TABLE bus_stops ALTER COLUMN longitude DROP NOT NULL;
+
+-- Reservations derive their seat legs from stop sequences, so existing stops keep theirs.
+-- Stops sharing a sequence on one route are moved after the route's last stop, oldest first.
+WITH numbered AS (
+    SELECT id, route_id,
+           ROW_NUMBER() OVER (PARTITION BY route_id, sequence ORDER BY id) AS copy
+    FROM bus_stops
+    WHERE sequence IS NOT NULL
+), moved AS (
+    SELECT n.id,
+           m.last_sequence + ROW_NUMBER() OVER (PARTITION BY n.route_id ORDER BY n.id) AS sequence
+    FROM numbered n
+    JOIN (SELECT route_id, MAX(sequence) AS last_sequence FROM bus_stops GROUP BY route_id) m
+      ON m.route_id = n.route_id
+    WHERE n.copy > 1
+)
+UPDATE bus_stops b SET sequence = moved.sequence FROM moved WHERE b.id = moved.id;
+
+-- Named stops follow the route's last stop in column order. A named stop already present on
+-- the route (same name, case-insensitive) is not duplicated.
+INSERT INTO bus_stops (name, latitude, longitude, sequence, route_id)
+SELECT btrim(v.name), NULL, NULL,
+       COALESCE((SELECT MAX(b.sequence) FROM bus_stops b WHERE b.route_id = r.id), 0)
+           + ROW_NUMBER() OVER (PARTITION BY r.id ORDER BY v.position),
+       r.id
+FROM routes r
+CROSS JOIN LATERAL (VALUES
+    (1, r.stop01), (2, r.stop02), (3, r.stop03), (4, r.stop04), (5, r.stop05),
+    (6, r.stop06), (7, r.stop07), (8, r.stop08), (9, r.stop09), (10, r.stop10)
+) AS v(position, name)
+WHERE v.name IS NOT NULL AND btrim(v.name) <> ''
+  AND NOT EXISTS (
+      SELECT 1 FROM bus_stops b
+      WHERE b.route_id = r.id AND lower(btrim(b.name)) = lower(btrim(v.name))
+  );
+
+-- One stop per position on a route; also serves the ordered stop list
+CREATE UNIQUE INDEX IF NOT EXISTS ux_bus_stops_route_sequence ON bus_stops(route_id, sequence);
+CREATE INDEX IF NOT EXISTS ix_bus_stops_name ON bus_stops(LOWER(name));
+
+ALTER TABLE routes
+    DROP COLUMN IF EXISTS stop01, DROP COLUMN IF EXISTS stop02, DROP COLUMN IF EXISTS stop03,
+    DROP COLUMN IF EXISTS stop04, DROP COLUMN IF EXISTS stop05, DROP COLUMN IF EXISTS stop06,
+    DROP COLUMN IF EXISTS stop07, DROP COLUMN IF EXISTS stop08, DROP COLUMN IF EXISTS stop09,
+    DROP COLUMN IF EXISTS stop10;
+
+-- Compatibility view with the old column layout: the first ten stops of each route in order
+CREATE OR REPLACE VIEW route_stop_columns AS
+SELECT r.id AS route_id, r.origin, r.destination,
+       MAX(CASE WHEN s.position = 1 THEN s.name END) AS stop01,
+       MAX(CASE WHEN s.position = 2 THEN s.name END) AS stop02,
+       MAX(CASE WHEN s.position = 3 THEN s.name END) AS stop03,
+       MAX(CASE WHEN s.position = 4 THEN s.name END) AS stop04,
+       MAX(CASE WHEN s.position = 5 THEN s.name END) AS stop05,
+       MAX(CASE WHEN s.position = 6 THEN s.name END) AS stop06,
+       MAX(CASE WHEN s.position = 7 THEN s.name END) AS stop07,
+       MAX(CASE WHEN s.position = 8 THEN s.name END) AS stop08,
+       MAX(CASE WHEN s.position = 9 THEN s.name END) AS stop09,
+       MAX(CASE WHEN s.position = 10 THEN s.name END) AS stop10
+FROM routes r
+LEFT JOIN (
+    SELECT route_id, name,
+           ROW_NUMBER() OVER (PARTITION BY route_id ORDER BY sequence NULLS LAST, id) AS position
+    FROM bus_stops
+) s ON s.route_id = r.id
+GROUP BY r.id, r.origin, r.destination;
@@ -0,0 +1,104 @@
+package com.Transpo.transpo.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyFilterTest {
+
+	private final IdempotencyStore store = new IdempotencyStore(100, 60);
+	private final IdempotencyFilter filter = new IdempotencyFilter(store);
+
+	private static MockHttpServletRequest booking(String key) {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/reservations/book");
+		request.addHeader(IdempotencyFilter.HEADER, key);
+		return request;
+	}
+
+	private MockHttpServletResponse send(MockHttpServletRequest request, FilterChain chain) throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, chain);
+		return response;
+	}
+
+	@Test
+	void retryReplaysTheFirstResponseWithoutRunningAgain() throws Exception {
+		AtomicInteger calls = new AtomicInteger();
+		FilterChain book = (req, res) -> {
+			calls.incrementAndGet();
+			((HttpServletResponse) res).setStatus(201);
+			res.setContentType("application/json");
+			res.getWriter().write("{\"id\":" + calls.get() + "}");
+		};
+
+		MockHttpServletResponse first = send(booking("abc"), book);
+		MockHttpServletResponse retry = send(booking("abc"), book);
+
+		assertEquals(1, calls.get());
+		assertEquals(201, first.getStatus());
+		assertNull(first.getHeader("Idempotent-Replayed"));
+		assertEquals(201, retry.getStatus());
+		assertEquals("true", retry.getHeader("Idempotent-Replayed"));
+		assertEquals("{\"id\":1}", retry.getContentAsString());
+
+		// Another key is a new request
+		send(booking("def"), book);
+		assertEquals(2, calls.get());
+	}
+
+	@Test
+	void concurrentRetryGetsAConflict() throws Exception {
+		MockHttpServletResponse[] overlapping = new MockHttpServletResponse[1];
+		// The retry arrives while the first request is still in the chain
+		FilterChain slow = (req, res) -> {
+			try {
+				overlapping[0] = send(booking("abc"), (r, s) -> { throw new AssertionError("ran twice"); });
+			} catch (Exception e) {
+				throw new AssertionError(e);
+			}
+			((HttpServletResponse) res).setStatus(201);
+		};
+
+		MockHttpServletResponse first = send(booking("abc"), slow);
+
+		assertEquals(201, first.getStatus());
+		assertEquals(409, overlapping[0].getStatus());
+		assertTrue(overlapping[0].getContentAsString().contains("still in progress"));
+	}
+
+	@Test
+	void serverErrorsAreNotStored() throws Exception {
+		AtomicInteger calls = new AtomicInteger();
+		FilterChain failing = (req, res) -> {
+			((HttpServletResponse) res).setStatus(calls.incrementAndGet() == 1 ? 503 : 201);
+		};
+
+		assertEquals(503, send(booking("abc"), failing).getStatus());
+		assertEquals(201, send(booking("abc"), failing).getStatus());
+		assertEquals(2, calls.get());
+	}
+
+	@Test
+	void requestsWithoutAKeyOrOutsideReservationsPassThrough() throws Exception {
+		AtomicInteger calls = new AtomicInteger();
+		FilterChain chain = (req, res) -> calls.incrementAndGet();
+
+		send(new MockHttpServletRequest("POST", "/api/reservations/book"), chain);
+		send(new MockHttpServletRequest("POST", "/api/reservations/book"), chain);
+		MockHttpServletRequest other = new MockHttpServletRequest("POST", "/api/schedules");
+		other.addHeader(IdempotencyFilter.HEADER, "abc");
+		send(other, chain);
+		send(other, chain);
+
+		assertEquals(4, calls.get());
+		assertEquals(400, send(booking(" "), chain).getStatus());
+	}
+}
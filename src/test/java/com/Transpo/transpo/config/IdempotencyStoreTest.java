@@ -0,0 +1,70 @@
+package com.Transpo.transpo.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class IdempotencyStoreTest {
+
+	private static IdempotencyStore.StoredResponse ok(String body) {
+		return new IdempotencyStore.StoredResponse(200, "application/json", body.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void replaysTheFirstResponseOnceCompleted() {
+		IdempotencyStore store = new IdempotencyStore(10, 60);
+
+		assertEquals(IdempotencyStore.Outcome.STARTED, store.begin("k").outcome());
+		assertEquals(IdempotencyStore.Outcome.IN_PROGRESS, store.begin("k").outcome());
+		store.complete("k", ok("{\"id\":1}"));
+
+		assertEquals(IdempotencyStore.Outcome.REPLAY, store.begin("k").outcome());
+		assertEquals("{\"id\":1}", new String(store.get("k").getBody(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void abandonedKeysRunAgain() {
+		IdempotencyStore store = new IdempotencyStore(10, 60);
+
+		assertEquals(IdempotencyStore.Outcome.STARTED, store.begin("k").outcome());
+		store.abandon("k");
+		assertNull(store.get("k"));
+		assertEquals(IdempotencyStore.Outcome.STARTED, store.begin("k").outcome());
+	}
+
+	@Test
+	void inProgressKeysAreNeverEvicted() {
+		IdempotencyStore store = new IdempotencyStore(2, 60);
+		assertEquals(IdempotencyStore.Outcome.STARTED, store.begin("slow").outcome());
+
+		// Fill the store well past its size with completed keys
+		for (int i = 0; i < 10; i++) {
+			store.begin("fast" + i);
+			store.complete("fast" + i, ok("{}"));
+		}
+
+		assertEquals(IdempotencyStore.Outcome.IN_PROGRESS, store.begin("slow").outcome());
+		assertEquals(IdempotencyStore.Outcome.REPLAY, store.begin("fast9").outcome());
+		assertEquals(IdempotencyStore.Outcome.STARTED, store.begin("fast0").outcome());
+		assertEquals(2, store.stats().get("size"));
+	}
+
+	@Test
+	void replayCarriesTheResponseEvenIfEvictedRightAfter() {
+		IdempotencyStore store = new IdempotencyStore(1, 60);
+		store.begin("k");
+		store.complete("k", ok("{\"id\":1}"));
+
+		IdempotencyStore.BeginResult replay = store.begin("k");
+		// Another key completing evicts "k" before the replay is written
+		store.begin("other");
+		store.complete("other", ok("{}"));
+		assertNull(store.get("k"));
+
+		assertEquals(IdempotencyStore.Outcome.REPLAY, replay.outcome());
+		assertEquals("{\"id\":1}", new String(replay.response().getBody(), StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,41 @@
+package com.Transpo.transpo.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsRegistryTest {
+
+	@Test
+	void rendersCountersAndCumulativeTimerBuckets() {
+		MetricsRegistry metrics = new MetricsRegistry();
+		metrics.counter("transpo_reservation_conflicts_total", "cause", "seat_taken").increment();
+		metrics.counter("transpo_reservation_conflicts_total", "cause", "seat_taken").increment();
+		MetricsRegistry.Timer timer = metrics.timer("transpo_schedule_seconds", "op", "search");
+		timer.record(2_000_000);      // 2 ms
+		timer.record(20_000_000_000L); // 20 s, above the last bucket
+		metrics.gauge("hikari_connections_active", () -> 3, "pool", "main");
+
+		String text = metrics.scrape();
+
+		assertTrue(text.contains("# TYPE transpo_reservation_conflicts_total counter\n"));
+		assertTrue(text.contains("transpo_reservation_conflicts_total{cause=\"seat_taken\"} 2\n"));
+		assertTrue(text.contains("transpo_schedule_seconds_bucket{op=\"search\",le=\"0.001\"} 0\n"));
+		assertTrue(text.contains("transpo_schedule_seconds_bucket{op=\"search\",le=\"0.0025\"} 1\n"));
+		assertTrue(text.contains("transpo_schedule_seconds_bucket{op=\"search\",le=\"10.0\"} 1\n"));
+		assertTrue(text.contains("transpo_schedule_seconds_bucket{op=\"search\",le=\"+Inf\"} 2\n"));
+		assertTrue(text.contains("transpo_schedule_seconds_count{op=\"search\"} 2\n"));
+		assertTrue(text.contains("transpo_schedule_seconds_sum{op=\"search\"} 20.002\n"));
+		assertTrue(text.contains("hikari_connections_active{pool=\"main\"} 3\n"));
+	}
+
+	@Test
+	void escapesLabelValuesAndRejectsTypeClashes() {
+		assertEquals("reason=\"a\\\"b\\\\c\"", MetricsRegistry.labels("reason", "a\"b\\c"));
+		MetricsRegistry metrics = new MetricsRegistry();
+		metrics.counter("transpo_x");
+		assertThrows(IllegalArgumentException.class, () -> metrics.timer("transpo_x"));
+	}
+}
@@ -0,0 +1,24 @@
+package com.Transpo.transpo.config;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Fails the test when more SQL statements than declared run on the test thread, including
+ * those of endpoints called through MockMvc. On a class it applies to every test method that
+ * has no budget of its own.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(QueryBudgetExtension.class)
+public @interface QueryBudget {
+
+	/**
+	 * Most statements the test may run.
+	 */
+	int value();
+}
@@ -0,0 +1,37 @@
+package com.Transpo.transpo.config;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Counts the statements of each test method body and enforces {@link QueryBudget}.
+ * Fixtures built in @BeforeEach methods are not counted.
+ */
+class QueryBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+	private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(QueryBudgetExtension.class);
+
+	@Override
+	public void beforeTestExecution(ExtensionContext context) {
+		context.getStore(NAMESPACE).put("tally", SqlStatementCounter.open());
+	}
+
+	@Override
+	public void afterTestExecution(ExtensionContext context) {
+		SqlStatementCounter.Tally tally = context.getStore(NAMESPACE).remove("tally", SqlStatementCounter.Tally.class);
+		if (tally == null) return;
+		SqlStatementCounter.close(tally);
+		int budget = AnnotationSupport.findAnnotation(context.getRequiredTestMethod(), QueryBudget.class)
+				.or(() -> AnnotationSupport.findAnnotation(context.getRequiredTestClass(), QueryBudget.class))
+				.map(QueryBudget::value)
+				.orElse(Integer.MAX_VALUE);
+		if (tally.statements() > budget) {
+			fail("Ran " + tally.statements() + " SQL statements, budget is " + budget
+					+ "; most repeated (" + tally.maxRepeats() + "x): " + tally.mostRepeated());
+		}
+	}
+}
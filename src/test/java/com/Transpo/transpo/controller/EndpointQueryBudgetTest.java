@@ -0,0 +1,116 @@
+package com.Transpo.transpo.controller;
+
+import com.Transpo.transpo.Role;
+import com.Transpo.transpo.config.QueryBudget;
+import com.Transpo.transpo.model.Bus;
+import com.Transpo.transpo.model.ConductorAssignment;
+import com.Transpo.transpo.model.DriverAssignment;
+import com.Transpo.transpo.model.ReservationHistory;
+import com.Transpo.transpo.model.Route;
+import com.Transpo.transpo.model.Schedule;
+import com.Transpo.transpo.model.User;
+import com.Transpo.transpo.repository.BusRepository;
+import com.Transpo.transpo.repository.ConductorAssignmentRepository;
+import com.Transpo.transpo.repository.DriverAssignmentRepository;
+import com.Transpo.transpo.repository.ReservationHistoryRepository;
+import com.Transpo.transpo.repository.RouteRepository;
+import com.Transpo.transpo.repository.ScheduleRepository;
+import com.Transpo.transpo.repository.UserRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * List endpoints that used to run queries per row must stay within a fixed statement budget,
+ * however many rows they return.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:budget;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.show-sql=false",
+		"logging.level.root=WARN",
+		"logging.level.org.springframework.security=WARN",
+		"logging.level.org.springframework.web=WARN",
+		"transpo.sql-budget.response-header=true"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class EndpointQueryBudgetTest {
+
+	private static final int ROWS = 20;
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private UserRepository userRepo;
+	@Autowired
+	private BusRepository busRepo;
+	@Autowired
+	private RouteRepository routeRepo;
+	@Autowired
+	private ScheduleRepository scheduleRepo;
+	@Autowired
+	private DriverAssignmentRepository driverAssignmentRepo;
+	@Autowired
+	private ConductorAssignmentRepository conductorAssignmentRepo;
+	@Autowired
+	private ReservationHistoryRepository historyRepo;
+
+	@BeforeAll
+	void createRows() {
+		Route route = routeRepo.save(new Route("Colombo", "Kandy"));
+		for (int i = 0; i < ROWS; i++) {
+			Bus bus = busRepo.save(new Bus("NB-" + i, "Bus " + i, 40));
+			driverAssignmentRepo.save(new DriverAssignment(userRepo.save(new User("driver" + i, "x", Role.DRIVER)), bus));
+			conductorAssignmentRepo.save(new ConductorAssignment(userRepo.save(new User("conductor" + i, "x", Role.CONDUCTOR)), bus));
+			Schedule schedule = scheduleRepo.save(new Schedule(bus, route, LocalDateTime.now().plusDays(1), 500, 40));
+
+			ReservationHistory history = new ReservationHistory();
+			history.setUsername("alice");
+			history.setPassengerName("Alice");
+			history.setPassengerEmail("alice@mail.com");
+			history.setSeatNumber(i + 1);
+			history.setScheduleId(schedule.getId());
+			history.setBookingTime(LocalDateTime.now().minusDays(1));
+			history.setCancelledAt(LocalDateTime.now());
+			historyRepo.save(history);
+		}
+	}
+
+	@Test
+	@QueryBudget(3)
+	@WithMockUser(roles = "ADMIN")
+	void busesWithAssignments() throws Exception {
+		mockMvc.perform(get("/api/admin/buses"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(ROWS))
+				.andExpect(jsonPath("$[0].driverUsername").exists())
+				.andExpect(header().exists("X-SQL-Statements"));
+	}
+
+	@Test
+	@QueryBudget(3)
+	@WithMockUser(username = "alice", roles = "PASSENGER")
+	void reservationHistory() throws Exception {
+		mockMvc.perform(get("/api/reservations/history"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(ROWS))
+				.andExpect(jsonPath("$[0].busNumber").exists());
+	}
+}
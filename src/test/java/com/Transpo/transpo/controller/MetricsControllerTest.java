@@ -0,0 +1,38 @@
+package com.Transpo.transpo.controller;
+
+import com.Transpo.transpo.config.MetricsRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MetricsControllerTest {
+
+	private static Authentication user(String role) {
+		return new UsernamePasswordAuthenticationToken("u", "n/a", List.of(new SimpleGrantedAuthority("ROLE_" + role)));
+	}
+
+	@Test
+	void withoutAScrapeTokenOnlyAdminsCanScrape() {
+		MetricsController controller = new MetricsController(new MetricsRegistry(), "");
+
+		assertEquals(HttpStatus.UNAUTHORIZED, controller.scrape(null, null).getStatusCode());
+		assertEquals(HttpStatus.UNAUTHORIZED, controller.scrape("Bearer ", null).getStatusCode());
+		assertEquals(HttpStatus.FORBIDDEN, controller.scrape(null, user("PASSENGER")).getStatusCode());
+		assertEquals(HttpStatus.OK, controller.scrape(null, user("ADMIN")).getStatusCode());
+	}
+
+	@Test
+	void scrapeTokenAdmitsScrapers() {
+		MetricsController controller = new MetricsController(new MetricsRegistry(), "s3cret");
+
+		assertEquals(HttpStatus.OK, controller.scrape("Bearer s3cret", null).getStatusCode());
+		assertEquals(HttpStatus.UNAUTHORIZED, controller.scrape("Bearer wrong", null).getStatusCode());
+		assertEquals(HttpStatus.OK, controller.scrape(null, user("ADMIN")).getStatusCode());
+	}
+}
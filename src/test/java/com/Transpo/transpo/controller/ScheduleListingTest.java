@@ -0,0 +1,140 @@
+package com.Transpo.transpo.controller;
+
+import com.Transpo.transpo.model.Bus;
+import com.Transpo.transpo.model.Route;
+import com.Transpo.transpo.model.Schedule;
+import com.Transpo.transpo.repository.BusRepository;
+import com.Transpo.transpo.repository.RouteRepository;
+import com.Transpo.transpo.repository.ScheduleRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * GET /api/schedules pages by (departureTime, id) when a limit or cursor is given and lists
+ * everything otherwise.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:schedule-listing;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.show-sql=false",
+		"logging.level.root=WARN"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@WithMockUser(roles = "ADMIN")
+class ScheduleListingTest {
+
+	private static final int ROWS = 7;
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private BusRepository busRepo;
+	@Autowired
+	private RouteRepository routeRepo;
+	@Autowired
+	private ScheduleRepository scheduleRepo;
+
+	private final ObjectMapper json = new ObjectMapper();
+	private Bus bus;
+	private final List<Long> expected = new ArrayList<>();
+
+	@BeforeAll
+	void createSchedules() {
+		Route route = routeRepo.save(new Route("Colombo", "Galle"));
+		bus = busRepo.save(new Bus("NB-LIST", "Listing", 40));
+		Bus other = busRepo.save(new Bus("NB-OTHER", "Other", 40));
+		LocalDateTime base = LocalDateTime.now().plusDays(1).withNano(0);
+		// Saved out of departure order; schedules 2 and 3 leave at the same time and are ordered by id
+		int[] hours = {5, 1, 3, 3, 0, 6, 2};
+		List<Schedule> saved = new ArrayList<>();
+		for (int h : hours) {
+			saved.add(scheduleRepo.save(new Schedule(bus, route, base.plusHours(h), 500, 40)));
+		}
+		scheduleRepo.save(new Schedule(other, route, base, 500, 40));
+		saved.stream()
+				.sorted((a, b) -> a.getDepartureTime().equals(b.getDepartureTime())
+						? a.getId().compareTo(b.getId())
+						: a.getDepartureTime().compareTo(b.getDepartureTime()))
+				.forEach(s -> expected.add(s.getId()));
+	}
+
+	private MockHttpServletResponse list(String query) throws Exception {
+		return mockMvc.perform(get("/api/schedules?busId=" + bus.getId() + query))
+				.andExpect(status().isOk())
+				.andReturn().getResponse();
+	}
+
+	private List<Long> ids(MockHttpServletResponse response) throws Exception {
+		List<Long> ids = new ArrayList<>();
+		for (JsonNode node : json.readTree(response.getContentAsString())) {
+			ids.add(node.get("id").asLong());
+		}
+		return ids;
+	}
+
+	@Test
+	void pagesFollowTheCursorWithoutGapsOrRepeats() throws Exception {
+		List<Long> seen = new ArrayList<>();
+		MockHttpServletResponse page = list("&limit=3");
+		int pages = 1;
+		seen.addAll(ids(page));
+		while (page.getHeader("X-Next-Cursor") != null) {
+			page = list("&limit=3&cursor=" + page.getHeader("X-Next-Cursor"));
+			seen.addAll(ids(page));
+			pages++;
+		}
+		assertEquals(3, pages);
+		assertEquals(expected, seen);
+	}
+
+	@Test
+	void lastFullPageHasNoCursor() throws Exception {
+		MockHttpServletResponse first = list("&limit=" + (ROWS - 2));
+		assertNotNull(first.getHeader("X-Next-Cursor"));
+		MockHttpServletResponse last = list("&limit=2&cursor=" + first.getHeader("X-Next-Cursor"));
+		assertEquals(expected.subList(ROWS - 2, ROWS), ids(last));
+		assertNull(last.getHeader("X-Next-Cursor"));
+	}
+
+	@Test
+	void withoutLimitOrCursorEverythingIsListed() throws Exception {
+		MockHttpServletResponse all = list("");
+		assertEquals(expected, ids(all));
+		assertNull(all.getHeader("X-Next-Cursor"));
+
+		// A cursor alone pages with the default limit
+		MockHttpServletResponse first = list("&limit=1");
+		assertEquals(expected.subList(1, ROWS), ids(list("&cursor=" + first.getHeader("X-Next-Cursor"))));
+	}
+
+	@Test
+	void rejectsBadPagingParameters() throws Exception {
+		mockMvc.perform(get("/api/schedules?limit=0")).andExpect(status().isBadRequest());
+		mockMvc.perform(get("/api/schedules?limit=501")).andExpect(status().isBadRequest());
+		mockMvc.perform(get("/api/schedules?cursor=not-a-cursor")).andExpect(status().isBadRequest());
+	}
+}
@@ -0,0 +1,125 @@
+package com.Transpo.transpo.controller;
+
+import com.Transpo.transpo.model.Bus;
+import com.Transpo.transpo.model.Route;
+import com.Transpo.transpo.model.Schedule;
+import com.Transpo.transpo.repository.BusRepository;
+import com.Transpo.transpo.repository.RouteRepository;
+import com.Transpo.transpo.repository.ScheduleRepository;
+import com.Transpo.transpo.service.ReservationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Seat availability answers If-None-Match with 304 while the grid and the caller's view are
+ * unchanged.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:seat-etag;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.show-sql=false",
+		"logging.level.root=WARN"
+})
+@AutoConfigureMockMvc
+class SeatAvailabilityEtagTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private ReservationService reservationService;
+	@Autowired
+	private BusRepository busRepo;
+	@Autowired
+	private RouteRepository routeRepo;
+	@Autowired
+	private ScheduleRepository scheduleRepo;
+
+	private Schedule schedule;
+
+	@BeforeEach
+	void createSchedule() {
+		Route route = routeRepo.save(new Route("Colombo", "Kandy"));
+		Bus bus = busRepo.save(new Bus("NB-" + System.nanoTime(), "Etag", 10));
+		schedule = scheduleRepo.save(new Schedule(bus, route, LocalDateTime.now().plusDays(1), 500, 10));
+	}
+
+	private MockHttpServletRequestBuilder availability(String username) {
+		return get("/api/reservations/seat-availability")
+				.param("busId", schedule.getBus().getId().toString())
+				.param("scheduleId", schedule.getId().toString())
+				.with(user(username).roles("PASSENGER"));
+	}
+
+	private String etag(String username) throws Exception {
+		return mockMvc.perform(availability(username))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader("ETag");
+	}
+
+	@Test
+	void answersNotModifiedUntilTheGridChanges() throws Exception {
+		String etag = etag("alice");
+		mockMvc.perform(availability("alice").header("If-None-Match", etag))
+				.andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+
+		book("alice", 3);
+
+		String booked = etag("alice");
+		assertNotEquals(etag, booked);
+		mockMvc.perform(availability("alice").header("If-None-Match", etag))
+				.andExpect(status().isOk());
+		mockMvc.perform(availability("alice").header("If-None-Match", booked))
+				.andExpect(status().isNotModified());
+	}
+
+	@Test
+	void passengersWithOwnSeatsGetTheirOwnEtag() throws Exception {
+		// "Aa" and "BB" have the same String.hashCode()
+		assertEquals("Aa".hashCode(), "BB".hashCode());
+		book("Aa", 1);
+		book("BB", 2);
+
+		String aa = etag("Aa");
+		String bb = etag("BB");
+		assertNotEquals(aa, bb);
+		// Passengers without seats on the schedule share the public view
+		assertEquals(etag("carol"), etag("dave"));
+		assertNotEquals(aa, etag("carol"));
+
+		mockMvc.perform(availability("BB").header("If-None-Match", aa))
+				.andExpect(status().isOk());
+	}
+
+	private void book(String username, int seat) {
+		SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+				username, "n/a", List.of(new SimpleGrantedAuthority("ROLE_PASSENGER"))));
+		try {
+			reservationService.bookSeat(schedule.getId(), username, username + "@mail.com", seat, null, null);
+		} finally {
+			SecurityContextHolder.clearContext();
+		}
+	}
+}
@@ -0,0 +1,301 @@
+package com.Transpo.transpo.load;
+
+import com.Transpo.transpo.exception.ConflictException;
+import com.Transpo.transpo.model.Bus;
+import com.Transpo.transpo.model.BusStop;
+import com.Transpo.transpo.model.Reservation;
+import com.Transpo.transpo.model.Route;
+import com.Transpo.transpo.model.Schedule;
+import com.Transpo.transpo.repository.BusRepository;
+import com.Transpo.transpo.repository.BusStopRepository;
+import com.Transpo.transpo.repository.ReservationRepository;
+import com.Transpo.transpo.repository.RouteRepository;
+import com.Transpo.transpo.repository.ScheduleRepository;
+import com.Transpo.transpo.service.AvailableSeatsUpdater;
+import com.Transpo.transpo.service.ReservationService;
+import com.Transpo.transpo.service.SeatInventoryService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Peak-sale load against the full application on an in-memory H2 database: many threads book,
+ * cancel and read seat availability on a few hot schedules at once. Reports throughput,
+ * p50/p99/p999 latency and the conflict rate per operation (stdout and
+ * target/load-test-report.json), then fails if any seat leg was sold twice or if, once the
+ * available-seat counters are flushed, either seat counter is off from the reservations
+ * (counterDrift).
+ *
+ * Not part of the normal build; run with
+ *   mvn test -Pload-test -Dload.threads=64 -Dload.seconds=30
+ * Other knobs: load.schedules, load.seats, load.stops, load.bookPercent, load.cancelPercent
+ * (the rest of the traffic reads seat availability), load.seed.
+ */
+@Tag("load")
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:load;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.hikari.maximum-pool-size=20",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.show-sql=false",
+		"logging.level.root=WARN",
+		"logging.level.org.springframework.security=WARN",
+		"logging.level.org.springframework.web=WARN",
+		"server.port=0"
+})
+class BookingLoadTest {
+
+	private static final int THREADS = Integer.getInteger("load.threads", 32);
+	private static final int SECONDS = Integer.getInteger("load.seconds", 15);
+	private static final int SCHEDULES = Integer.getInteger("load.schedules", 4);
+	private static final int SEATS = Integer.getInteger("load.seats", 40);
+	private static final int STOPS = Integer.getInteger("load.stops", 6);
+	private static final int BOOK_PERCENT = Integer.getInteger("load.bookPercent", 60);
+	private static final int CANCEL_PERCENT = Integer.getInteger("load.cancelPercent", 20);
+	private static final long SEED = Long.getLong("load.seed", 42);
+
+	private enum Op { BOOK, CANCEL, AVAILABILITY }
+
+	@Autowired
+	private ReservationService reservationService;
+
+	@Autowired
+	private SeatInventoryService seatInventory;
+
+	@Autowired
+	private AvailableSeatsUpdater availableSeatsUpdater;
+
+	@Autowired
+	private BusRepository busRepo;
+
+	@Autowired
+	private RouteRepository routeRepo;
+
+	@Autowired
+	private BusStopRepository busStopRepo;
+
+	@Autowired
+	private ScheduleRepository scheduleRepo;
+
+	@Autowired
+	private ReservationRepository reservationRepo;
+
+	/** Latencies and outcomes of one operation type on one worker thread. */
+	private static final class Recorder {
+		long[] nanos = new long[1 << 14];
+		int count;
+		int conflicts;
+		int errors;
+
+		void record(long elapsed) {
+			if (count == nanos.length) nanos = Arrays.copyOf(nanos, count * 2);
+			nanos[count++] = elapsed;
+		}
+	}
+
+	private record Trip(Long scheduleId, Long busId, List<Long> stopIds) {}
+
+	@Test
+	void peakSale() throws Exception {
+		List<Trip> trips = createFleet();
+		ConcurrentLinkedQueue<Long> booked = new ConcurrentLinkedQueue<>();
+		List<Map<Op, Recorder>> perThread = new ArrayList<>();
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+
+		List<Future<?>> workers = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			Map<Op, Recorder> recorders = new HashMap<>();
+			for (Op op : Op.values()) recorders.put(op, new Recorder());
+			perThread.add(recorders);
+			SplittableRandom random = new SplittableRandom(SEED + t);
+			int worker = t;
+			workers.add(pool.submit(() -> {
+				SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+						"load-admin", "n/a", List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+				start.await();
+				long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SECONDS);
+				int n = 0;
+				while (System.nanoTime() < deadline) {
+					run(trips.get(random.nextInt(trips.size())), random, booked, recorders, worker, n++);
+				}
+				return null;
+			}));
+		}
+		long began = System.nanoTime();
+		start.countDown();
+		for (Future<?> w : workers) w.get();
+		double seconds = (System.nanoTime() - began) / 1e9;
+		pool.shutdown();
+
+		Map<String, Object> report = report(perThread, seconds);
+		List<String> doubleBooked = new ArrayList<>();
+		availableSeatsUpdater.flush();
+		Map<Long, Map<String, Integer>> drift = checkSeats(trips, doubleBooked);
+		report.put("counterDrift", drift);
+		ObjectMapper json = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+		System.out.println(json.writeValueAsString(report));
+		new File("target").mkdirs();
+		json.writeValue(new File("target/load-test-report.json"), report);
+
+		assertTrue(doubleBooked.isEmpty(), "Double-booked seats: " + doubleBooked);
+		drift.values().removeIf(counters -> counters.get("availableSeats") == 0 && counters.get("inventory") == 0);
+		assertTrue(drift.isEmpty(), "Seat counters off: " + drift);
+	}
+
+	private void run(Trip trip, SplittableRandom random, ConcurrentLinkedQueue<Long> booked,
+					 Map<Op, Recorder> recorders, int worker, int n) {
+		int roll = random.nextInt(100);
+		Op op = roll < BOOK_PERCENT ? Op.BOOK : roll < BOOK_PERCENT + CANCEL_PERCENT ? Op.CANCEL : Op.AVAILABILITY;
+		Long cancelId = null;
+		if (op == Op.CANCEL) {
+			cancelId = booked.poll();
+			if (cancelId == null) op = Op.AVAILABILITY;
+		}
+		Recorder recorder = recorders.get(op);
+		long began = System.nanoTime();
+		try {
+			switch (op) {
+				case BOOK -> {
+					Long pickup = null;
+					Long drop = null;
+					// Half the bookings are partial trips that can share a seat
+					if (random.nextBoolean()) {
+						int from = random.nextInt(STOPS - 1);
+						int to = from + 1 + random.nextInt(STOPS - from - 1);
+						pickup = trip.stopIds.get(from);
+						drop = trip.stopIds.get(to);
+					}
+					Reservation r = reservationService.bookSeat(trip.scheduleId, "Passenger " + worker + "-" + n,
+							"load" + worker + "@mail.com", 1 + random.nextInt(SEATS), pickup, drop);
+					booked.add(r.getId());
+				}
+				case CANCEL -> reservationService.cancelReservation(cancelId);
+				case AVAILABILITY -> reservationService.getSeatAvailability(trip.busId, null, trip.scheduleId, "load-admin");
+			}
+		} catch (ConflictException e) {
+			recorder.conflicts++;
+		} catch (RuntimeException e) {
+			recorder.errors++;
+		} finally {
+			recorder.record(System.nanoTime() - began);
+		}
+	}
+
+	private List<Trip> createFleet() {
+		List<Trip> trips = new ArrayList<>();
+		for (int s = 0; s < SCHEDULES; s++) {
+			Route route = routeRepo.save(new Route("Origin " + s, "Destination " + s));
+			List<Long> stopIds = new ArrayList<>();
+			for (int i = 1; i <= STOPS; i++) {
+				stopIds.add(busStopRepo.save(new BusStop("Stop " + s + "-" + i, 6.9 + i * 0.01, 79.8 + i * 0.01, i, route)).getId());
+			}
+			Bus bus = busRepo.save(new Bus("LOAD-" + s, "Load bus " + s, SEATS));
+			Schedule schedule = scheduleRepo.save(new Schedule(bus, route, LocalDateTime.now().plusDays(1), 500, SEATS));
+			trips.add(new Trip(schedule.getId(), bus.getId(), stopIds));
+		}
+		return trips;
+	}
+
+	private Map<String, Object> report(List<Map<Op, Recorder>> perThread, double seconds) {
+		Map<String, Object> report = new LinkedHashMap<>();
+		report.put("threads", THREADS);
+		report.put("seconds", Math.round(seconds * 100) / 100.0);
+		report.put("schedules", SCHEDULES);
+		report.put("seatsPerBus", SEATS);
+		long totalOps = 0;
+		for (Op op : Op.values()) {
+			List<Recorder> recorders = perThread.stream().map(m -> m.get(op)).toList();
+			int count = recorders.stream().mapToInt(r -> r.count).sum();
+			long[] all = new long[count];
+			int at = 0;
+			int conflicts = 0;
+			int errors = 0;
+			for (Recorder r : recorders) {
+				System.arraycopy(r.nanos, 0, all, at, r.count);
+				at += r.count;
+				conflicts += r.conflicts;
+				errors += r.errors;
+			}
+			Arrays.sort(all);
+			totalOps += count;
+			Map<String, Object> stats = new LinkedHashMap<>();
+			stats.put("count", count);
+			stats.put("opsPerSecond", Math.round(count / seconds));
+			stats.put("conflictRate", count == 0 ? 0 : Math.round(10000.0 * conflicts / count) / 10000.0);
+			stats.put("errors", errors);
+			stats.put("p50Micros", percentileMicros(all, 0.50));
+			stats.put("p99Micros", percentileMicros(all, 0.99));
+			stats.put("p999Micros", percentileMicros(all, 0.999));
+			stats.put("maxMicros", all.length == 0 ? 0 : all[all.length - 1] / 1000);
+			report.put(op.name().toLowerCase(), stats);
+		}
+		report.put("totalOpsPerSecond", Math.round(totalOps / seconds));
+		return report;
+	}
+
+	private static long percentileMicros(long[] sorted, double p) {
+		if (sorted.length == 0) return 0;
+		int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+		return sorted[Math.max(0, index)] / 1000;
+	}
+
+	/**
+	 * Collects seat legs sold twice into doubleBooked and returns, per schedule, how far the
+	 * database and in-memory seat counters are from the reservations (occupied seats minus
+	 * what the counter claims; 0 is exact).
+	 */
+	private Map<Long, Map<String, Integer>> checkSeats(List<Trip> trips, List<String> doubleBooked) {
+		Map<Long, Map<Integer, Long>> sold = new HashMap<>();
+		for (Object[] row : reservationRepo.findActiveSeatClaims()) {
+			Long scheduleId = (Long) row[0];
+			int seat = ((Number) row[2]).intValue();
+			long legs = SeatInventoryService.legMask((Integer) row[3], (Integer) row[4]);
+			Map<Integer, Long> seats = sold.computeIfAbsent(scheduleId, id -> new HashMap<>());
+			long before = seats.getOrDefault(seat, 0L);
+			if ((before & legs) != 0) {
+				doubleBooked.add("schedule " + scheduleId + " seat " + seat);
+			}
+			seats.put(seat, before | legs);
+		}
+
+		Map<Long, Map<String, Integer>> drift = new LinkedHashMap<>();
+		for (Trip trip : trips) {
+			int occupied = sold.getOrDefault(trip.scheduleId, Map.of()).size();
+			Schedule schedule = scheduleRepo.findById(trip.scheduleId).orElseThrow();
+			Map<String, Integer> counters = new LinkedHashMap<>();
+			counters.put("occupied", occupied);
+			counters.put("availableSeats", occupied - (SEATS - schedule.getAvailableSeats()));
+			counters.put("inventory", occupied - seatInventory.takenCount(trip.scheduleId, SEATS));
+			drift.put(trip.scheduleId, counters);
+		}
+		return drift;
+	}
+}
@@ -0,0 +1,112 @@
+package com.Transpo.transpo.repository;
+
+import com.Transpo.transpo.dto.ReservationDTO;
+import com.Transpo.transpo.mapper.ReservationMapper;
+import com.Transpo.transpo.model.Bus;
+import com.Transpo.transpo.model.BusStop;
+import com.Transpo.transpo.model.Reservation;
+import com.Transpo.transpo.model.Route;
+import com.Transpo.transpo.model.Schedule;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Driver and conductor dashboards must stay at a constant number of SQL statements
+ * however many schedules and reservations the bus has.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class BusReservationQueriesTest {
+
+	@Autowired
+	private EntityManager em;
+
+	@Autowired
+	private EntityManagerFactory emf;
+
+	@Autowired
+	private ReservationRepository reservationRepo;
+
+	@Autowired
+	private ScheduleRepository scheduleRepo;
+
+	private Long busId;
+	private Statistics stats;
+
+	@BeforeEach
+	void setUp() {
+		Bus bus = new Bus("NB-1234", "Express", 40);
+		em.persist(bus);
+		for (int i = 0; i < 3; i++) {
+			Route route = new Route("Colombo", "Kandy " + i);
+			em.persist(route);
+			BusStop pickup = new BusStop("Stop A" + i, 6.9, 79.8, 1, route);
+			BusStop drop = new BusStop("Stop B" + i, 7.2, 80.6, 2, route);
+			em.persist(pickup);
+			em.persist(drop);
+			Schedule schedule = new Schedule(bus, route, LocalDateTime.now().plusDays(i), 500, 40);
+			em.persist(schedule);
+			for (int seat = 1; seat <= 4; seat++) {
+				Reservation r = new Reservation(schedule, "Passenger " + seat, "p" + seat + "@mail.com", seat);
+				r.setPickupStop(pickup);
+				r.setDropStop(drop);
+				em.persist(r);
+			}
+		}
+		busId = bus.getId();
+		em.flush();
+		em.clear();
+
+		stats = emf.unwrap(SessionFactory.class).getStatistics();
+		stats.clear();
+	}
+
+	@Test
+	void reservationsOfBusLoadInOneStatement() {
+		List<ReservationDTO> dtos = reservationRepo.findByBusIdWithDetails(busId).stream()
+				.map(ReservationMapper::toDto)
+				.toList();
+
+		assertEquals(12, dtos.size());
+		assertEquals(1, stats.getPrepareStatementCount());
+	}
+
+	@Test
+	void reservationSummariesOfBusLoadInOneStatement() {
+		assertEquals(12, reservationRepo.findSummariesByBusId(busId).size());
+		assertEquals(1, stats.getPrepareStatementCount());
+	}
+
+	@Test
+	void routesOfBusLoadInOneStatement() {
+		assertEquals(3, scheduleRepo.findRoutesByBusId(busId).size());
+		assertEquals(1, stats.getPrepareStatementCount());
+	}
+
+	@Test
+	void passengerCountsPerStopLoadInOneStatement() {
+		List<Object[]> rows = reservationRepo.countByStopPairs(busId, "Colombo", "Kandy 1");
+		assertEquals(1, rows.size());
+		assertEquals(4L, ((Number) rows.get(0)[2]).longValue());
+		assertEquals(1, stats.getPrepareStatementCount());
+	}
+
+	@Test
+	void passengersOfOneStopLoadInOneStatement() {
+		Long pickupId = (Long) reservationRepo.countByStopPairs(busId, "Colombo", "Kandy 2").get(0)[0];
+		stats.clear();
+		assertEquals(4, reservationRepo.findStopPassengers(busId, "Colombo", "Kandy 2", pickupId).size());
+		assertEquals(4, reservationRepo.findStopPassengers(busId, "Colombo", "Kandy 0", null).size());
+		assertEquals(2, stats.getPrepareStatementCount());
+	}
+}
@@ -0,0 +1,96 @@
+package com.Transpo.transpo.service;
+
+import com.Transpo.transpo.exception.BadRequestException;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookingProfilerTest {
+
+	private static void book(BookingProfiler profiler, long scheduleId, BookingProfiler.Phase phase, long sleepMillis) throws InterruptedException {
+		BookingProfiler.Booking booking = profiler.booking(scheduleId, 7);
+		booking.phase(phase);
+		Thread.sleep(sleepMillis);
+		booking.ok();
+		booking.end();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void ranksSchedulesByBookingTime() throws Exception {
+		BookingProfiler profiler = new BookingProfiler(100);
+		book(profiler, 1, BookingProfiler.Phase.SCHEDULE_LOAD, 1);
+		// A booking of a held seat and a failed one, neither starting with SCHEDULE_LOAD
+		book(profiler, 2, BookingProfiler.Phase.INSERT, 20);
+		BookingProfiler.Booking failed = profiler.booking(2L, 8);
+		failed.phase(BookingProfiler.Phase.SEAT_CLAIM);
+		failed.conflict();
+		failed.end();
+
+		Map<String, Object> hotspots = profiler.hotspots(10);
+		List<Map<String, Object>> schedules = (List<Map<String, Object>>) hotspots.get("schedules");
+		assertEquals(2, schedules.size());
+		assertEquals(2L, schedules.get(0).get("scheduleId"));
+		assertEquals(2L, schedules.get(0).get("bookings"));
+		assertEquals(Map.of("ok", 1L, "conflict", 1L, "error", 0L), schedules.get(0).get("outcomes"));
+		assertTrue(((Map<String, Object>) schedules.get(0).get("phases")).containsKey("insert"));
+		assertTrue(((Map<String, Object>) schedules.get(0).get("phases")).containsKey("seat_claim"));
+
+		assertEquals(1, ((List<?>) profiler.hotspots(1).get("schedules")).size());
+		assertThrows(BadRequestException.class, () -> profiler.hotspots(0));
+
+		profiler.reset();
+		assertEquals(0, profiler.hotspots(10).get("trackedSchedules"));
+	}
+
+	@Test
+	void stopsTrackingNewSchedulesWhenFull() throws Exception {
+		BookingProfiler profiler = new BookingProfiler(1);
+		book(profiler, 1, BookingProfiler.Phase.INSERT, 0);
+		book(profiler, 2, BookingProfiler.Phase.INSERT, 0);
+
+		assertEquals(1, profiler.hotspots(10).get("trackedSchedules"));
+		assertEquals(1L, profiler.hotspots(10).get("untrackedBookings"));
+	}
+
+	@Test
+	void recordsPhaseEventsWhenEnabled() throws Exception {
+		BookingProfiler profiler = new BookingProfiler(100);
+		Path file = Files.createTempFile("booking", ".jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable("transpo.BookingPhase").withoutThreshold();
+			recording.start();
+			BookingProfiler.Booking booking = profiler.booking(42L, 7);
+			booking.phase(BookingProfiler.Phase.RULE_VALIDATION);
+			booking.phase(BookingProfiler.Phase.SEAT_CLAIM);
+			// Ends without ok(): the phase it stopped in is recorded as an error
+			booking.end();
+			recording.stop();
+			recording.dump(file);
+		}
+		List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+		Files.delete(file);
+
+		List<RecordedEvent> phases = events.stream()
+				.filter(e -> e.getEventType().getName().equals("transpo.BookingPhase"))
+				.toList();
+		assertEquals(2, phases.size());
+		RecordedEvent event = phases.get(0);
+		assertEquals(42L, event.getLong("scheduleId"));
+		assertEquals(7, event.getInt("seatNumber"));
+		assertEquals("RULE_VALIDATION", event.getString("phase"));
+		assertEquals("OK", event.getString("outcome"));
+		assertEquals("SEAT_CLAIM", phases.get(1).getString("phase"));
+		assertEquals("ERROR", phases.get(1).getString("outcome"));
+	}
+}
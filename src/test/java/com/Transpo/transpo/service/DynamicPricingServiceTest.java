@@ -0,0 +1,43 @@
+package com.Transpo.transpo.service;
+
+import com.Transpo.transpo.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DynamicPricingServiceTest {
+
+	@Test
+	void interpolatesBetweenPointsAndClampsAtEnds() {
+		DynamicPricingService.Curve curve = DynamicPricingService.Curve.parse("0:1.0, 0.5:1.0, 1:1.5");
+
+		assertEquals(1.0, curve.at(-1), 1e-9);
+		assertEquals(1.0, curve.at(0.25), 1e-9);
+		assertEquals(1.0, curve.at(0.5), 1e-9);
+		assertEquals(1.25, curve.at(0.75), 1e-9);
+		assertEquals(1.5, curve.at(1), 1e-9);
+		assertEquals(1.5, curve.at(2), 1e-9);
+	}
+
+	@Test
+	void coldSchedulesArePricedFromTheirAvailableSeats() {
+		// No reservation repository: loading an inventory would fail
+		SeatInventoryService inventory = new SeatInventoryService(null);
+		DynamicPricingService pricing = new DynamicPricingService(inventory, null, null, "0:1,1:2", "0:1");
+
+		DynamicPricingService.Quote quote = pricing.quote(7L, 40, 30, null, 100);
+
+		assertEquals(0.25, quote.loadFactor(), 1e-9);
+		assertEquals(125.0, quote.fare(), 1e-9);
+		assertEquals(-1, inventory.loadedTakenCount(7L));
+	}
+
+	@Test
+	void rejectsInvalidCurves() {
+		assertThrows(BadRequestException.class, () -> DynamicPricingService.Curve.parse(""));
+		assertThrows(BadRequestException.class, () -> DynamicPricingService.Curve.parse("0:1,abc"));
+		assertThrows(BadRequestException.class, () -> DynamicPricingService.Curve.parse("0:1,0:1.2"));
+		assertThrows(BadRequestException.class, () -> DynamicPricingService.Curve.parse("0:0"));
+	}
+}
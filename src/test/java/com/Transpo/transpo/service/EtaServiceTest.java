@@ -0,0 +1,114 @@
+package com.Transpo.transpo.service;
+
+import com.Transpo.transpo.model.Bus;
+import com.Transpo.transpo.model.BusStop;
+import com.Transpo.transpo.model.Route;
+import com.Transpo.transpo.model.Schedule;
+import com.Transpo.transpo.repository.BusStopRepository;
+import com.Transpo.transpo.repository.ScheduleRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+class EtaServiceTest {
+
+	@Autowired
+	private EntityManager em;
+
+	@Autowired
+	private ScheduleRepository scheduleRepo;
+
+	@Autowired
+	private BusStopRepository busStopRepo;
+
+	private static BusStop stop(long id, double lat, double lng, int sequence) {
+		BusStop stop = new BusStop("Stop " + id, lat, lng, sequence, null);
+		stop.setId(id);
+		return stop;
+	}
+
+	private final EtaService.RouteLine line = new EtaService.RouteLine(List.of(
+			stop(1, 7.00, 80.00, 1),
+			stop(2, 7.10, 80.00, 2),
+			stop(3, 7.20, 80.00, 3),
+			stop(4, 7.30, 80.00, 4)), 30);
+
+	@Test
+	void projectsForwardFromTheLastSegment() {
+		assertEquals(1, line.project(7.15, 80.001, 0).segment());
+		// Already past segment 1: a fix near stop 1 snaps to the closest later segment
+		assertEquals(2, line.project(7.05, 80.0, 2).segment());
+	}
+
+	@Test
+	void predictsStopsAheadFromSegmentSpeeds() {
+		double segmentKm = SpatialIndex.distanceKm(7.0, 80.0, 7.1, 80.0);
+		EtaService.ScheduleEta planned = line.predict(9L, 5L, false, 0, 0, 0L);
+		assertEquals(0L, planned.stops().get(0).arrivalAt());
+		assertEquals(Math.round(3 * segmentKm / 30 * 3_600_000), planned.stops().get(3).arrivalAt(), 1);
+
+		// Halfway along segment 1; segment 2 observed at twice the speed
+		line.observe(2, 2, 60, 1.0);
+		EtaService.ScheduleEta live = line.predict(9L, 5L, true, 1, 1.5 * segmentKm, 1000L);
+		assertNull(live.stops().get(0).arrivalAt());
+		assertNull(live.stops().get(1).arrivalAt());
+		long toStop3 = live.stops().get(2).arrivalAt() - 1000L;
+		long toStop4 = live.stops().get(3).arrivalAt() - 1000L;
+		assertEquals(Math.round(0.5 * segmentKm / 30 * 3_600_000), toStop3, 1);
+		assertEquals(toStop3 + Math.round(segmentKm / 60 * 3_600_000), toStop4, 1);
+		assertTrue(live.live());
+	}
+
+	@Test
+	void projectionStartsWithinTheRoute() {
+		// A segment from a longer version of the route
+		assertEquals(2, line.project(7.30, 80.0, 7).segment());
+	}
+
+	@Test
+	void livePredictionsFollowRouteChangesAndExpire() {
+		Route route = new Route("Kandy", "Matale");
+		em.persist(route);
+		BusStop first = new BusStop("A", 7.00, 80.00, 1, route);
+		BusStop second = new BusStop("B", 7.10, 80.00, 2, route);
+		BusStop third = new BusStop("C", 7.20, 80.00, 3, route);
+		em.persist(first);
+		em.persist(second);
+		em.persist(third);
+		Bus bus = new Bus("NB-ETA", "Eta", 40);
+		em.persist(bus);
+		Schedule schedule = new Schedule(bus, route, LocalDateTime.now().minusHours(1), 300, 40);
+		em.persist(schedule);
+		em.flush();
+
+		EtaService eta = new EtaService(scheduleRepo, busStopRepo, 30, 0.3, 8, 60, 300);
+		long now = System.currentTimeMillis();
+		eta.onPing(bus.getId(), 7.15, 80.0, now - 60_000);
+		assertTrue(eta.etaForSchedule(schedule.getId()).live());
+
+		// The route loses its last stop while the bus is on the last segment
+		em.remove(third);
+		em.flush();
+		eta.forgetRoute(route.getId());
+		assertFalse(eta.etaForSchedule(schedule.getId()).live());
+		eta.onPing(bus.getId(), 7.05, 80.0, now - 30_000);
+		EtaService.ScheduleEta after = eta.etaForSchedule(schedule.getId());
+		assertTrue(after.live());
+		assertEquals(2, after.stops().size());
+
+		// No pings for longer than the TTL: back to the planned prediction
+		eta.onPing(bus.getId(), 7.08, 80.0, now - 600_000);
+		eta.expireLive();
+		assertFalse(eta.etaForSchedule(schedule.getId()).live());
+	}
+}
@@ -0,0 +1,47 @@
+package com.Transpo.transpo.service;
+
+import com.Transpo.transpo.model.BusStop;
+import com.Transpo.transpo.model.TicketPrice;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FareMatrixCacheTest {
+
+	private static BusStop stop(long id) {
+		BusStop stop = new BusStop("Stop " + id, null, null, (int) id, null);
+		stop.setId(id);
+		return stop;
+	}
+
+	private static TicketPrice price(long from, long to, String amount) {
+		TicketPrice tp = new TicketPrice();
+		tp.setFromStopId(from);
+		tp.setToStopId(to);
+		tp.setPrice(new BigDecimal(amount));
+		return tp;
+	}
+
+	@Test
+	void pricesAreSymmetricCents() {
+		FareMatrixCache.Matrix matrix = new FareMatrixCache.Matrix(
+				List.of(stop(10), stop(20), stop(30)),
+				List.of(price(10, 30, "250.50"), price(30, 20, "80")));
+
+		assertEquals(25050, matrix.cents(10L, 30L));
+		assertEquals(25050, matrix.cents(30L, 10L));
+		assertEquals(8000, matrix.cents(20L, 30L));
+		assertEquals(FareMatrixCache.NO_PRICE, matrix.cents(10L, 20L));
+		// Stops of another route are never priced
+		assertEquals(FareMatrixCache.NO_PRICE, matrix.cents(10L, 99L));
+	}
+
+	@Test
+	void roundsToWholeCents() {
+		assertEquals(1235, FareMatrixCache.toCents(new BigDecimal("12.345")));
+		assertEquals(new BigDecimal("12.35"), BigDecimal.valueOf(1235, 2));
+	}
+}
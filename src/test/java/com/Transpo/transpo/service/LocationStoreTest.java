@@ -0,0 +1,46 @@
+package com.Transpo.transpo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LocationStoreTest {
+
+	@Test
+	void keepsTheLastFixesOldestFirst() {
+		LocationStore store = new LocationStore(null, new SpatialIndex(null, 0.01, 500, 120), 3, 60);
+		assertNull(store.latest(1L));
+
+		for (int i = 1; i <= 5; i++) {
+			store.append(1L, i, -i, 1000L * i);
+		}
+
+		assertEquals(5.0, store.latest(1L).getLat());
+		List<LocationStore.Fix> trail = store.trail(1L, 10);
+		assertEquals(3, trail.size());
+		assertEquals(3.0, trail.get(0).getLat());
+		assertEquals(-5.0, trail.get(2).getLng());
+		assertEquals(5000L, trail.get(2).getTimestamp());
+	}
+
+	@Test
+	void readersSeeConsistentFixesWhileWriting() throws Exception {
+		LocationStore store = new LocationStore(null, new SpatialIndex(null, 0.01, 500, 120), 8, 60);
+		Thread writer = new Thread(() -> {
+			for (int i = 0; i < 200_000; i++) {
+				store.append(7L, i, i, i);
+			}
+		});
+		writer.start();
+		while (writer.isAlive()) {
+			for (LocationStore.Fix fix : store.trail(7L, 8)) {
+				assertEquals(fix.getLat(), fix.getLng());
+				assertEquals((long) fix.getLat(), fix.getTimestamp());
+			}
+		}
+		writer.join();
+	}
+}
@@ -0,0 +1,174 @@
+package com.Transpo.transpo.service;
+
+import com.Transpo.transpo.model.Bus;
+import com.Transpo.transpo.model.BusStop;
+import com.Transpo.transpo.model.Reservation;
+import com.Transpo.transpo.model.Route;
+import com.Transpo.transpo.model.Schedule;
+import com.Transpo.transpo.repository.ReservationBatchRepository;
+import com.Transpo.transpo.repository.ReservationRepository;
+import com.Transpo.transpo.repository.ScheduleRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs outside a test transaction so the rebooking commits and its after-commit work runs.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RebookingServiceTest {
+
+	@Autowired
+	private EntityManager em;
+
+	@Autowired
+	private ReservationRepository reservationRepo;
+
+	@Autowired
+	private ScheduleRepository scheduleRepo;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@AfterEach
+	void cleanUp() {
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		for (String table : List.of("reservations", "schedules", "bus_stops", "buses", "routes")) {
+			jdbc.update("DELETE FROM " + table);
+		}
+	}
+
+	private Reservation reserve(Schedule schedule, int seat, BusStop pickup, BusStop drop) {
+		Reservation r = new Reservation(schedule, "Passenger " + seat, "p" + seat + "@mail.com", seat);
+		r.setPickupStop(pickup);
+		r.setDropStop(drop);
+		em.persist(r);
+		return r;
+	}
+
+	@Test
+	void movesReservationsKeepingSeatsWhereFreeAndFillingTheRestGreedily() {
+		Route route = new Route("Colombo", "Kandy");
+		BusStop a = new BusStop("A", 6.9, 79.8, 1, route);
+		BusStop b = new BusStop("B", 7.0, 80.0, 2, route);
+		BusStop c = new BusStop("C", 7.2, 80.6, 3, route);
+		Bus brokenBus = new Bus("NB-1", "Broken", 4);
+		Bus spareBus = new Bus("NB-2", "Spare", 3);
+		Schedule broken = new Schedule(brokenBus, route, LocalDateTime.now().plusHours(2), 500, 0);
+		Schedule spare = new Schedule(spareBus, route, LocalDateTime.now().plusHours(3), 500, 2);
+		Reservation[] saved = new Reservation[2];
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			em.persist(route);
+			em.persist(a);
+			em.persist(b);
+			em.persist(c);
+			em.persist(brokenBus);
+			em.persist(spareBus);
+			em.persist(broken);
+			em.persist(spare);
+			saved[0] = reserve(broken, 1, null, null);
+			reserve(broken, 2, null, null);
+			reserve(broken, 3, a, b);
+			saved[1] = reserve(broken, 4, b, c);
+			reserve(spare, 1, null, null);
+		});
+		Reservation fullSeat1 = saved[0];
+		Reservation secondLeg = saved[1];
+
+		SeatInventoryService inventory = new SeatInventoryService(reservationRepo);
+		SeatGridCache grid = new SeatGridCache(reservationRepo, 10);
+		RebookingService service = new RebookingService(scheduleRepo, reservationRepo,
+				new ReservationBatchRepository(new JdbcTemplate(dataSource)), inventory, grid,
+				new SeatStreamService(grid, 8, 1000, 1, 1, 5000), transactionManager, 2, 24, Runnable::run);
+		AvailableSeatsUpdater availableSeats = new AvailableSeatsUpdater(scheduleRepo, inventory, transactionManager);
+		assertEquals(4, inventory.takenCount(broken.getId(), 4));
+
+		RebookingService.RebookingJob job = service.start(broken.getId(), null, null, null, spare.getId());
+
+		assertEquals(RebookingService.Status.COMPLETED, job.getStatus());
+		assertEquals(4, job.getTotal());
+		assertEquals(3, job.getMoved());
+		// Seat 1 is taken on the spare bus for the whole trip, and no other seat is free end to end
+		assertEquals(List.of(fullSeat1.getId()), job.getUnplacedReservationIds());
+
+		List<Integer> spareSeats = reservationRepo.findByScheduleId(spare.getId()).stream()
+				.map(Reservation::getSeatNumber).sorted().toList();
+		assertEquals(List.of(1, 2, 3, 3), spareSeats);
+		// B -> C shares seat 3 with A -> B
+		assertEquals(3, reservationRepo.findById(secondLeg.getId()).orElseThrow().getSeatNumber());
+		assertEquals(3, inventory.takenCount(spare.getId(), 3));
+
+		// The moves committed, so their source seats were released; the unplaced one stays
+		assertEquals(1, inventory.takenCount(broken.getId(), 4));
+		assertTrue(inventory.isTaken(broken.getId(), 4, 1));
+		for (int seat = 2; seat <= 4; seat++) {
+			assertFalse(inventory.isTaken(broken.getId(), 4, seat), "seat " + seat);
+		}
+
+		availableSeats.flush();
+		assertEquals(0, scheduleRepo.findById(spare.getId()).orElseThrow().getAvailableSeats());
+		assertEquals(3, scheduleRepo.findById(broken.getId()).orElseThrow().getAvailableSeats());
+	}
+
+	@Test
+	void seatsClaimedBeforeAFailureAreReleased() {
+		Route route = new Route("Colombo", "Galle");
+		Bus brokenBus = new Bus("NB-3", "Broken", 4);
+		Bus spareBus = new Bus("NB-4", "Spare", 4);
+		Schedule broken = new Schedule(brokenBus, route, LocalDateTime.now().plusHours(2), 500, 1);
+		Schedule spare = new Schedule(spareBus, route, LocalDateTime.now().plusHours(3), 500, 4);
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			em.persist(route);
+			em.persist(brokenBus);
+			em.persist(spareBus);
+			em.persist(broken);
+			em.persist(spare);
+			for (int seat = 1; seat <= 3; seat++) {
+				reserve(broken, seat, null, null);
+			}
+		});
+
+		// The third claim fails while seats are still being assigned
+		AtomicInteger claims = new AtomicInteger();
+		SeatInventoryService inventory = new SeatInventoryService(reservationRepo) {
+			@Override
+			public Claim claimLegs(Long scheduleId, int totalSeats, int seatNumber, long legs) {
+				if (scheduleId.equals(spare.getId()) && claims.incrementAndGet() == 3) {
+					throw new IllegalStateException("inventory unavailable");
+				}
+				return super.claimLegs(scheduleId, totalSeats, seatNumber, legs);
+			}
+		};
+		SeatGridCache grid = new SeatGridCache(reservationRepo, 10);
+		RebookingService service = new RebookingService(scheduleRepo, reservationRepo,
+				new ReservationBatchRepository(new JdbcTemplate(dataSource)), inventory, grid,
+				new SeatStreamService(grid, 8, 1000, 1, 1, 5000), transactionManager, 2, 24, Runnable::run);
+
+		RebookingService.RebookingJob job = service.start(broken.getId(), null, null, null, spare.getId());
+
+		assertEquals(RebookingService.Status.FAILED, job.getStatus());
+		assertEquals(0, job.getMoved());
+		assertEquals(0, inventory.takenCount(spare.getId(), 4));
+		assertEquals(3, reservationRepo.findByScheduleId(broken.getId()).size());
+	}
+}
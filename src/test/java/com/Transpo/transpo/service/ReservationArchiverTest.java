@@ -0,0 +1,56 @@
+package com.Transpo.transpo.service;
+
+import com.Transpo.transpo.model.ReservationArchiveEvent;
+import com.Transpo.transpo.model.ReservationHistory;
+import com.Transpo.transpo.repository.ReservationArchiveOutboxRepository;
+import com.Transpo.transpo.repository.ReservationHistoryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+class ReservationArchiverTest {
+
+	@Autowired
+	private ReservationArchiveOutboxRepository outboxRepo;
+
+	@Autowired
+	private ReservationHistoryRepository historyRepo;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private ReservationArchiveEvent event(int seat) {
+		ReservationArchiveEvent e = new ReservationArchiveEvent();
+		e.setScheduleId(1L);
+		e.setSeatNumber(seat);
+		e.setStatus("CANCELLED");
+		e.setUsername("alice");
+		e.setCancelledAt(LocalDateTime.now());
+		return e;
+	}
+
+	@Test
+	void replaysLeftoverOutboxRowsIntoHistoryInBatches() {
+		for (int seat = 1; seat <= 5; seat++) {
+			outboxRepo.save(event(seat));
+		}
+		outboxRepo.flush();
+
+		ReservationArchiver archiver = new ReservationArchiver(outboxRepo, transactionManager, 2, 1, 10_000, 10, 30);
+		archiver.replay();
+
+		assertEquals(0, outboxRepo.count());
+		List<ReservationHistory> history = historyRepo.findByUsername("alice");
+		assertEquals(List.of(1, 2, 3, 4, 5), history.stream().map(ReservationHistory::getSeatNumber).sorted().toList());
+		assertEquals(3L, archiver.stats().get("batches"));
+		// Nothing signalled since the outbox was drained: the tick does not query
+		assertEquals(0, archiver.drain());
+	}
+}
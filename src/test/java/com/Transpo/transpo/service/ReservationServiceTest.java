@@ -0,0 +1,124 @@
+package com.Transpo.transpo.service;
+
+import com.Transpo.transpo.dto.BatchBookingRequestDTO;
+import com.Transpo.transpo.exception.BadRequestException;
+import com.Transpo.transpo.exception.ConflictException;
+import com.Transpo.transpo.model.Bus;
+import com.Transpo.transpo.model.BusStop;
+import com.Transpo.transpo.model.Reservation;
+import com.Transpo.transpo.model.Route;
+import com.Transpo.transpo.model.Schedule;
+import com.Transpo.transpo.repository.BusRepository;
+import com.Transpo.transpo.repository.BusStopRepository;
+import com.Transpo.transpo.repository.ReservationRepository;
+import com.Transpo.transpo.repository.RouteRepository;
+import com.Transpo.transpo.repository.ScheduleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:reservations;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.show-sql=false",
+		"logging.level.root=WARN"
+})
+@Transactional
+@WithMockUser(username = "alice", roles = "PASSENGER")
+class ReservationServiceTest {
+
+	@Autowired
+	private ReservationService reservationService;
+	@Autowired
+	private SeatInventoryService seatInventory;
+	@Autowired
+	private ReservationRepository reservationRepo;
+	@Autowired
+	private BusRepository busRepo;
+	@Autowired
+	private RouteRepository routeRepo;
+	@Autowired
+	private BusStopRepository busStopRepo;
+	@Autowired
+	private ScheduleRepository scheduleRepo;
+
+	private Schedule schedule;
+	private BusStop first;
+	private BusStop second;
+	private BusStop third;
+
+	@BeforeEach
+	void createSchedule() {
+		Route route = routeRepo.save(new Route("Colombo", "Kandy"));
+		first = busStopRepo.save(new BusStop("Colombo", 6.93, 79.85, 1, route));
+		second = busStopRepo.save(new BusStop("Kegalle", 7.25, 80.35, 2, route));
+		third = busStopRepo.save(new BusStop("Kandy", 7.29, 80.63, 3, route));
+		Bus bus = busRepo.save(new Bus("NB-" + System.nanoTime(), "Service", 6));
+		schedule = scheduleRepo.save(new Schedule(bus, route, LocalDateTime.now().plusDays(1), 800, 6));
+	}
+
+	private static BatchBookingRequestDTO.Seat seat(int number, BusStop pickup, BusStop drop) {
+		BatchBookingRequestDTO.Seat seat = new BatchBookingRequestDTO.Seat();
+		seat.seatNumber = number;
+		seat.passengerName = "Passenger " + number;
+		seat.pickupStopId = pickup != null ? pickup.getId() : null;
+		seat.dropStopId = drop != null ? drop.getId() : null;
+		return seat;
+	}
+
+	@Test
+	void booksEverySeatOfABatch() {
+		List<Reservation> booked = reservationService.bookSeats(schedule.getId(), "group@mail.com",
+				List.of(seat(1, null, null), seat(2, first, second), seat(3, second, third)));
+
+		assertEquals(3, booked.size());
+		assertEquals(3, reservationRepo.findByScheduleId(schedule.getId()).size());
+		assertEquals("group@mail.com", booked.get(0).getPassengerEmail());
+		assertTrue(seatInventory.isTaken(schedule.getId(), 6, 1));
+		assertFalse(seatInventory.isFree(schedule.getId(), 6, 2, SeatInventoryService.legMask(first, second)));
+		assertTrue(seatInventory.isFree(schedule.getId(), 6, 2, SeatInventoryService.legMask(second, third)));
+	}
+
+	@Test
+	void booksNothingWhenOneSeatIsTaken() {
+		reservationService.bookSeat(schedule.getId(), "Bob", "bob@mail.com", 3, null, null);
+
+		assertThrows(ConflictException.class, () -> reservationService.bookSeats(schedule.getId(), "group@mail.com",
+				List.of(seat(1, null, null), seat(2, null, null), seat(3, null, null), seat(4, null, null))));
+
+		assertEquals(1, reservationRepo.findByScheduleId(schedule.getId()).size());
+		// Seats claimed before the conflict were given back, seats after it were never claimed
+		for (int s : new int[] {1, 2, 4}) {
+			assertFalse(seatInventory.isTaken(schedule.getId(), 6, s), "seat " + s);
+		}
+		assertTrue(seatInventory.isTaken(schedule.getId(), 6, 3));
+	}
+
+	@Test
+	void invalidBatchesClaimNothing() {
+		assertThrows(BadRequestException.class, () -> reservationService.bookSeats(schedule.getId(), "group@mail.com",
+				List.of(seat(1, null, null), seat(1, null, null))));
+		assertThrows(BadRequestException.class, () -> reservationService.bookSeats(schedule.getId(), "group@mail.com",
+				List.of(seat(1, null, null), seat(7, null, null))));
+		assertThrows(BadRequestException.class, () -> reservationService.bookSeats(schedule.getId(), "group@mail.com",
+				List.of(seat(1, null, null), seat(2, third, first))));
+
+		assertEquals(0, seatInventory.takenCount(schedule.getId(), 6));
+		assertTrue(reservationRepo.findByScheduleId(schedule.getId()).isEmpty());
+	}
+}
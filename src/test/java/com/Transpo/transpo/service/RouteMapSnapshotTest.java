@@ -0,0 +1,61 @@
+package com.Transpo.transpo.service;
+
+import com.Transpo.transpo.model.BusStop;
+import com.Transpo.transpo.model.Route;
+import com.Transpo.transpo.repository.BusStopRepository;
+import com.Transpo.transpo.repository.RouteRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+@DataJpaTest
+class RouteMapSnapshotTest {
+
+	@Autowired
+	private EntityManager em;
+
+	@Autowired
+	private RouteRepository routeRepo;
+
+	@Autowired
+	private BusStopRepository busStopRepo;
+
+	@Test
+	void buildsOrderedStopsAndServesTheSameBytesUntilInvalidated() throws Exception {
+		Route route = new Route("Colombo", "Kandy");
+		em.persist(route);
+		em.persist(new BusStop("Kegalle", 7.25, 80.35, 3, route));
+		em.persist(new BusStop("Unsequenced", 7.0, 80.0, null, route));
+		em.persist(new BusStop("Colombo Fort", 6.93, 79.85, 1, route));
+		em.persist(new BusStop("Kadawatha", 7.0, 79.95, 2, route));
+		em.flush();
+
+		RouteMapSnapshot snapshots = new RouteMapSnapshot(routeRepo, busStopRepo, new ObjectMapper());
+		RouteMapSnapshot.Snapshot first = snapshots.get();
+
+		List<String> names = first.getRoutes().get(0).getStops().stream().map(s -> s.getName()).toList();
+		assertEquals(List.of("Colombo Fort", "Kadawatha", "Kegalle", "Unsequenced"), names);
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(first.getGzip()))) {
+			assertArrayEquals(first.getJson(), in.readAllBytes());
+		}
+		assertSame(first, snapshots.get());
+
+		em.persist(new BusStop("Kandy", 7.29, 80.63, 4, route));
+		em.flush();
+		snapshots.invalidate();
+		RouteMapSnapshot.Snapshot second = snapshots.get();
+		assertEquals(5, second.getRoutes().get(0).getStops().size());
+		assertNotEquals(first.getEtag(), second.getEtag());
+	}
+}
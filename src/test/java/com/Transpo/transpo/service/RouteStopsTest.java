@@ -0,0 +1,186 @@
+package com.Transpo.transpo.service;
+
+import com.Transpo.transpo.Role;
+import com.Transpo.transpo.dto.RouteDTO;
+import com.Transpo.transpo.exception.ConflictException;
+import com.Transpo.transpo.mapper.RouteMapper;
+import com.Transpo.transpo.model.Bus;
+import com.Transpo.transpo.model.BusStop;
+import com.Transpo.transpo.model.DriverAssignment;
+import com.Transpo.transpo.model.Reservation;
+import com.Transpo.transpo.model.Route;
+import com.Transpo.transpo.model.Schedule;
+import com.Transpo.transpo.model.User;
+import com.Transpo.transpo.repository.BusRepository;
+import com.Transpo.transpo.repository.DriverAssignmentRepository;
+import com.Transpo.transpo.repository.ReservationRepository;
+import com.Transpo.transpo.repository.RouteRepository;
+import com.Transpo.transpo.repository.ScheduleRepository;
+import com.Transpo.transpo.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Route stop edits keep the sequences that reservations derive their seat legs from.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:route-stops;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.show-sql=false",
+		"logging.level.root=WARN"
+})
+@Transactional
+class RouteStopsTest {
+
+	@Autowired
+	private RouteService routeService;
+	@Autowired
+	private DriverService driverService;
+	@Autowired
+	private RouteRepository routeRepo;
+	@Autowired
+	private BusRepository busRepo;
+	@Autowired
+	private ScheduleRepository scheduleRepo;
+	@Autowired
+	private ReservationRepository reservationRepo;
+	@Autowired
+	private UserRepository userRepo;
+	@Autowired
+	private DriverAssignmentRepository driverAssignmentRepo;
+	@Autowired
+	private EntityManager em;
+
+	private Route route;
+	private Schedule schedule;
+
+	@BeforeEach
+	void createRoute() {
+		route = new Route("Colombo", "Kandy");
+		route.addBusStop(new BusStop("Colombo", 6.93, 79.85, 1, route));
+		route.addBusStop(new BusStop("Kegalle", null, null, 2, route));
+		route.addBusStop(new BusStop("Kandy", null, null, 3, route));
+		route = routeRepo.save(route);
+		Bus bus = busRepo.save(new Bus("NB-" + System.nanoTime(), "Stops", 10));
+		schedule = scheduleRepo.save(new Schedule(bus, route, LocalDateTime.now().plusDays(1), 500, 10));
+		em.flush();
+	}
+
+	private BusStop stop(String name) {
+		return route.getBusStops().stream().filter(s -> s.getName().equals(name)).findFirst().orElseThrow();
+	}
+
+	private void reserve(BusStop pickup, BusStop drop) {
+		Reservation r = new Reservation(schedule, "Passenger", "p@mail.com", 1);
+		r.setPickupStop(pickup);
+		r.setDropStop(drop);
+		reservationRepo.save(r);
+	}
+
+	private Route update(String... names) {
+		RouteDTO dto = new RouteDTO();
+		dto.setOrigin("Colombo");
+		dto.setDestination("Kandy");
+		dto.setStops(List.of(names));
+		Route saved = routeService.update(route.getId(), RouteMapper.toEntity(dto));
+		em.flush();
+		return saved;
+	}
+
+	private Map<String, Integer> sequences(Route r) {
+		return r.getBusStops().stream().collect(Collectors.toMap(BusStop::getName, BusStop::getSequence));
+	}
+
+	@Test
+	void renamesAStopInPlace() {
+		BusStop colombo = stop("Colombo");
+
+		Route saved = update("COLOMBO", "Kegalle", "Kandy");
+
+		assertEquals(List.of("COLOMBO", "Kegalle", "Kandy"), saved.getStopNames());
+		assertEquals(colombo.getId(), stop("COLOMBO").getId());
+		assertEquals(6.93, stop("COLOMBO").getLatitude());
+		assertEquals(1, stop("COLOMBO").getSequence());
+	}
+
+	@Test
+	void addedStopsFollowTheLastOneAndExistingStopsKeepTheirSequence() {
+		reserve(stop("Kegalle"), stop("Kandy"));
+
+		Route saved = update("Colombo", "Kegalle", "Kandy", "Peradeniya");
+
+		assertEquals(List.of("Colombo", "Kegalle", "Kandy", "Peradeniya"), saved.getStopNames());
+		assertEquals(Map.of("Colombo", 1, "Kegalle", 2, "Kandy", 3, "Peradeniya", 4), sequences(saved));
+	}
+
+	@Test
+	void removingAStopUsedByReservationsIsRefused() {
+		reserve(stop("Colombo"), stop("Kegalle"));
+
+		assertThrows(ConflictException.class, () -> update("Colombo", "Kandy"));
+	}
+
+	@Test
+	void removesUnusedUnplacedStops() {
+		Route saved = update("Colombo", "Kandy");
+
+		// The placed stop stays; Kandy keeps sequence 3 as the list only dropped a stop
+		assertEquals(List.of("Colombo", "Kandy"), saved.getStopNames());
+		assertEquals(Map.of("Colombo", 1, "Kandy", 3), sequences(saved));
+	}
+
+	@Test
+	void reorderRenumbersStopsWithoutReservations() {
+		Route saved = update("Kegalle", "Colombo", "Mawanella", "Kandy");
+
+		assertEquals(List.of("Kegalle", "Colombo", "Mawanella", "Kandy"), saved.getStopNames());
+		assertEquals(Map.of("Kegalle", 1, "Colombo", 2, "Mawanella", 3, "Kandy", 4), sequences(saved));
+	}
+
+	@Test
+	void reorderMovingAStopUsedByReservationsIsRefused() {
+		reserve(stop("Colombo"), stop("Kegalle"));
+
+		assertThrows(ConflictException.class, () -> update("Kegalle", "Colombo", "Kandy"));
+		// Inserting before a used stop moves it as well
+		assertThrows(ConflictException.class, () -> update("Colombo", "Mawanella", "Kegalle", "Kandy"));
+	}
+
+	@Test
+	@WithMockUser(username = "stops-driver", roles = "DRIVER")
+	void placingANamedStopKeepsItsSequence() {
+		User driver = userRepo.save(new User("stops-driver", "secret", Role.DRIVER));
+		driverAssignmentRepo.save(new DriverAssignment(driver, schedule.getBus()));
+		reserve(stop("Kegalle"), stop("Kandy"));
+
+		BusStop placed = new BusStop("kegalle", 7.25, 80.35, 1, null);
+		BusStop added = new BusStop("Mawanella", 7.25, 80.45, null, null);
+		driverService.addBusStopsToRoute(route.getId(), List.of(placed, added));
+		em.flush();
+
+		assertEquals(2, stop("Kegalle").getSequence());
+		assertEquals(7.25, stop("Kegalle").getLatitude());
+		assertEquals(4, stop("Mawanella").getSequence());
+
+		// A new stop may not take a sequence another stop has
+		BusStop clash = new BusStop("Utuwankanda", 7.2, 80.4, 3, null);
+		assertThrows(ConflictException.class, () -> driverService.addBusStopsToRoute(route.getId(), List.of(clash)));
+	}
+}
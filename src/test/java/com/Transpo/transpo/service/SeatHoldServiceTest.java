@@ -0,0 +1,129 @@
+package com.Transpo.transpo.service;
+
+import com.Transpo.transpo.exception.BadRequestException;
+import com.Transpo.transpo.exception.ConflictException;
+import com.Transpo.transpo.model.Bus;
+import com.Transpo.transpo.model.Route;
+import com.Transpo.transpo.model.Schedule;
+import com.Transpo.transpo.repository.ReservationRepository;
+import com.Transpo.transpo.repository.ScheduleRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+class SeatHoldServiceTest {
+
+	@Autowired
+	private EntityManager em;
+
+	@Autowired
+	private ReservationRepository reservationRepo;
+
+	@Autowired
+	private ScheduleRepository scheduleRepo;
+
+	private SeatInventoryService inventory;
+	private SeatGridCache grids;
+	private SeatHoldService holds;
+	private Schedule schedule;
+
+	@BeforeEach
+	void setUp() {
+		Route route = new Route("Colombo", "Galle");
+		em.persist(route);
+		Bus bus = new Bus("NB-2000", "Holds", 6);
+		em.persist(bus);
+		schedule = new Schedule(bus, route, LocalDateTime.now().plusDays(1), 400, 6);
+		em.persist(schedule);
+		em.flush();
+
+		inventory = new SeatInventoryService(reservationRepo);
+		grids = new SeatGridCache(reservationRepo, 10);
+		holds = new SeatHoldService(scheduleRepo, inventory, grids, new SeatStreamService(grids, 16, 60_000, 1, 1, 5000), 10, 30, 5);
+	}
+
+	private String status(int seat) {
+		return grids.grid(schedule.getId(), 6, SeatInventoryService.FULL_TRIP, holds.heldSeats(schedule.getId()))
+				.staffView().get(seat - 1).status;
+	}
+
+	// A hold on an already claimed seat, expiring after the given milliseconds
+	private SeatHoldService.SeatHold claimedHold(String id, int seat, long millis) {
+		assertTrue(inventory.claim(schedule.getId(), 6, seat));
+		return new SeatHoldService.SeatHold(id, schedule.getId(), seat, "alice", System.currentTimeMillis() + millis);
+	}
+
+	@Test
+	void heldSeatsAreClaimedAndShownAsHeld() {
+		long version = grids.version(schedule.getId());
+		List<SeatHoldService.SeatHold> created = holds.hold(schedule.getId(), List.of(2, 3), 5, "alice");
+
+		assertEquals(2, created.size());
+		assertTrue(inventory.isTaken(schedule.getId(), 6, 2));
+		assertNotEquals(version, grids.version(schedule.getId()));
+		assertEquals(SeatGridCache.HELD, status(2));
+		assertEquals(SeatGridCache.AVAILABLE, status(1));
+
+		// All or nothing: seat 3 is held, so seat 4 is not held either
+		assertThrows(ConflictException.class, () -> holds.hold(schedule.getId(), List.of(4, 3), 5, "bob"));
+		assertFalse(inventory.isTaken(schedule.getId(), 6, 4));
+
+		holds.release(created.get(0).getId(), "alice", false);
+		assertFalse(inventory.isTaken(schedule.getId(), 6, 2));
+		assertEquals(SeatGridCache.AVAILABLE, status(2));
+		assertEquals(Set.of(3), holds.heldSeats(schedule.getId()));
+	}
+
+	@Test
+	void sweeperReleasesExpiredHoldsOnly() throws InterruptedException {
+		holds.restore(claimedHold("short", 1, 20));
+		holds.restore(claimedHold("long", 2, 60_000));
+		assertEquals(2, holds.activeHolds());
+
+		Thread.sleep(50);
+		assertEquals(1, holds.sweepExpired());
+
+		assertFalse(inventory.isTaken(schedule.getId(), 6, 1));
+		assertTrue(inventory.isTaken(schedule.getId(), 6, 2));
+		assertEquals(Set.of(2), holds.heldSeats(schedule.getId()));
+		assertEquals(SeatGridCache.AVAILABLE, status(1));
+		assertEquals(SeatGridCache.HELD, status(2));
+	}
+
+	@Test
+	void takenHoldCanBeRestoredUntilItExpires() throws InterruptedException {
+		holds.restore(claimedHold("h1", 4, 40));
+
+		SeatHoldService.SeatHold taken = holds.take("h1", "alice", false);
+		assertEquals(0, holds.activeHolds());
+		// The seat stays claimed while the reservation is written
+		assertTrue(inventory.isTaken(schedule.getId(), 6, 4));
+		holds.restore(taken);
+		assertThrows(BadRequestException.class, () -> holds.take("h1", "bob", false));
+
+		// Restored, then swept once it expires
+		assertEquals(1, holds.activeHolds());
+		Thread.sleep(60);
+		assertEquals(1, holds.sweepExpired());
+		assertFalse(inventory.isTaken(schedule.getId(), 6, 4));
+
+		// Restoring an expired hold gives the seat back instead
+		SeatHoldService.SeatHold expired = claimedHold("h2", 5, -1);
+		holds.restore(expired);
+		assertEquals(0, holds.activeHolds());
+		assertFalse(inventory.isTaken(schedule.getId(), 6, 5));
+	}
+}
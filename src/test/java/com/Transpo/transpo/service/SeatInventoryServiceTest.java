@@ -0,0 +1,165 @@
+package com.Transpo.transpo.service;
+
+import com.Transpo.transpo.model.Bus;
+import com.Transpo.transpo.model.Reservation;
+import com.Transpo.transpo.model.Route;
+import com.Transpo.transpo.model.Schedule;
+import com.Transpo.transpo.repository.ReservationRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+class SeatInventoryServiceTest {
+
+	@Autowired
+	private EntityManager em;
+
+	@Autowired
+	private ReservationRepository reservationRepo;
+
+	@Test
+	void legMaskCoversTheLegsBetweenPickupAndDrop() {
+		assertEquals(SeatInventoryService.FULL_TRIP, SeatInventoryService.legMask((Integer) null, null));
+		// Legs 1 and 2: stop 1 -> 2 -> 3
+		assertEquals(0b110L, SeatInventoryService.legMask(1, 3));
+		// Missing drop: to the end of the route
+		assertEquals(-1L << 2, SeatInventoryService.legMask(2, null));
+		// Missing pickup: from the start of the route
+		assertEquals(0b111L, SeatInventoryService.legMask(null, 3));
+		// Reversed or out of range falls back to the whole trip
+		assertEquals(SeatInventoryService.FULL_TRIP, SeatInventoryService.legMask(3, 1));
+		assertEquals(SeatInventoryService.FULL_TRIP, SeatInventoryService.legMask(-1, 2));
+	}
+
+	@Test
+	void sharesASeatBetweenDisjointLegsOnly() {
+		SeatInventoryService inventory = new SeatInventoryService(reservationRepo);
+
+		assertEquals(SeatInventoryService.Claim.NEW_SEAT, inventory.claimLegs(-1L, 10, 4, SeatInventoryService.legMask(1, 3)));
+		assertEquals(SeatInventoryService.Claim.CONFLICT, inventory.claimLegs(-1L, 10, 4, SeatInventoryService.legMask(2, 4)));
+		assertEquals(SeatInventoryService.Claim.SHARED_SEAT, inventory.claimLegs(-1L, 10, 4, SeatInventoryService.legMask(3, 5)));
+		assertEquals(1, inventory.takenCount(-1L, 10));
+		assertFalse(inventory.isFree(-1L, 10, 4, SeatInventoryService.legMask(4, 5)));
+		assertTrue(inventory.isFree(-1L, 10, 4, SeatInventoryService.legMask(5, 6)));
+
+		inventory.release(-1L, 4, SeatInventoryService.legMask(1, 3));
+		assertEquals(1, inventory.takenCount(-1L, 10));
+		inventory.release(-1L, 4, SeatInventoryService.legMask(3, 5));
+		assertEquals(0, inventory.takenCount(-1L, 10));
+		assertTrue(inventory.claim(-1L, 10, 4));
+		assertFalse(inventory.claim(-1L, 10, 4));
+	}
+
+	@Test
+	void exactlyOneConcurrentClaimWinsASeat() throws Exception {
+		SeatInventoryService inventory = new SeatInventoryService(reservationRepo);
+		inventory.takenCount(-1L, 40);
+		int threads = 8;
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			for (int seat = 1; seat <= 40; seat++) {
+				int s = seat;
+				CountDownLatch start = new CountDownLatch(1);
+				List<Future<Boolean>> results = new ArrayList<>();
+				for (int t = 0; t < threads; t++) {
+					results.add(pool.submit(() -> {
+						start.await();
+						return inventory.claim(-1L, 40, s);
+					}));
+				}
+				start.countDown();
+				int won = 0;
+				for (Future<Boolean> r : results) {
+					if (r.get(10, TimeUnit.SECONDS)) won++;
+				}
+				assertEquals(1, won, "seat " + s);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		assertEquals(40, inventory.takenCount(-1L, 40));
+	}
+
+	@Test
+	void claimsMadeWhileTheBusGrowsAreKept() throws Exception {
+		SeatInventoryService inventory = new SeatInventoryService(reservationRepo);
+		int seats = 2000;
+		inventory.takenCount(-1L, 8);
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> done = new ArrayList<>();
+			for (int t = 0; t < 4; t++) {
+				int offset = t;
+				done.add(pool.submit(() -> {
+					// Every claim names a bigger bus than the last, so the array keeps being copied
+					for (int seat = 1 + offset; seat <= seats; seat += 4) {
+						assertTrue(inventory.claim(-1L, seat, seat));
+					}
+				}));
+			}
+			for (Future<?> f : done) {
+				f.get(30, TimeUnit.SECONDS);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		assertEquals(seats, inventory.takenCount(-1L, seats));
+		for (int seat = 1; seat <= seats; seat++) {
+			assertTrue(inventory.isTaken(-1L, seats, seat), "seat " + seat);
+		}
+	}
+
+	@Test
+	void rebuildKeepsSchedulesAlreadyInUse() {
+		Route route = new Route("Colombo", "Kandy");
+		em.persist(route);
+		Bus bus = new Bus("NB-1000", "Inventory", 10);
+		em.persist(bus);
+		Schedule loaded = new Schedule(bus, route, LocalDateTime.now().plusDays(1), 500, 10);
+		Schedule cold = new Schedule(bus, route, LocalDateTime.now().plusDays(2), 500, 10);
+		em.persist(loaded);
+		em.persist(cold);
+		em.persist(new Reservation(loaded, "A", "a@mail.com", 1));
+		em.persist(new Reservation(cold, "B", "b@mail.com", 2));
+		em.flush();
+
+		SeatInventoryService inventory = new SeatInventoryService(reservationRepo);
+		// Claimed before the startup load finished: only in memory until its reservation commits
+		assertTrue(inventory.claim(loaded.getId(), 10, 5));
+		inventory.rebuild();
+
+		assertTrue(inventory.isTaken(loaded.getId(), 10, 1));
+		assertTrue(inventory.isTaken(loaded.getId(), 10, 5));
+		assertTrue(inventory.isTaken(cold.getId(), 10, 2));
+		assertEquals(2, inventory.takenCount(loaded.getId(), 10));
+		assertEquals(1, inventory.takenCount(cold.getId(), 10));
+	}
+
+	@Test
+	void evictAfterCommitKeepsClaimsWhileTheTransactionIsOpen() {
+		SeatInventoryService inventory = new SeatInventoryService(reservationRepo);
+		inventory.claimLegs(-2L, 10, 1, SeatInventoryService.FULL_TRIP);
+
+		// The test transaction never commits, as a delete that rolls back
+		inventory.evictAfterCommit(-2L);
+
+		assertEquals(1, inventory.loadedTakenCount(-2L));
+		inventory.evict(-2L);
+		assertEquals(-1, inventory.loadedTakenCount(-2L));
+	}
+}
@@ -0,0 +1,136 @@
+package com.Transpo.transpo.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SeatStreamServiceTest {
+
+	private final CountDownLatch unblock = new CountDownLatch(1);
+	private SeatStreamService stream;
+
+	@AfterEach
+	void tearDown() {
+		unblock.countDown();
+		if (stream != null) stream.shutdown();
+	}
+
+	/** Records what would be written to the client. */
+	private static class RecordingEmitter extends SseEmitter {
+		final LinkedBlockingQueue<String> sent = new LinkedBlockingQueue<>();
+
+		@Override
+		public void send(Set<DataWithMediaType> items) throws IOException {
+			StringBuilder text = new StringBuilder();
+			for (DataWithMediaType item : items) text.append(item.getData());
+			sent.add(text.toString());
+		}
+	}
+
+	/**
+	 * A client that stops reading: every write blocks until released, and so does complete(),
+	 * which waits for the running write like ResponseBodyEmitter does.
+	 */
+	private final class StuckEmitter extends RecordingEmitter {
+		final CountDownLatch writing = new CountDownLatch(1);
+		final CountDownLatch completed = new CountDownLatch(1);
+		volatile String completedBy;
+
+		@Override
+		public void complete() {
+			try {
+				unblock.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			completedBy = Thread.currentThread().getName();
+			completed.countDown();
+		}
+
+		@Override
+		public void send(Set<DataWithMediaType> items) throws IOException {
+			writing.countDown();
+			try {
+				unblock.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			super.send(items);
+		}
+	}
+
+	@Test
+	void slowClientDoesNotStallTheOtherStreams() throws Exception {
+		// One sender thread, so without the send timeout the stuck client would hold it
+		stream = new SeatStreamService(new SeatGridCache(null, 10), 16, 60_000, 1, 4, 50);
+		StuckEmitter slow = new StuckEmitter();
+		stream.subscribe(1L, slow);
+		assertTrue(slow.writing.await(5, TimeUnit.SECONDS));
+
+		RecordingEmitter fast = new RecordingEmitter();
+		stream.subscribe(2L, fast);
+		stream.publish(2L, List.of(new SeatStreamService.SeatDelta(4, "RESERVED")));
+		assertNull(fast.sent.poll(200, TimeUnit.MILLISECONDS));
+
+		stream.dropSlowSubscribers();
+		Map<String, Object> stats = stream.stats();
+		assertEquals(1, stats.get("dropped"));
+		assertEquals(1, stats.get("subscribers"));
+		assertEquals(1, stats.get("stuckSenders"));
+
+		// A second sender takes over and delivers the queued events
+		assertTrue(fast.sent.poll(5, TimeUnit.SECONDS).contains("ready"));
+		String seats = fast.sent.poll(5, TimeUnit.SECONDS);
+		assertNotNull(seats);
+		assertTrue(seats.contains("RESERVED"));
+
+		// Once the stuck write returns the slow stream is closed and the pool shrinks back
+		unblock.countDown();
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while ((int) stream.stats().get("stuckSenders") != 0 && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(0, stream.stats().get("stuckSenders"));
+		stream.publish(1L, List.of(new SeatStreamService.SeatDelta(1, "AVAILABLE")));
+		assertEquals(1, slow.sent.size());
+	}
+
+	@Test
+	void clientWithAFullBufferIsDropped() throws Exception {
+		stream = new SeatStreamService(new SeatGridCache(null, 10), 2, 60_000, 1, 1, 60_000);
+		StuckEmitter slow = new StuckEmitter();
+		stream.subscribe(1L, slow);
+		assertTrue(slow.writing.await(5, TimeUnit.SECONDS));
+
+		// Overflowing the buffer must not make the publisher wait for the stuck write
+		assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+			for (int i = 0; i < 3; i++) {
+				stream.publish(1L, List.of(new SeatStreamService.SeatDelta(i + 1, "RESERVED")));
+			}
+		});
+		assertEquals(1, stream.stats().get("dropped"));
+		assertEquals(0, stream.stats().get("subscribers"));
+		assertEquals(1, stream.stats().get("stuckSenders"));
+
+		// The sender completes the stream once the write returns
+		unblock.countDown();
+		assertTrue(slow.completed.await(5, TimeUnit.SECONDS));
+		assertEquals("seat-stream-sender", slow.completedBy);
+	}
+}
@@ -0,0 +1,62 @@
+package com.Transpo.transpo.service;
+
+import com.Transpo.transpo.model.BusStop;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpatialIndexTest {
+
+	@Test
+	void nearestStopsMatchBruteForce() {
+		SpatialIndex index = new SpatialIndex(null, 0.01, 500, 120);
+		Random random = new Random(42);
+		List<BusStop> stops = new ArrayList<>();
+		for (long id = 1; id <= 500; id++) {
+			BusStop stop = new BusStop();
+			stop.setId(id);
+			stop.setName("Stop " + id);
+			stop.setLatitude(6.8 + random.nextDouble() * 0.3);
+			stop.setLongitude(79.8 + random.nextDouble() * 0.3);
+			stops.add(stop);
+		}
+		index.addStops(stops);
+
+		for (int q = 0; q < 50; q++) {
+			double lat = 6.7 + random.nextDouble() * 0.5;
+			double lng = 79.7 + random.nextDouble() * 0.5;
+			List<Long> expected = stops.stream()
+					.sorted(Comparator.comparingDouble(s -> SpatialIndex.distanceKm(lat, lng, s.getLatitude(), s.getLongitude())))
+					.limit(7)
+					.map(BusStop::getId)
+					.toList();
+			List<Long> actual = index.nearestStops(lat, lng, 7).stream().map(SpatialIndex.NearbyStop::id).toList();
+			assertEquals(expected, actual);
+		}
+	}
+
+	@Test
+	void busesFollowTheirLatestPosition() {
+		SpatialIndex index = new SpatialIndex(null, 0.01, 500, 120);
+		long now = System.currentTimeMillis();
+		index.updateBus(1L, 6.90, 79.85, now);
+		index.updateBus(2L, 6.95, 79.85, now);
+
+		assertEquals(List.of(1L), index.busesWithin(6.90, 79.85, 1.0).stream().map(SpatialIndex.NearbyBus::busId).toList());
+
+		// Bus 2 drives into range, bus 1 drives away
+		index.updateBus(2L, 6.901, 79.851, now);
+		index.updateBus(1L, 7.10, 79.85, now);
+		assertEquals(List.of(2L), index.busesWithin(6.90, 79.85, 1.0).stream().map(SpatialIndex.NearbyBus::busId).toList());
+
+		// Stale positions are not reported
+		index.updateBus(2L, 6.901, 79.851, now - 600_000);
+		assertTrue(index.busesWithin(6.90, 79.85, 1.0).isEmpty());
+	}
+}
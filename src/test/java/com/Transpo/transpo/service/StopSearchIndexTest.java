@@ -0,0 +1,60 @@
+package com.Transpo.transpo.service;
+
+import com.Transpo.transpo.model.BusStop;
+import com.Transpo.transpo.model.Route;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StopSearchIndexTest {
+
+	private static Route route(long id, String... stops) {
+		Route r = new Route("A", "B");
+		r.setId(id);
+		for (int i = 0; i < stops.length; i++) {
+			r.addBusStop(new BusStop(stops[i], null, null, i + 1, r));
+		}
+		return r;
+	}
+
+	@Test
+	void matchesSubstringsInOrder() {
+		StopSearchIndex index = new StopSearchIndex(null);
+		index.put(route(1L, "Colombo Fort", "Kadawatha", "Kandy Town"));
+		index.put(route(2L, "Kandy Town", "Kadawatha", "Colombo Fort"));
+
+		assertEquals(List.of(1L), index.findRoutes("colombo", "KANDY"));
+		assertEquals(List.of(2L), index.findRoutes("kandy", "fort"));
+		assertTrue(index.findRoutes("fort", "fort").isEmpty());
+	}
+
+	@Test
+	void followsUpdatesAndDeletes() {
+		StopSearchIndex index = new StopSearchIndex(null);
+		index.put(route(1L, "Galle", "Matara"));
+		index.put(route(1L, "Galle", "Hikkaduwa"));
+
+		assertTrue(index.findRoutes("galle", "matara").isEmpty());
+		assertEquals(List.of(1L), index.findRoutes("gal", "hikk"));
+
+		index.remove(1L);
+		assertTrue(index.findRoutes("ga", "hi").isEmpty());
+	}
+
+	@Test
+	void keepsMoreThanTenStopsInOrder() {
+		StopSearchIndex index = new StopSearchIndex(null);
+		String[] stops = new String[12];
+		for (int i = 0; i < stops.length; i++) {
+			stops[i] = "Halt " + (char) ('A' + i);
+		}
+		index.put(route(3L, stops));
+
+		assertEquals(List.of(3L), index.findRoutes("halt b", "halt l"));
+		assertEquals(12, index.stopNames(3L).size());
+		assertEquals("Halt L", index.stopNames(3L).get(11));
+	}
+}